@@ -0,0 +1,32 @@
+package txnpay;
+
+import java.util.List;
+
+/**
+ * Makes the calls of a typical worker against a {@link StubTraxionPayServer}, so that a
+ * run with `-XX:DumpLoadedClassList` records the classes the SDK loads to serve them.
+ * Regenerates `META-INF/traxionpay.classlist`; see the README.
+ */
+public final class ClassListGenerator {
+    private ClassListGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (StubTraxionPayServer server = StubTraxionPayServer.start(Fixtures.API_KEY, Fixtures.SECRET_KEY);
+                TraxionPay traxionpay = TraxionPay.builder().apiKey(Fixtures.API_KEY)
+                    .secretKey(Fixtures.SECRET_KEY).baseUrl(server.baseUrl()).build()) {
+            traxionpay.warmUp(1);
+            traxionpay.cashIn(Fixtures.cashIn("ORDER-1"), Fixtures.billing());
+            traxionpay.createPayformLink(Fixtures.cashIn("ORDER-2"), null);
+            traxionpay.cashInAsync(Fixtures.cashIn("ORDER-3"), null).get();
+            traxionpay.buildPayformUrl(Fixtures.cashIn("ORDER-4"), null);
+            List<Bank> banks = traxionpay.listBanks();
+            traxionpay.fetchBankAccounts();
+            List<BankAccount> accounts = traxionpay.listBankAccountsAsync().get();
+            OtpResponse otp = traxionpay.requestOTP();
+            traxionpay.requestPayout(new CashOutData(otp.getCode(), 150.0, accounts.get(0).getId().intValue()),
+                "PAYOUT-1");
+            System.out.println("Loaded the SDK for " + banks.size() + " banks");
+        }
+    }
+}
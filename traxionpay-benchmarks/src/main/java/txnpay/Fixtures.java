@@ -0,0 +1,58 @@
+package txnpay;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Sample inputs shared by the benchmarks.
+ */
+final class Fixtures {
+    static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+    static final String ADDITIONAL_DATA = "{\"payment_code\":\"ABC123DEF456\"}";
+    static final String CALLBACK_URL = "https://devapi.traxionpay.com/callback";
+
+    private Fixtures() {
+    }
+
+    /** Merchant-wide fields, shared by every payment. */
+    static final CashInData TEMPLATE = CashInData.builder()
+        .merchantId(6328)
+        .statusNotificationUrl(CALLBACK_URL + "/")
+        .successPageUrl(CALLBACK_URL)
+        .failurePageUrl(CALLBACK_URL)
+        .cancelPageUrl(CALLBACK_URL)
+        .pendingPageUrl(CALLBACK_URL)
+        .build();
+
+    /**
+     * @param merchantRefNo
+     * @return CashInData derived from {@link #TEMPLATE}, as a checkout would create it
+     */
+    static CashInData cashIn(String merchantRefNo) {
+        return TEMPLATE.toBuilder().merchantRefNo(merchantRefNo).merchantAdditionalData(ADDITIONAL_DATA)
+            .amount(1500.0).description("My test payment").build();
+    }
+
+    static BillingDetailsData billing() {
+        return new BillingDetailsData("jane@example.com", "Jane", "Doe", "", "0288888888", "09171234567",
+            "1 Ayala Ave.", "Tower 2", "Makati", "Metro Manila", "1226", "PH", "");
+    }
+
+    /**
+     * @param count
+     * @return a `/banks/` response body with the given number of entries
+     */
+    static String banksBody(int count) {
+        JSONArray banks = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            JSONObject bank = new JSONObject();
+            bank.put("id", i);
+            bank.put("bank", "Bank of the Philippine Islands " + i);
+            bank.put("bank_code", "BPI" + i);
+            bank.put("is_active", true);
+            banks.add(bank);
+        }
+        return banks.toJSONString();
+    }
+}
@@ -0,0 +1,46 @@
+package txnpay;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the HMAC used for `secure_hash` and `auth_hash`.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class HashingBenchmark {
+    private String dataToHash;
+    private HmacSigner signer;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.dataToHash = "ABC123DEF456" + 1500.0 + "PHP" + "My test payment";
+        this.signer = new HmacSigner(Fixtures.SECRET_KEY);
+    }
+
+    /** Provider lookup and keying on every call. */
+    @Benchmark
+    public String hmacSha256Digest() {
+        return Utils.hmacSha256Digest(this.dataToHash, Fixtures.SECRET_KEY);
+    }
+
+    /** Pooled, pre-keyed Mac as used by `TraxionPay`. */
+    @Benchmark
+    public String signer() {
+        return this.signer.sign(this.dataToHash);
+    }
+}
@@ -0,0 +1,72 @@
+package txnpay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Journaling overhead of one call: its durable intent and its outcome. With more
+ * threads, group commit should raise throughput well beyond one call per `fsync`.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+    private Path directory;
+    private OutboxJournal journal;
+    private String payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.directory = Files.createTempDirectory("traxionpay-journal");
+        this.journal = OutboxJournal.open(this.directory);
+        // About the size of an encoded payform.
+        this.payload = "form_data=" + String.join("", Collections.nCopies(100, "eyJtZXJj"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.journal.close();
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public JournalEntry journalOneThread() throws IOException {
+        return journal();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public JournalEntry journalSixteenThreads() throws IOException {
+        return journal();
+    }
+
+    private JournalEntry journal() throws IOException {
+        JournalEntry entry = this.journal.intend("/payform-link", "ABC123DEF456", this.payload);
+        this.journal.complete(entry, 200);
+        return entry;
+    }
+}
@@ -0,0 +1,50 @@
+package txnpay;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing JSON request bodies through each {@link JsonCodec}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class JsonCodecBenchmark {
+    @Param({"json-simple", "jackson"})
+    public String codec;
+
+    private JsonCodec jsonCodec;
+    private CashOutData cashOut;
+    private LinkBankAccountData bankAccount;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.jsonCodec = Utils.loadJsonCodec(this.codec);
+        this.cashOut = new CashOutData("123456", 1500.0, 433);
+        this.bankAccount = new LinkBankAccountData("161414", "savings", "Juan dela Cruz", "1234567890");
+    }
+
+    @Benchmark
+    public String writeCashOut() {
+        return this.cashOut.toJSON(this.jsonCodec);
+    }
+
+    @Benchmark
+    public String writeBankAccount() {
+        return this.bankAccount.toJSON(this.jsonCodec);
+    }
+}
@@ -0,0 +1,113 @@
+package txnpay;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.message.BasicNameValuePair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Everything `cashIn` does before a byte reaches the wire: hashing, payform
+ * serialization, Base64 and form encoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PayformBenchmark {
+    private TraxionPay traxionpay;
+    private PayformEncoder encoder;
+    private PayformData payform;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.traxionpay = new TraxionPay(Fixtures.API_KEY, Fixtures.SECRET_KEY);
+        this.encoder = new PayformEncoder();
+
+        CashInData cashIn = Fixtures.cashIn("ABC123DEF456");
+        String additionalData = Utils.encodeAdditionalData(cashIn.merchantAdditionalData);
+        String secureHash = Utils.hmacSha256Digest("ABC123DEF456", Fixtures.SECRET_KEY);
+        String authHash = Utils.hmacSha256Digest(Fixtures.API_KEY, Fixtures.SECRET_KEY);
+        this.payform = new PayformData(cashIn, additionalData, Fixtures.billing(), secureHash, authHash, "HS256");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.traxionpay.close();
+    }
+
+    /** A payment derived from the merchant-wide template. */
+    @Benchmark
+    public CashInData cashInFromTemplate() {
+        return Fixtures.cashIn("ABC123DEF456");
+    }
+
+    @Benchmark
+    public String encodeAdditionalData() {
+        return Utils.encodeAdditionalData(Fixtures.ADDITIONAL_DATA);
+    }
+
+    /** json-simple serialization of the 28 payform fields. */
+    @Benchmark
+    public String payformToJSON() {
+        return this.payform.toJSON();
+    }
+
+    /** The original `toJSON` / `unescapeJava` / Base64 chain. */
+    @Benchmark
+    public String legacyFormData() {
+        byte[] encoded = Base64.getEncoder().encode(StringEscapeUtils.unescapeJava(this.payform.toJSON()).getBytes());
+        return new String(encoded);
+    }
+
+    /** Single-pass encoder producing the same `form_data`. */
+    @Benchmark
+    public String encoderFormData() {
+        return this.encoder.encode(this.payform);
+    }
+
+    /** Full payload assembly as `cashIn` originally did it, including the form-encoded entity. */
+    @Benchmark
+    public HttpEntity legacyCashInPayload() {
+        CashInData cashIn = Fixtures.cashIn("ABC123DEF456");
+        String dataToHash = cashIn.merchantRefNo + cashIn.amount + Utils.getValidData(cashIn.currency, "PHP")
+            + cashIn.description;
+        String secureHash = Utils.hmacSha256Digest(dataToHash, Fixtures.SECRET_KEY);
+        String authHash = Utils.hmacSha256Digest(Fixtures.API_KEY, Fixtures.SECRET_KEY);
+        String additionalData = Utils.encodeAdditionalData(cashIn.merchantAdditionalData);
+
+        PayformData rawPayform = new PayformData(cashIn, additionalData, Fixtures.billing(), secureHash, authHash,
+            "HS256");
+        byte[] encoded = Base64.getEncoder().encode(StringEscapeUtils.unescapeJava(rawPayform.toJSON()).getBytes());
+
+        List<NameValuePair> payload = new ArrayList<NameValuePair>();
+        payload.add(new BasicNameValuePair("form_data", new String(encoded)));
+        return new UrlEncodedFormEntity(payload, StandardCharsets.UTF_8);
+    }
+
+    /** Full payload assembly through the current `TraxionPay` code path. */
+    @Benchmark
+    public HttpEntity cashInPayload() {
+        List<NameValuePair> payload = this.traxionpay.payformPayload(Fixtures.cashIn("ABC123DEF456"), Fixtures.billing());
+        return new UrlEncodedFormEntity(payload, StandardCharsets.UTF_8);
+    }
+}
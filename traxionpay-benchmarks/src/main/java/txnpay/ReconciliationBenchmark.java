@@ -0,0 +1,60 @@
+package txnpay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reconciling a day's worth of payforms against their notifications in one pass.
+ *
+ * Each order is issued and settled `lag` orders later, one record a millisecond, so
+ * about `lag` orders are open at any time. One in a hundred settles for another amount,
+ * one in two hundred is never settled, and one in two hundred is notified twice. Run with
+ * `-prof gc` to see that the heap stays flat however many records go through.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReconciliationBenchmark {
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Param({"10000000"})
+    public int records;
+
+    @Param({"1000", "100000"})
+    public int lag;
+
+    /** @return number of results of each {@link Reconciliation.Type} */
+    @Benchmark
+    public long[] reconcile() {
+        long[] counts = new long[Reconciliation.Type.values().length];
+        Reconciler reconciler = new Reconciler(Duration.ofHours(1), Duration.ofMinutes(10),
+            result -> counts[result.getType().ordinal()]++);
+        int orders = this.records / 2;
+        for (int i = 0; i < orders + this.lag; i++) {
+            if (i < orders) reconciler.issued("ORDER-" + i, 1500.0, "PHP", T0.plusMillis(2L * i));
+
+            int settled = i - this.lag;
+            if (settled < 0 || settled >= orders || settled % 200 == 3) continue;
+            double amount = settled % 100 == 7 ? 1499.99 : 1500.0;
+            reconciler.settled("ORDER-" + settled, amount, "PHP", T0.plusMillis(2L * i + 1));
+            if (settled % 200 == 5) reconciler.settled("ORDER-" + settled, amount, "PHP", T0.plusMillis(2L * i + 1));
+        }
+        reconciler.finish();
+        return counts;
+    }
+}
@@ -0,0 +1,76 @@
+package txnpay;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of response bodies, starting from the raw bytes a transport hands over:
+ * the untyped `JSONObject` tree versus the streaming typed readers, on each
+ * {@link JsonCodec}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ResponseParsingBenchmark {
+    private static final Function<String, String> NO_HEADERS = name -> null;
+
+    @Param({"10", "200"})
+    public int banks;
+
+    @Param({"json-simple", "jackson"})
+    public String codec;
+
+    private JsonCodec jsonCodec;
+    private byte[] banksBody;
+    private byte[] otpBody;
+
+    @Setup
+    public void setUp() {
+        this.jsonCodec = Utils.loadJsonCodec(this.codec);
+        this.banksBody = Fixtures.banksBody(this.banks).getBytes(StandardCharsets.UTF_8);
+        this.otpBody = "{\"code\":\"123456\",\"expires_at\":\"2021-01-01T00:00:00Z\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public JSONObject parseBanks() throws Exception {
+        return ResponseReader.json(this.jsonCodec, false)
+            .read(200, NO_HEADERS, new ByteArrayInputStream(this.banksBody));
+    }
+
+    @Benchmark
+    public List<Bank> parseBanksTyped() throws Exception {
+        return ResponseReader.list(this.jsonCodec, Bank::new)
+            .read(200, NO_HEADERS, new ByteArrayInputStream(this.banksBody));
+    }
+
+    @Benchmark
+    public JSONObject parseOTP() throws Exception {
+        return ResponseReader.json(this.jsonCodec, false).read(200, NO_HEADERS, new ByteArrayInputStream(this.otpBody));
+    }
+
+    @Benchmark
+    public OtpResponse parseOTPTyped() throws Exception {
+        return ResponseReader.object(this.jsonCodec, OtpResponse::new)
+            .read(200, NO_HEADERS, new ByteArrayInputStream(this.otpBody));
+    }
+}
@@ -0,0 +1,116 @@
+package txnpay;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to the first payform link in a fresh JVM, one measurement per fork.
+ *
+ * `firstPayform` is the latency of the first checkout after the instance is built,
+ * with and without `warmUp`; `buildAndFirstPayform` is the whole startup cost, which
+ * an AppCDS archive of the SDK's class list reduces (see the README). The server is
+ * a fixed responder rather than {@link StubTraxionPayServer}, which would load and
+ * initialize the SDK's signing and JSON classes before the measurement.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+    private static final byte[] BANKS = "[{\"id\":161414,\"bank\":\"BDO Unibank\"}]".getBytes(StandardCharsets.UTF_8);
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        HttpServer server;
+
+        @Setup
+        public void setUp() throws IOException {
+            this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+            this.server.createContext("/payform-link", exchange -> respond(exchange, 302, null));
+            this.server.createContext("/banks/", exchange -> respond(exchange, 200, BANKS));
+            this.server.start();
+            // The server's own first response loads its date formatting; keep that out of the measurement.
+            try (InputStream in = new URL(baseUrl() + "/banks/").openStream()) {
+                in.readAllBytes();
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            this.server.stop(0);
+        }
+
+        String baseUrl() {
+            return "http://127.0.0.1:" + this.server.getAddress().getPort();
+        }
+
+        private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+            try (InputStream in = exchange.getRequestBody()) {
+                in.readAllBytes();
+            }
+            if (status == 302) exchange.getResponseHeaders().add("Location", "https://dev.traxionpay.com/payme/?data=");
+            exchange.sendResponseHeaders(status, body != null ? body.length : -1);
+            if (body != null) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Client {
+        @Param({"false", "true"})
+        public boolean warmUp;
+
+        TraxionPay traxionpay;
+
+        @Setup
+        public void setUp(Server server) throws Exception {
+            this.traxionpay = TraxionPay.builder().apiKey(Fixtures.API_KEY).secretKey(Fixtures.SECRET_KEY)
+                .baseUrl(server.baseUrl()).build();
+            if (this.warmUp) this.traxionpay.warmUp(1);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            this.traxionpay.close();
+        }
+    }
+
+    @Benchmark
+    public PayformLink firstPayform(Client client) throws Exception {
+        return client.traxionpay.createPayformLink(Fixtures.cashIn("ABC123DEF456"), null);
+    }
+
+    @Benchmark
+    public PayformLink buildAndFirstPayform(Server server) throws Exception {
+        try (TraxionPay traxionpay = TraxionPay.builder().apiKey(Fixtures.API_KEY).secretKey(Fixtures.SECRET_KEY)
+                .baseUrl(server.baseUrl()).build()) {
+            return traxionpay.createPayformLink(Fixtures.cashIn("ABC123DEF456"), null);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package txnpay;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.NameValuePair;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end throughput of each transport against an in-process {@link StubTraxionPayServer}.
+ * Run with `-t` to vary the number of concurrent callers.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+    @Param({"apache", "jdk"})
+    public String transport;
+
+    private StubTraxionPayServer server;
+    private Transport client;
+    private TraxionPay traxionpay;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.server = StubTraxionPayServer.start(Fixtures.API_KEY, Fixtures.SECRET_KEY);
+        TraxionPay.Builder options = TraxionPay.builder().maxConnections(64).maxConnectionsPerRoute(64);
+        this.client = "jdk".equals(this.transport)
+            ? new JdkHttpTransport(this.server.baseUrl(), options)
+            : new ApacheHttpTransport(this.server.baseUrl(), options);
+        this.traxionpay = new TraxionPay(Fixtures.API_KEY, Fixtures.SECRET_KEY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        this.client.close();
+        this.traxionpay.close();
+        this.server.close();
+    }
+
+    /** Payload assembly plus the `/payform-link` exchange, i.e. a complete `cashIn`. */
+    @Benchmark
+    public JSONObject cashIn() {
+        List<NameValuePair> payload = this.traxionpay.payformPayload(Fixtures.cashIn("ABC123DEF456"), null);
+        return this.client.request("POST", "/payform-link", null, null, payload);
+    }
+
+    @Benchmark
+    public PayformLink buildPayformUrl() {
+        return this.traxionpay.buildPayformUrl(Fixtures.cashIn("ABC123DEF456"), null);
+    }
+
+    @Benchmark
+    public JSONObject fetchBanks() {
+        return this.client.request("GET", "/banks/", null, null, null);
+    }
+
+    @Benchmark
+    public JSONObject fetchBanksAsync() throws Exception {
+        return this.client.requestAsync("GET", "/banks/", null, null, null).get();
+    }
+}
@@ -0,0 +1,114 @@
+package txnpay;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * {@link JsonCodec} on Jackson's streaming parser and generator. Registered with
+ * `ServiceLoader`, so adding this artifact to the class path is enough to use it.
+ *
+ * No tree or data binding is involved: fields are written straight to the
+ * generator, and tokens go to the handler as they are read.
+ */
+public final class JacksonJsonCodec implements JsonCodec {
+    private final JsonFactory factory = new JsonFactory();
+
+    @Override
+    public String name() {
+        return "jackson";
+    }
+
+    @Override
+    public String writeObject(Map<String, ?> fields) {
+        StringWriter json = new StringWriter(32 * (fields.size() + 1));
+        try (JsonGenerator generator = this.factory.createGenerator(json)) {
+            generator.writeStartObject();
+            for (Map.Entry<String, ?> field : fields.entrySet()) {
+                generator.writeFieldName(field.getKey());
+                write(generator, field.getValue());
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // Writing to a StringWriter does not fail.
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+
+    private static void write(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                generator.writeNull();
+            } else if (value instanceof Float) {
+                generator.writeNumber((Float) value);
+            } else {
+                generator.writeNumber(number);
+            }
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    @Override
+    public void read(Reader json, JsonHandler handler) throws IOException {
+        try (JsonParser parser = this.factory.createParser(json)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) throw new JsonParseException(parser, "No JSON document");
+
+            int depth = 0;
+            do {
+                switch (token) {
+                    case START_OBJECT: depth++; handler.startObject(); break;
+                    case END_OBJECT: depth--; handler.endObject(); break;
+                    case START_ARRAY: depth++; handler.startArray(); break;
+                    case END_ARRAY: depth--; handler.endArray(); break;
+                    case FIELD_NAME: handler.key(parser.getCurrentName()); break;
+                    case VALUE_STRING: handler.value(parser.getText()); break;
+                    case VALUE_NUMBER_INT: handler.value(integer(parser)); break;
+                    case VALUE_NUMBER_FLOAT: handler.value(parser.getDoubleValue()); break;
+                    case VALUE_TRUE: handler.value(Boolean.TRUE); break;
+                    case VALUE_FALSE: handler.value(Boolean.FALSE); break;
+                    case VALUE_NULL: handler.value(null); break;
+                    default: throw new JsonParseException(parser, "Unexpected token " + token);
+                }
+            } while (depth > 0 && (token = parser.nextToken()) != null);
+
+            if (depth > 0) throw new JsonParseException(parser, "Unexpected end of JSON document");
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after JSON document");
+            }
+        }
+    }
+
+    private static Object integer(JsonParser parser) throws IOException {
+        // Like json-simple, integers are Longs; larger ones can only be approximated.
+        return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER
+            ? (Object) parser.getDoubleValue()
+            : (Object) parser.getLongValue();
+    }
+}
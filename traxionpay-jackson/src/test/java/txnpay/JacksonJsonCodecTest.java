@@ -0,0 +1,44 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.json.simple.JSONObject;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link JacksonJsonCodec} against the codec conformance suite.
+ */
+class JacksonJsonCodecTest extends JsonCodecConformance {
+    @Override
+    protected JsonCodec codec() {
+        return new JacksonJsonCodec();
+    }
+
+    @Test
+    void testIsFoundWithServiceLoader() {
+        assertTrue(Utils.loadJsonCodec(null) instanceof JacksonJsonCodec);
+        assertTrue(Utils.loadJsonCodec("jackson") instanceof JacksonJsonCodec);
+        assertTrue(Utils.loadJsonCodec("json-simple") instanceof JsonSimpleCodec);
+    }
+
+    @Test
+    void testCallsGoThroughJackson() throws Exception {
+        String apiKey = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+        String secretKey = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+        try (StubTraxionPayServer server = StubTraxionPayServer.start(apiKey, secretKey);
+                TraxionPay traxionpay = TraxionPay.builder().apiKey(apiKey).secretKey(secretKey)
+                    .baseUrl(server.baseUrl()).build()) {
+            assertTrue(Utils.getJsonCodec() instanceof JacksonJsonCodec);
+
+            assertTrue(traxionpay.fetchBanks().get("data") instanceof List);
+            assertTrue(traxionpay.listBanks().size() > 0);
+            JSONObject payout = traxionpay.cashOut(new CashOutData(traxionpay.requestOTP().getCode(), 150.0, 433));
+            assertEquals("pending", payout.get("status"));
+            assertEquals("Invalid OTP.", traxionpay.cashOut(new CashOutData("000000", 150.0, 433)).get("detail"));
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package txnpay;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import org.apache.http.Consts;
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.routing.HttpRoutePlanner;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultRoutePlanner;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Long-lived HTTP transport backed by a pooled Apache HttpClient.
+ * Connections (and their TLS sessions) are reused across calls instead of
+ * being re-established for every request.
+ *
+ * Non-blocking calls go through a separate HttpAsyncClient whose I/O reactor
+ * is only started on first use, with its own pool sized like the blocking one.
+ * Both accept gzip and deflate responses.
+ *
+ * With {@link TraxionPayMetrics}, both pools report lease waits and their usage.
+ */
+final class ApacheHttpTransport implements Transport {
+    /** Routes like the clients do when no proxy is configured. */
+    private static final HttpRoutePlanner ROUTE_PLANNER = new DefaultRoutePlanner(DefaultSchemePortResolver.INSTANCE);
+
+    private final String baseUrl;
+    private final TraxionPay.Builder options;
+    private final RequestConfig requestConfig;
+    private final ConnectionKeepAliveStrategy keepAliveStrategy;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    /** Held here because metrics registries may only keep weak references to them. */
+    private final Supplier<ConnectionPoolStats> poolStats;
+    private volatile Supplier<ConnectionPoolStats> asyncPoolStats;
+    private volatile CloseableHttpAsyncClient asyncClient;
+    private boolean closed;
+
+    /**
+     * @param baseUrl   scheme and host every endpoint is resolved against
+     * @param options   pool and timeout settings
+     */
+    ApacheHttpTransport(String baseUrl, TraxionPay.Builder options) {
+        this.baseUrl = baseUrl;
+        this.options = options;
+
+        this.connectionManager = options.metrics != null
+            ? new InstrumentedConnectionManager(options.metrics)
+            : new PoolingHttpClientConnectionManager();
+        this.connectionManager.setMaxTotal(options.maxConnections);
+        this.connectionManager.setDefaultMaxPerRoute(options.maxConnectionsPerRoute);
+        this.poolStats = () -> stats(this.connectionManager.getTotalStats());
+        if (options.metrics != null) options.metrics.connectionPoolCreated("blocking", this.poolStats);
+
+        this.requestConfig = RequestConfig.custom()
+            .setConnectTimeout((int) options.connectTimeout.toMillis())
+            .setSocketTimeout((int) options.readTimeout.toMillis())
+            .setConnectionRequestTimeout((int) options.leaseTimeout.toMillis())
+            .build();
+
+        long keepAlive = options.keepAlive.toMillis();
+        this.keepAliveStrategy = (response, context) -> {
+            long advertised = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return advertised > 0 ? Math.min(advertised, keepAlive) : keepAlive;
+        };
+
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(this.connectionManager)
+            .setDefaultRequestConfig(this.requestConfig)
+            .setKeepAliveStrategy(this.keepAliveStrategy)
+            .evictExpiredConnections()
+            .evictIdleConnections(options.maxIdleTime.toMillis(), TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    /**
+     * Performs HTTP requests over the pooled client.
+     *
+     * @param method
+     * @param endpoint
+     * @param headers
+     * @param json
+     * @param payload
+     * @param reader
+     * @return T
+     * @throws Exception
+     */
+    @Override
+    public <T> T exchange(String method, String endpoint, @Nullable Header[] headers, @Nullable String json,
+            @Nullable List payload, ResponseReader<T> reader) throws Exception {
+        HttpRequestBase request = newRequest(method, endpoint, headers, json, payload);
+        try (CloseableHttpResponse response = this.httpClient.execute(request)) {
+            return read(response, reader);
+        }
+    }
+
+    /**
+     * Performs HTTP requests without blocking the calling thread.
+     * The future completes on an I/O reactor thread, exceptionally if the exchange fails.
+     *
+     * @param method
+     * @param endpoint
+     * @param headers
+     * @param json
+     * @param payload
+     * @param reader
+     * @return CompletableFuture of T
+     */
+    @Override
+    public <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        HttpRequestBase request;
+        CloseableHttpAsyncClient client;
+        try {
+            request = newRequest(method, endpoint, headers, json, payload);
+            client = asyncClient();
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        client.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    future.complete(read(response, reader));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Connects pooled connections of the blocking client without sending a request, and
+     * starts the non-blocking client's I/O reactor, whose connections open on first use.
+     *
+     * @param connections
+     * @return CompletableFuture of Integer
+     */
+    @Override
+    public CompletableFuture<Integer> preconnect(int connections) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                asyncClient();
+                return open(connections);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, WarmUp.THREADS);
+    }
+
+    /**
+     * Leases the connections at once, so the pool hands out distinct ones, connects those
+     * not open yet in parallel and returns them to the pool.
+     */
+    private int open(int connections) throws Exception {
+        HttpGet probe = new HttpGet(this.baseUrl);
+        HttpRoute route = ROUTE_PLANNER.determineRoute(URIUtils.extractHost(probe.getURI()), probe,
+            HttpClientContext.create());
+        int count = Math.min(connections, Math.min(this.options.maxConnections, this.options.maxConnectionsPerRoute));
+        List<HttpClientConnection> leased = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                leased.add(this.connectionManager.requestConnection(route, null)
+                    .get(this.options.leaseTimeout.toMillis(), TimeUnit.MILLISECONDS));
+            }
+            List<CompletableFuture<Boolean>> connected = new ArrayList<>();
+            for (HttpClientConnection connection : leased) {
+                connected.add(CompletableFuture.supplyAsync(() -> connect(connection, route), WarmUp.THREADS));
+            }
+            int open = 0;
+            for (CompletableFuture<Boolean> connection : connected) {
+                if (connection.join()) open++;
+            }
+            return open;
+        } finally {
+            for (HttpClientConnection connection : leased) {
+                this.connectionManager.releaseConnection(connection, null, this.options.keepAlive.toMillis(),
+                    TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private boolean connect(HttpClientConnection connection, HttpRoute route) {
+        if (connection.isOpen()) return true;
+        try {
+            HttpClientContext context = HttpClientContext.create();
+            this.connectionManager.connect(connection, route, (int) this.options.connectTimeout.toMillis(), context);
+            this.connectionManager.routeComplete(connection, route, context);
+            return true;
+        } catch (IOException e) {
+            Log.warn("Warm-up connection failed", e);
+            return false;
+        }
+    }
+
+    private HttpRequestBase newRequest(String method, String endpoint, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload) {
+        String url = this.baseUrl + endpoint;
+
+        HttpRequestBase request;
+        if ("POST".equals(method)) {
+            HttpPost post = new HttpPost(url);
+            if (payload != null) post.setEntity(new UrlEncodedFormEntity(payload, Consts.UTF_8));
+            if (json != null) post.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+            request = post;
+        } else if ("GET".equals(method)) {
+            request = new HttpGet(url);
+        } else {
+            throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+        }
+        request.setHeader("Accept-Encoding", ContentCoding.ACCEPT);
+        if (headers != null) {
+            for (Header header : headers) request.setHeader(header);
+        }
+        return request;
+    }
+
+    private static <T> T read(HttpResponse response, ResponseReader<T> reader) throws Exception {
+        HttpEntity entity = response.getEntity();
+        // Closing the content drains what the reader left, so the connection goes back to the pool.
+        // The blocking client decompresses by itself and drops `Content-Encoding`; the async one does not.
+        Header encoding = response.getFirstHeader("Content-Encoding");
+        try (InputStream body = entity != null
+                ? ContentCoding.decode(encoding != null ? encoding.getValue() : null, entity.getContent())
+                : InputStream.nullInputStream()) {
+            return reader.read(response.getStatusLine().getStatusCode(), name -> {
+                Header header = response.getFirstHeader(name);
+                return header != null ? header.getValue() : null;
+            }, body);
+        }
+    }
+
+    private CloseableHttpAsyncClient asyncClient() throws IOException {
+        CloseableHttpAsyncClient client = this.asyncClient;
+        if (client != null) return client;
+
+        synchronized (this) {
+            if (this.closed) throw new IOException("Transport is closed");
+            if (this.asyncClient == null) this.asyncClient = startAsyncClient();
+            return this.asyncClient;
+        }
+    }
+
+    private CloseableHttpAsyncClient startAsyncClient() throws IOReactorException {
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+            .setConnectTimeout((int) this.options.connectTimeout.toMillis())
+            .setSoTimeout((int) this.options.readTimeout.toMillis())
+            .build();
+
+        DefaultConnectingIOReactor ioReactor = new DefaultConnectingIOReactor(reactorConfig);
+        TraxionPayMetrics metrics = this.options.metrics;
+        PoolingNHttpClientConnectionManager asyncConnectionManager = metrics != null
+            ? new InstrumentedAsyncConnectionManager(ioReactor, metrics)
+            : new PoolingNHttpClientConnectionManager(ioReactor);
+        asyncConnectionManager.setMaxTotal(this.options.maxConnections);
+        asyncConnectionManager.setDefaultMaxPerRoute(this.options.maxConnectionsPerRoute);
+        if (metrics != null) {
+            this.asyncPoolStats = () -> stats(asyncConnectionManager.getTotalStats());
+            metrics.connectionPoolCreated("async", this.asyncPoolStats);
+        }
+
+        // The I/O reactor notices connections closed by the server, so no idle evictor is needed here.
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+            .setConnectionManager(asyncConnectionManager)
+            .setDefaultRequestConfig(this.requestConfig)
+            .setKeepAliveStrategy(this.keepAliveStrategy)
+            .build();
+        client.start();
+        return client;
+    }
+
+    private static ConnectionPoolStats stats(PoolStats stats) {
+        return new ConnectionPoolStats(stats.getLeased(), stats.getPending(), stats.getAvailable(), stats.getMax());
+    }
+
+    /**
+     * Shuts down the idle-connection evictor, the I/O reactor and every pooled connection.
+     */
+    @Override
+    public void close() throws IOException {
+        CloseableHttpAsyncClient client;
+        synchronized (this) {
+            this.closed = true;
+            client = this.asyncClient;
+        }
+        try {
+            this.httpClient.close();
+        } finally {
+            if (client != null) client.close();
+        }
+    }
+
+    /** Times how long blocking calls wait for a pooled connection. */
+    private static final class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+        private final TraxionPayMetrics metrics;
+
+        InstrumentedConnectionManager(TraxionPayMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ConnectionRequest request = super.requestConnection(route, state);
+            return new ConnectionRequest() {
+                @Override
+                public HttpClientConnection get(long timeout, TimeUnit unit)
+                        throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return request.get(timeout, unit);
+                    } finally {
+                        metrics.connectionLeased("blocking", System.nanoTime() - start);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+    }
+
+    /** Times how long non-blocking calls wait for a connection, including connecting a new one. */
+    private static final class InstrumentedAsyncConnectionManager extends PoolingNHttpClientConnectionManager {
+        private final TraxionPayMetrics metrics;
+
+        InstrumentedAsyncConnectionManager(DefaultConnectingIOReactor ioReactor, TraxionPayMetrics metrics) {
+            super(ioReactor);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Future<NHttpClientConnection> requestConnection(HttpRoute route, Object state, long connectTimeout,
+                long leaseTimeout, TimeUnit unit, FutureCallback<NHttpClientConnection> callback) {
+            long start = System.nanoTime();
+            return super.requestConnection(route, state, connectTimeout, leaseTimeout, unit,
+                new FutureCallback<NHttpClientConnection>() {
+                    @Override
+                    public void completed(NHttpClientConnection connection) {
+                        metrics.connectionLeased("async", System.nanoTime() - start);
+                        if (callback != null) callback.completed(connection);
+                    }
+
+                    @Override
+                    public void failed(Exception e) {
+                        metrics.connectionLeased("async", System.nanoTime() - start);
+                        if (callback != null) callback.failed(e);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        if (callback != null) callback.cancelled();
+                    }
+                });
+        }
+    }
+}
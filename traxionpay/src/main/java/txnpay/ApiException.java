@@ -0,0 +1,69 @@
+package txnpay;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import javax.annotation.Nullable;
+
+/**
+ * The API answered with an error status.
+ */
+public class ApiException extends TraxionPayException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+    private final String detail;
+    private final Duration retryAfter;
+
+    /**
+     * @param status        HTTP status code
+     * @param detail        the API's `detail` message, if any
+     * @param retryAfter    the `Retry-After` header, if any
+     */
+    public ApiException(int status, @Nullable String detail, @Nullable Duration retryAfter) {
+        super("HTTP " + status + (detail != null ? ": " + detail : ""));
+        this.status = status;
+        this.detail = detail;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    @Nullable
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * @return how long the API asked callers to wait, sent with 429 and 503 responses
+     */
+    @Nullable
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @param value `Retry-After` in seconds or as an HTTP date
+     * @return Duration, or null when absent or malformed
+     */
+    @Nullable
+    static Duration parseRetryAfter(@Nullable String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            // Not delta-seconds; try an HTTP date below.
+        }
+        try {
+            Duration until = Duration.between(ZonedDateTime.now(),
+                ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+            return until.isNegative() ? Duration.ZERO : until;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package txnpay;
+
+import javax.annotation.Nullable;
+
+/**
+ * A bank payouts can be sent to, as listed by `/banks/`.
+ */
+public final class Bank extends ModelReader.Fields {
+    private Long id;
+    private String name;
+    private String code;
+    private Boolean active;
+
+    Bank() {
+    }
+
+    @Override
+    void set(String key, @Nullable Object value) {
+        switch (key) {
+            case "id": this.id = ModelReader.number(value); break;
+            case "bank": this.name = ModelReader.string(value); break;
+            case "bank_code": this.code = ModelReader.string(value); break;
+            case "is_active": this.active = (Boolean) value; break;
+            default: break;
+        }
+    }
+
+    /**
+     * @return id to pass as `bank` when linking a bank account
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Nullable
+    public String getCode() {
+        return code;
+    }
+
+    @Nullable
+    public Boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public String toString() {
+        return "Bank{id=" + id + ", name=" + name + "}";
+    }
+}
@@ -0,0 +1,69 @@
+package txnpay;
+
+import javax.annotation.Nullable;
+
+/**
+ * A linked bank account, as returned by `/payout/bank-account/`.
+ */
+public final class BankAccount extends ModelReader.Fields {
+    private Long id;
+    private Long bank;
+    private String bankName;
+    private String accountType;
+    private String accountName;
+    private String accountNumber;
+
+    BankAccount() {
+    }
+
+    @Override
+    void set(String key, @Nullable Object value) {
+        switch (key) {
+            case "id": this.id = ModelReader.number(value); break;
+            case "bank": this.bank = ModelReader.number(value); break;
+            case "bank_name": this.bankName = ModelReader.string(value); break;
+            case "account_type": this.accountType = ModelReader.string(value); break;
+            case "account_name": this.accountName = ModelReader.string(value); break;
+            case "account_number": this.accountNumber = ModelReader.string(value); break;
+            default: break;
+        }
+    }
+
+    /**
+     * @return id to pass as `bankAccount` in `CashOutData`
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return id of the {@link Bank}
+     */
+    public Long getBank() {
+        return bank;
+    }
+
+    public String getBankName() {
+        return bankName;
+    }
+
+    /**
+     * @return "savings" or "checkings"
+     */
+    public String getAccountType() {
+        return accountType;
+    }
+
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    @Override
+    public String toString() {
+        return "BankAccount{id=" + id + ", bankName=" + bankName + ", accountName=" + accountName + "}";
+    }
+}
@@ -0,0 +1,95 @@
+package txnpay;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.http.NameValuePair;
+import org.json.simple.JSONObject;
+
+/**
+ * Sliding window over a list of payforms. Up to `concurrency` items are in flight;
+ * each completion starts the next one. Hashing and encoding run on `workers`, the
+ * exchange on the transport's non-blocking path, so no thread waits on the network.
+ * Results are delivered on `workers` too, so a slow consumer never holds up the
+ * transport's I/O threads.
+ */
+final class CashInBatch {
+    private final List<CashInData> cashIns;
+    private final Function<CashInData, List<NameValuePair>> prepare;
+    private final BiFunction<CashInData, List<NameValuePair>, CompletableFuture<JSONObject>> send;
+    private final Executor workers;
+    private final Consumer<CashInResult> results;
+    /** Serializes {@link #results} without locking the caller's object. */
+    private final ReentrantLock delivery = new ReentrantLock();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final AtomicReference<RuntimeException> callbackError = new AtomicReference<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    CashInBatch(List<CashInData> cashIns, Function<CashInData, List<NameValuePair>> prepare,
+            BiFunction<CashInData, List<NameValuePair>, CompletableFuture<JSONObject>> send, Executor workers,
+            Consumer<CashInResult> results) {
+        this.cashIns = cashIns;
+        this.prepare = prepare;
+        this.send = send;
+        this.workers = workers;
+        this.results = results;
+        this.remaining = new AtomicInteger(cashIns.size());
+    }
+
+    CompletableFuture<Void> start(int concurrency) {
+        if (this.cashIns.isEmpty()) {
+            this.done.complete(null);
+        }
+        for (int i = 0; i < Math.min(concurrency, this.cashIns.size()); i++) {
+            submitNext();
+        }
+        return this.done;
+    }
+
+    private void submitNext() {
+        int index = this.next.getAndIncrement();
+        if (index >= this.cashIns.size()) return;
+
+        CashInData cashIn = this.cashIns.get(index);
+        String merchantRefNo = cashIn.merchantRefNo;
+        CompletableFuture.supplyAsync(() -> this.prepare.apply(cashIn), this.workers)
+            .thenCompose(payload -> this.send.apply(cashIn, payload))
+            .whenCompleteAsync((data, error) -> {
+                deliver(CashInResult.of(merchantRefNo, data, error));
+                if (this.remaining.decrementAndGet() == 0) {
+                    finish();
+                } else {
+                    submitNext();
+                }
+            }, this.workers);
+    }
+
+    private void deliver(CashInResult result) {
+        // One at a time, so callers may collect into plain lists.
+        this.delivery.lock();
+        try {
+            this.results.accept(result);
+        } catch (RuntimeException e) {
+            this.callbackError.compareAndSet(null, e);
+        } finally {
+            this.delivery.unlock();
+        }
+    }
+
+    private void finish() {
+        RuntimeException error = this.callbackError.get();
+        if (error != null) {
+            this.done.completeExceptionally(error);
+        } else {
+            this.done.complete(null);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package txnpay;
+
+import javax.annotation.Nullable;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Outcome of one payform in {@link TraxionPay#cashInBatch}: either the payform URL
+ * or the reason it could not be created.
+ */
+public final class CashInResult {
+    private final String merchantRefNo;
+    private final String url;
+    private final JSONObject response;
+    private final Throwable error;
+
+    private CashInResult(String merchantRefNo, @Nullable String url, @Nullable JSONObject response,
+            @Nullable Throwable error) {
+        this.merchantRefNo = merchantRefNo;
+        this.url = url;
+        this.response = response;
+        this.error = error;
+    }
+
+    static CashInResult of(String merchantRefNo, @Nullable JSONObject response, @Nullable Throwable error) {
+        if (error != null) {
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            return new CashInResult(merchantRefNo, null, null, cause);
+        }
+        Object url = response.get("url");
+        if (url != null) return new CashInResult(merchantRefNo, url.toString(), response, null);
+
+        Object detail = response.get("detail");
+        String message = detail != null ? detail.toString() : "No payform link returned";
+        return new CashInResult(merchantRefNo, null, response, new Exception(message));
+    }
+
+    /**
+     * @return `merchantRefNo` of the `CashInData` this result belongs to
+     */
+    public String getMerchantRefNo() {
+        return merchantRefNo;
+    }
+
+    /**
+     * @return true if a payform link was created
+     */
+    public boolean isSuccess() {
+        return url != null;
+    }
+
+    /**
+     * @return payform URL, or null on failure
+     */
+    @Nullable
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return body returned by the API, or null if the exchange itself failed
+     */
+    @Nullable
+    public JSONObject getResponse() {
+        return response;
+    }
+
+    /**
+     * @return why the payform could not be created, or null on success
+     */
+    @Nullable
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        String outcome = url != null ? ", url=" + url : ", error=" + error;
+        return "CashInResult{merchantRefNo=" + merchantRefNo + outcome + "}";
+    }
+}
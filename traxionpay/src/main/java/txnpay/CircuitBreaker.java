@@ -0,0 +1,63 @@
+package txnpay;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consecutive-failure circuit breaker for one endpoint.
+ *
+ * After `failureThreshold` failures in a row the breaker opens and calls fail
+ * fast for `openDuration`. Then a single trial call is let through: success
+ * closes the breaker, failure opens it again. State is kept in atomics so the
+ * closed path costs one volatile read.
+ */
+final class CircuitBreaker {
+    private final String endpoint;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private volatile boolean open;
+    private volatile long openedAt;
+
+    /**
+     * @param endpoint
+     * @param failureThreshold  consecutive failures that open the breaker
+     * @param openDuration      how long calls fail fast before a trial call
+     */
+    CircuitBreaker(String endpoint, int failureThreshold, Duration openDuration) {
+        this.endpoint = endpoint;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Admits a call; every admitted call must end in {@link #onSuccess} or {@link #onFailure}.
+     *
+     * @throws CircuitOpenException while open, or while another trial call is running
+     */
+    void acquire() throws CircuitOpenException {
+        if (!this.open) return;
+
+        long remaining = this.openNanos - (System.nanoTime() - this.openedAt);
+        if (remaining > 0) throw new CircuitOpenException(this.endpoint, Duration.ofNanos(remaining));
+        if (!this.trialInFlight.compareAndSet(false, true)) {
+            throw new CircuitOpenException(this.endpoint, Duration.ZERO);
+        }
+    }
+
+    void onSuccess() {
+        this.failures.set(0);
+        this.open = false;
+        this.trialInFlight.set(false);
+    }
+
+    void onFailure() {
+        if (this.failures.incrementAndGet() >= this.failureThreshold || this.open) {
+            this.openedAt = System.nanoTime();
+            this.open = true;
+            this.trialInFlight.set(false);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package txnpay;
+
+import java.time.Duration;
+
+/**
+ * Rejected without calling the API because recent calls to the endpoint kept failing.
+ */
+public class CircuitOpenException extends TraxionPayException {
+    private static final long serialVersionUID = 1L;
+
+    private final String endpoint;
+    private final Duration retryAfter;
+
+    /**
+     * @param endpoint      e.g. "/banks/"
+     * @param retryAfter    time until the breaker lets a trial call through
+     */
+    public CircuitOpenException(String endpoint, Duration retryAfter) {
+        super("Circuit open for " + endpoint + ", retry in " + retryAfter.toMillis() + " ms");
+        this.endpoint = endpoint;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,60 @@
+package txnpay;
+
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+/**
+ * Forwards to two {@link TraxionPayMetrics}, e.g. Micrometer and JFR at once.
+ */
+final class CompositeMetrics implements TraxionPayMetrics {
+    private final TraxionPayMetrics first;
+    private final TraxionPayMetrics second;
+
+    CompositeMetrics(TraxionPayMetrics first, TraxionPayMetrics second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public void requestCompleted(String method, String endpoint, int status, long nanos, @Nullable Throwable error) {
+        this.first.requestCompleted(method, endpoint, status, nanos, error);
+        this.second.requestCompleted(method, endpoint, status, nanos, error);
+    }
+
+    @Override
+    public void connectionLeased(String pool, long waitNanos) {
+        this.first.connectionLeased(pool, waitNanos);
+        this.second.connectionLeased(pool, waitNanos);
+    }
+
+    @Override
+    public void connectionPoolCreated(String pool, Supplier<ConnectionPoolStats> stats) {
+        this.first.connectionPoolCreated(pool, stats);
+        this.second.connectionPoolCreated(pool, stats);
+    }
+
+    @Override
+    public void payformBuilt(long signNanos, long encodeNanos) {
+        this.first.payformBuilt(signNanos, encodeNanos);
+        this.second.payformBuilt(signNanos, encodeNanos);
+    }
+
+    @Override
+    public void payformUrlVerified(boolean matched) {
+        this.first.payformUrlVerified(matched);
+        this.second.payformUrlVerified(matched);
+    }
+
+    @Override
+    public void retryScheduled(String method, String endpoint, int attempt, long delayNanos) {
+        this.first.retryScheduled(method, endpoint, attempt, delayNanos);
+        this.second.retryScheduled(method, endpoint, attempt, delayNanos);
+    }
+
+    @Override
+    public void rateLimitWaited(String endpoint, long waitNanos, boolean rejected) {
+        this.first.rateLimitWaited(endpoint, waitNanos, rejected);
+        this.second.rateLimitWaited(endpoint, waitNanos, rejected);
+    }
+}
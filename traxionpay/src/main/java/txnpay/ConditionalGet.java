@@ -0,0 +1,113 @@
+package txnpay;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+/**
+ * Conditional GET of one endpoint. The last successful result is remembered with
+ * its `ETag` and `Last-Modified` validators, which go out as `If-None-Match` and
+ * `If-Modified-Since` on the next call. A 304 then returns the remembered result
+ * itself, without a body to read or parse.
+ *
+ * Results are shared between callers and must be treated as read-only.
+ *
+ * @param <T> result type
+ */
+final class ConditionalGet<T> {
+    private final String endpoint;
+    private final ResponseReader<T> reader;
+    private final Predicate<T> cacheable;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Validated<T> last;
+
+    /**
+     * @param endpoint
+     * @param reader    reads a full response
+     * @param cacheable whether a result is a successful one worth revalidating
+     */
+    ConditionalGet(String endpoint, ResponseReader<T> reader, Predicate<T> cacheable) {
+        this.endpoint = endpoint;
+        this.reader = reader;
+        this.cacheable = cacheable;
+    }
+
+    /**
+     * @param transport
+     * @param headers   sent with every call, may be null
+     * @return T
+     * @throws TraxionPayException
+     */
+    T get(RateLimitedTransport transport, @Nullable Header[] headers) throws TraxionPayException {
+        Validated<T> cached = this.last;
+        return transport.exchange("GET", this.endpoint, conditional(headers, cached), null, null, reader(cached));
+    }
+
+    /**
+     * @param transport
+     * @param headers   sent with every call, may be null
+     * @return CompletableFuture of T
+     */
+    CompletableFuture<T> getAsync(RateLimitedTransport transport, @Nullable Header[] headers) {
+        Validated<T> cached = this.last;
+        return transport.exchangeAsync("GET", this.endpoint, conditional(headers, cached), null, null,
+            reader(cached));
+    }
+
+    /**
+     * Forgets the remembered result, e.g. after a change the validators may not reflect
+     * within their one-second `Last-Modified` resolution.
+     */
+    void reset() {
+        this.generation.incrementAndGet();
+        this.last = null;
+    }
+
+    @Nullable
+    private static Header[] conditional(@Nullable Header[] headers, @Nullable Validated<?> cached) {
+        if (cached == null) return headers;
+
+        int base = headers != null ? headers.length : 0;
+        Header[] withValidators = headers != null ? Arrays.copyOf(headers, base + 2) : new Header[2];
+        int count = base;
+        if (cached.etag != null) withValidators[count++] = new BasicHeader("If-None-Match", cached.etag);
+        if (cached.lastModified != null) {
+            withValidators[count++] = new BasicHeader("If-Modified-Since", cached.lastModified);
+        }
+        return Arrays.copyOf(withValidators, count);
+    }
+
+    private ResponseReader<T> reader(@Nullable Validated<T> cached) {
+        long startedIn = this.generation.get();
+        return (status, header, body) -> {
+            if (status == 304 && cached != null) return cached.value;
+
+            T result = this.reader.read(status, header, body);
+            String etag = header.apply("ETag");
+            String lastModified = header.apply("Last-Modified");
+            if (status == 200 && (etag != null || lastModified != null) && this.cacheable.test(result)
+                    && this.generation.get() == startedIn) {
+                this.last = new Validated<>(etag, lastModified, result);
+            }
+            return result;
+        };
+    }
+
+    private static final class Validated<T> {
+        final String etag;
+        final String lastModified;
+        final T value;
+
+        Validated(@Nullable String etag, @Nullable String lastModified, T value) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package txnpay;
+
+/**
+ * Usage of a connection pool at one point in time.
+ */
+public final class ConnectionPoolStats {
+    private final int leased;
+    private final int pending;
+    private final int available;
+    private final int max;
+
+    ConnectionPoolStats(int leased, int pending, int available, int max) {
+        this.leased = leased;
+        this.pending = pending;
+        this.available = available;
+        this.max = max;
+    }
+
+    /**
+     * @return connections in use by a call
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * @return calls waiting for a connection
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * @return idle connections ready for reuse
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * @return upper bound of connections
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * @return share of the pool in use, from 0 to 1
+     */
+    public double getSaturation() {
+        return max > 0 ? (double) leased / max : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats{leased=" + leased + ", pending=" + pending + ", available=" + available
+            + ", max=" + max + "}";
+    }
+}
@@ -0,0 +1,67 @@
+package txnpay;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.Nullable;
+
+/**
+ * Response compression shared by the transports: what they accept, and how a
+ * compressed body is decoded before it reaches a {@link ResponseReader}.
+ */
+final class ContentCoding {
+    /** `Accept-Encoding` sent with every request. */
+    static final String ACCEPT = "gzip, deflate";
+
+    private ContentCoding() {
+    }
+
+    /**
+     * @param encoding  `Content-Encoding` of the response, may be null
+     * @param body      body as received
+     * @return body as sent before compression; closing it closes `body`
+     * @throws IOException when the encoding is unsupported or the gzip header is malformed
+     */
+    static InputStream decode(@Nullable String encoding, InputStream body) throws IOException {
+        if (encoding == null) return body;
+        String coding = encoding.trim().toLowerCase(Locale.ROOT);
+        if (coding.isEmpty() || "identity".equals(coding)) return body;
+
+        PushbackInputStream peek = new PushbackInputStream(body, 2);
+        byte[] head = new byte[2];
+        int read = peek.readNBytes(head, 0, 2);
+        if (read == 0) return peek;
+        peek.unread(head, 0, read);
+
+        switch (coding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(peek, 8192);
+            case "deflate":
+                // Meant to be zlib-wrapped, but some servers send raw deflate.
+                Inflater inflater = new Inflater(!isZlib(head, read));
+                return new InflaterInputStream(peek, inflater, 8192) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            default:
+                throw new IOException("Unsupported Content-Encoding: " + encoding);
+        }
+    }
+
+    private static boolean isZlib(byte[] head, int length) {
+        if (length < 2 || (head[0] & 0x0F) != 8) return false;
+        return (((head[0] & 0xFF) << 8) | (head[1] & 0xFF)) % 31 == 0;
+    }
+}
@@ -0,0 +1,67 @@
+package txnpay;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HmacSHA256 signer keyed once with a secret.
+ *
+ * Initialized `Mac` instances are pooled and reused instead of looking up the
+ * JCE provider and re-keying on every call. The pool is lock-free and does not
+ * grow per thread, so it suits virtual threads as well as platform threads.
+ */
+final class HmacSigner {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final Mac prototype;
+    private final Queue<Mac> pool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param secretKey
+     * @throws GeneralSecurityException
+     */
+    HmacSigner(String secretKey) throws GeneralSecurityException {
+        this.key = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.prototype = Mac.getInstance(ALGORITHM);
+        this.prototype.init(this.key);
+    }
+
+    /**
+     * Signs data with the secret key.
+     *
+     * @param data
+     * @return lowercase hex digest, always 64 characters
+     */
+    String sign(String data) {
+        Mac mac = acquire();
+        try {
+            return Utils.toHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } finally {
+            this.pool.offer(mac);
+        }
+    }
+
+    private Mac acquire() {
+        Mac mac = this.pool.poll();
+        if (mac != null) return mac;
+
+        try {
+            return (Mac) this.prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // Provider does not support cloning; fall back to a freshly keyed instance.
+            try {
+                Mac fresh = Mac.getInstance(ALGORITHM, this.prototype.getProvider());
+                fresh.init(this.key);
+                return fresh;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package txnpay;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Client-side de-duplication of calls with side effects, by idempotency key.
+ *
+ * A call whose key is already in flight joins that call instead of being sent
+ * again. Results accepted by `remember` are kept for `window`, in an LRU map of
+ * at most `maxEntries`, and returned for repeated keys without a request.
+ * Failures are never kept, so a failed call can be retried with the same key.
+ *
+ * Results are shared between callers and must be treated as read-only.
+ *
+ * @param <V> result type
+ */
+final class IdempotencyRegistry<V> {
+    private final long windowNanos;
+    private final ConcurrentMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Completed<V>> completed;
+
+    /**
+     * @param window        how long completed results are remembered; zero to only join in-flight calls
+     * @param maxEntries    upper bound of remembered results
+     */
+    IdempotencyRegistry(Duration window, int maxEntries) {
+        this.windowNanos = window.toNanos();
+        this.completed = new LinkedHashMap<String, Completed<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Completed<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param key       idempotency key of the call
+     * @param call      starts the call; only invoked when `key` is neither in flight nor remembered
+     * @param remember  whether a result is a success worth remembering
+     * @return CompletableFuture of the result, shared with concurrent duplicates
+     */
+    CompletableFuture<V> execute(String key, Supplier<CompletableFuture<V>> call, Predicate<V> remember) {
+        V done = lookup(key);
+        if (done != null) return CompletableFuture.completedFuture(done);
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, mine);
+        if (existing != null) return existing.thenApply(Function.identity());
+
+        // A duplicate may have completed between the lookup and claiming the key.
+        done = lookup(key);
+        if (done != null) {
+            this.inFlight.remove(key, mine);
+            mine.complete(done);
+            return mine;
+        }
+
+        CompletableFuture<V> request;
+        try {
+            request = call.get();
+        } catch (RuntimeException e) {
+            request = new CompletableFuture<>();
+            request.completeExceptionally(e);
+        }
+        request.whenComplete((value, error) -> {
+            // Remember before releasing the key, so duplicates see one or the other.
+            if (error == null && this.windowNanos > 0 && remember.test(value)) store(key, value);
+            this.inFlight.remove(key, mine);
+            if (error != null) {
+                mine.completeExceptionally(error);
+            } else {
+                mine.complete(value);
+            }
+        });
+        return mine.thenApply(Function.identity());
+    }
+
+    private V lookup(String key) {
+        if (this.windowNanos <= 0) return null;
+        synchronized (this.completed) {
+            Completed<V> entry = this.completed.get(key);
+            if (entry == null) return null;
+            if (System.nanoTime() - entry.completedAt < this.windowNanos) return entry.value;
+
+            this.completed.remove(key);
+            return null;
+        }
+    }
+
+    private void store(String key, V value) {
+        synchronized (this.completed) {
+            this.completed.put(key, new Completed<>(value, System.nanoTime()));
+        }
+    }
+
+    private static final class Completed<V> {
+        final V value;
+        final long completedAt;
+
+        Completed(V value, long completedAt) {
+            this.value = value;
+            this.completedAt = completedAt;
+        }
+    }
+}
@@ -6,24 +6,20 @@ import javax.annotation.Nullable;
 
 import org.apache.commons.lang3.StringUtils;
 
+/** Request body written with a {@link JsonCodec}. */
 interface ProduceJSON {
-    public String toJSON();
-}
+    /**
+     * @param codec as configured for the `TraxionPay` instance sending the body
+     * @return String
+     */
+    public String toJSON(JsonCodec codec);
 
-abstract class BillingDetails {
-    protected String email;
-    protected String firstName;
-    protected String lastName;
-    protected String middleName;
-    protected String phone;
-    protected String mobile;
-    protected String address;
-    protected String address2;
-    protected String city;
-    protected String state;
-    protected String zip;
-    protected String country;
-    protected String remark;
+    /**
+     * @return String written with {@link Utils#getJsonCodec}
+     */
+    public default String toJSON() {
+        return toJSON(Utils.getJsonCodec());
+    }
 }
 
 abstract class CashInDetails {
@@ -87,7 +83,7 @@ class LinkBankAccountData implements ProduceJSON {
         }
     }
 
-    public String toJSON() {
+    public String toJSON(JsonCodec codec) {
         JSONObject params = new JSONObject();
 
         params.put("bank", this.bank);
@@ -95,13 +91,38 @@ class LinkBankAccountData implements ProduceJSON {
         params.put("account_number", this.accountNumber);
         params.put("account_name", this.accountName);
 
-        return new JSONObject(params).toJSONString();
+        return codec.writeObject(params);
     }
 }
 
-/** */
-class CashInData extends CashInDetails {
-    public CashInData(
+/**
+ * Payment request for `cashIn`. Immutable, so one instance can be shared between
+ * threads and sent any number of times.
+ *
+ * Fields shared by every payment, such as the merchant ID and page URLs, can be
+ * built once as a template; each payment then only sets its own fields:
+ *
+ * <pre>
+ * CashInData template = CashInData.builder().merchantId(6328).statusNotificationUrl(url)...build();
+ * CashInData payment = template.toBuilder().merchantRefNo(ref).amount(1500.0).build();
+ * </pre>
+ */
+@SuppressWarnings("checkstyle:visibilitymodifier")
+final class CashInData {
+    final Integer merchantId;
+    final String merchantRefNo;
+    final String merchantAdditionalData;
+    final Double amount;
+    final String currency;
+    final String description;
+    final String paymentMethod;
+    final String statusNotificationUrl;
+    final String successPageUrl;
+    final String failurePageUrl;
+    final String cancelPageUrl;
+    final String pendingPageUrl;
+
+    CashInData(
         Integer merchantId,
         String merchantRefNo,
         String merchantAdditionalData,
@@ -125,13 +146,166 @@ class CashInData extends CashInDetails {
         this.failurePageUrl = failurePageUrl;
         this.cancelPageUrl = cancelPageUrl;
         this.pendingPageUrl = pendingPageUrl;
-        this.paymentMethod = Utils.getValidData(this.paymentMethod);
-        this.currency = Utils.getValidData(this.currency, "PHP");
+        this.paymentMethod = Utils.getValidData(paymentMethod);
+        this.currency = Utils.getValidData(currency, "PHP");
+    }
+
+    private CashInData(Builder builder) {
+        this(builder.merchantId, builder.merchantRefNo, builder.merchantAdditionalData, builder.amount,
+            builder.description, builder.statusNotificationUrl, builder.successPageUrl, builder.failurePageUrl,
+            builder.cancelPageUrl, builder.pendingPageUrl, builder.paymentMethod, builder.currency);
+    }
+
+    /**
+     * @return Builder with no fields set
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Builder starting from this instance's fields
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.merchantId = this.merchantId;
+        builder.merchantRefNo = this.merchantRefNo;
+        builder.merchantAdditionalData = this.merchantAdditionalData;
+        builder.amount = this.amount;
+        builder.currency = this.currency;
+        builder.description = this.description;
+        builder.paymentMethod = this.paymentMethod;
+        builder.statusNotificationUrl = this.statusNotificationUrl;
+        builder.successPageUrl = this.successPageUrl;
+        builder.failurePageUrl = this.failurePageUrl;
+        builder.cancelPageUrl = this.cancelPageUrl;
+        builder.pendingPageUrl = this.pendingPageUrl;
+        return builder;
+    }
+
+    /**
+     * Collects the fields of a `CashInData`. Not thread-safe; share the built
+     * instance instead.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public static final class Builder {
+        private Integer merchantId;
+        private String merchantRefNo;
+        private String merchantAdditionalData;
+        private Double amount;
+        private String currency;
+        private String description;
+        private String paymentMethod;
+        private String statusNotificationUrl;
+        private String successPageUrl;
+        private String failurePageUrl;
+        private String cancelPageUrl;
+        private String pendingPageUrl;
+
+        Builder() {
+        }
+
+        public Builder merchantId(Integer merchantId) {
+            this.merchantId = merchantId;
+            return this;
+        }
+
+        /**
+         * @param merchantRefNo     unique per payment; also its idempotency key
+         * @return Builder
+         */
+        public Builder merchantRefNo(String merchantRefNo) {
+            this.merchantRefNo = merchantRefNo;
+            return this;
+        }
+
+        /**
+         * @param merchantAdditionalData    JSON text, sent Base64 encoded
+         * @return Builder
+         */
+        public Builder merchantAdditionalData(String merchantAdditionalData) {
+            this.merchantAdditionalData = merchantAdditionalData;
+            return this;
+        }
+
+        public Builder amount(Double amount) {
+            this.amount = amount;
+            return this;
+        }
+
+        /**
+         * @param currency  "PHP" when not set
+         * @return Builder
+         */
+        public Builder currency(@Nullable String currency) {
+            this.currency = currency;
+            return this;
+        }
+
+        public Builder description(String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Builder paymentMethod(@Nullable String paymentMethod) {
+            this.paymentMethod = paymentMethod;
+            return this;
+        }
+
+        public Builder statusNotificationUrl(String statusNotificationUrl) {
+            this.statusNotificationUrl = statusNotificationUrl;
+            return this;
+        }
+
+        public Builder successPageUrl(String successPageUrl) {
+            this.successPageUrl = successPageUrl;
+            return this;
+        }
+
+        public Builder failurePageUrl(String failurePageUrl) {
+            this.failurePageUrl = failurePageUrl;
+            return this;
+        }
+
+        public Builder cancelPageUrl(String cancelPageUrl) {
+            this.cancelPageUrl = cancelPageUrl;
+            return this;
+        }
+
+        public Builder pendingPageUrl(String pendingPageUrl) {
+            this.pendingPageUrl = pendingPageUrl;
+            return this;
+        }
+
+        /**
+         * @return CashInData
+         */
+        public CashInData build() {
+            return new CashInData(this);
+        }
     }
 }
 
-class BillingDetailsData extends BillingDetails {
-    public BillingDetailsData(
+/**
+ * Billing details of a payer for `cashIn`. Immutable, and built like {@link CashInData}.
+ */
+@SuppressWarnings("checkstyle:visibilitymodifier")
+final class BillingDetailsData {
+    final String email;
+    final String firstName;
+    final String lastName;
+    final String middleName;
+    final String phone;
+    final String mobile;
+    final String address;
+    final String address2;
+    final String city;
+    final String state;
+    final String zip;
+    final String country;
+    final String remark;
+
+    BillingDetailsData(
         @Nullable String email,
         @Nullable String firstName,
         @Nullable String lastName,
@@ -160,6 +334,139 @@ class BillingDetailsData extends BillingDetails {
         this.country = Utils.getValidData(country, "PH");
         this.remark = Utils.getValidData(remark);
     }
+
+    private BillingDetailsData(Builder builder) {
+        this(builder.email, builder.firstName, builder.lastName, builder.middleName, builder.phone, builder.mobile,
+            builder.address, builder.address2, builder.city, builder.state, builder.zip, builder.country,
+            builder.remark);
+    }
+
+    /**
+     * @return Builder with no fields set
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Builder starting from this instance's fields
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.email = this.email;
+        builder.firstName = this.firstName;
+        builder.lastName = this.lastName;
+        builder.middleName = this.middleName;
+        builder.phone = this.phone;
+        builder.mobile = this.mobile;
+        builder.address = this.address;
+        builder.address2 = this.address2;
+        builder.city = this.city;
+        builder.state = this.state;
+        builder.zip = this.zip;
+        builder.country = this.country;
+        builder.remark = this.remark;
+        return builder;
+    }
+
+    /**
+     * Collects the fields of a `BillingDetailsData`; every field is optional.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public static final class Builder {
+        private String email;
+        private String firstName;
+        private String lastName;
+        private String middleName;
+        private String phone;
+        private String mobile;
+        private String address;
+        private String address2;
+        private String city;
+        private String state;
+        private String zip;
+        private String country;
+        private String remark;
+
+        Builder() {
+        }
+
+        public Builder email(@Nullable String email) {
+            this.email = email;
+            return this;
+        }
+
+        public Builder firstName(@Nullable String firstName) {
+            this.firstName = firstName;
+            return this;
+        }
+
+        public Builder lastName(@Nullable String lastName) {
+            this.lastName = lastName;
+            return this;
+        }
+
+        public Builder middleName(@Nullable String middleName) {
+            this.middleName = middleName;
+            return this;
+        }
+
+        public Builder phone(@Nullable String phone) {
+            this.phone = phone;
+            return this;
+        }
+
+        public Builder mobile(@Nullable String mobile) {
+            this.mobile = mobile;
+            return this;
+        }
+
+        public Builder address(@Nullable String address) {
+            this.address = address;
+            return this;
+        }
+
+        public Builder address2(@Nullable String address2) {
+            this.address2 = address2;
+            return this;
+        }
+
+        public Builder city(@Nullable String city) {
+            this.city = city;
+            return this;
+        }
+
+        public Builder state(@Nullable String state) {
+            this.state = state;
+            return this;
+        }
+
+        public Builder zip(@Nullable String zip) {
+            this.zip = zip;
+            return this;
+        }
+
+        /**
+         * @param country   "PH" when not set
+         * @return Builder
+         */
+        public Builder country(@Nullable String country) {
+            this.country = country;
+            return this;
+        }
+
+        public Builder remark(@Nullable String remark) {
+            this.remark = remark;
+            return this;
+        }
+
+        /**
+         * @return BillingDetailsData
+         */
+        public BillingDetailsData build() {
+            return new BillingDetailsData(this);
+        }
+    }
 }
 
 class PayformData extends PayformDetails implements ProduceJSON {
@@ -168,9 +475,22 @@ class PayformData extends PayformDetails implements ProduceJSON {
     protected String alg;
 
     public PayformData(CashInData cashIn, BillingDetailsData billing, String secureHash, String authHash, String alg) {
+        this(cashIn, cashIn.merchantAdditionalData, billing, secureHash, authHash, alg);
+    }
+
+    /**
+     * @param cashIn
+     * @param merchantAdditionalData    `cashIn`'s additional data as sent, i.e. Base64 encoded
+     * @param billing
+     * @param secureHash
+     * @param authHash
+     * @param alg
+     */
+    PayformData(CashInData cashIn, String merchantAdditionalData, @Nullable BillingDetailsData billing,
+            String secureHash, String authHash, String alg) {
         this.merchantId = cashIn.merchantId;
         this.merchantRefNo = cashIn.merchantRefNo;
-        this.merchantAdditionalData = cashIn.merchantAdditionalData;
+        this.merchantAdditionalData = merchantAdditionalData;
         this.amount = cashIn.amount;
         this.currency = cashIn.currency;
         this.description = cashIn.description;
@@ -180,19 +500,19 @@ class PayformData extends PayformDetails implements ProduceJSON {
         this.failurePageUrl = cashIn.failurePageUrl;
         this.cancelPageUrl = cashIn.cancelPageUrl;
         this.pendingPageUrl = cashIn.pendingPageUrl;
-        this.email = billing == null ? "" : Utils.getValidData(billing.email);
-        this.firstName = billing == null ? "" : Utils.getValidData(billing.firstName);
-        this.lastName = billing == null ? "" : Utils.getValidData(billing.lastName);
-        this.middleName = billing == null ? "" : Utils.getValidData(billing.middleName);
-        this.phone = billing == null ? "" : Utils.getValidData(billing.phone);
-        this.mobile = billing == null ? "" : Utils.getValidData(billing.mobile);
-        this.address = billing == null ? "" : Utils.getValidData(billing.address);
-        this.address2 = billing == null ? "" : Utils.getValidData(billing.address2);
-        this.city = billing == null ? "" : Utils.getValidData(billing.city);
-        this.state = billing == null ? "" : Utils.getValidData(billing.state);
-        this.zip = billing == null ? "" : Utils.getValidData(billing.zip);
-        this.country = billing == null ? "" : Utils.getValidData(billing.country);
-        this.remark = billing == null ? "" : Utils.getValidData(billing.remark);
+        this.email = billing == null ? "" : billing.email;
+        this.firstName = billing == null ? "" : billing.firstName;
+        this.lastName = billing == null ? "" : billing.lastName;
+        this.middleName = billing == null ? "" : billing.middleName;
+        this.phone = billing == null ? "" : billing.phone;
+        this.mobile = billing == null ? "" : billing.mobile;
+        this.address = billing == null ? "" : billing.address;
+        this.address2 = billing == null ? "" : billing.address2;
+        this.city = billing == null ? "" : billing.city;
+        this.state = billing == null ? "" : billing.state;
+        this.zip = billing == null ? "" : billing.zip;
+        this.country = billing == null ? "" : billing.country;
+        this.remark = billing == null ? "" : billing.remark;
         this.secureHash = secureHash;
         this.authHash = authHash;
         this.alg = alg;
@@ -200,7 +520,7 @@ class PayformData extends PayformDetails implements ProduceJSON {
 
 
     
-    public String toJSON() {
+    public String toJSON(JsonCodec codec) {
         JSONObject params = new JSONObject();
 
         params.put("merchant_id", this.merchantId);
@@ -232,7 +552,7 @@ class PayformData extends PayformDetails implements ProduceJSON {
         params.put("auth_hash", authHash);
         params.put("alg", "HS256");
 
-        return params.toJSONString();
+        return codec.writeObject(params);
     }
 }
 
@@ -250,14 +570,14 @@ class CashOutData implements ProduceJSON {
         this.bankAccount = bankAccount;
     }
 
-    public String toJSON() {
+    public String toJSON(JsonCodec codec) {
         JSONObject params = new JSONObject();
 
         params.put("OTP", this.OTP);
         params.put("amount", this.amount);
         params.put("bank_account", this.bankAccount);
 
-        return params.toJSONString();
+        return codec.writeObject(params);
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package txnpay;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.apache.http.Header;
+
+/**
+ * Reports every exchange of another {@link Transport} to {@link TraxionPayMetrics}.
+ * Only put in place when metrics are configured, so uninstrumented calls pay nothing.
+ */
+final class InstrumentedTransport implements Transport {
+    private final Transport delegate;
+    private final TraxionPayMetrics metrics;
+
+    private InstrumentedTransport(Transport delegate, TraxionPayMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param transport
+     * @param metrics   may be null
+     * @return `transport` itself when `metrics` is null
+     */
+    static Transport wrap(Transport transport, @Nullable TraxionPayMetrics metrics) {
+        return metrics != null ? new InstrumentedTransport(transport, metrics) : transport;
+    }
+
+    @Override
+    public <T> T exchange(String method, String endpoint, @Nullable Header[] headers, @Nullable String json,
+            @Nullable List payload, ResponseReader<T> reader) throws Exception {
+        StatusReader<T> status = new StatusReader<>(reader);
+        long start = System.nanoTime();
+        try {
+            T result = this.delegate.exchange(method, endpoint, headers, json, payload, status);
+            this.metrics.requestCompleted(method, endpoint, status.status, System.nanoTime() - start, null);
+            return result;
+        } catch (Exception e) {
+            this.metrics.requestCompleted(method, endpoint, status.status, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+        StatusReader<T> status = new StatusReader<>(reader);
+        long start = System.nanoTime();
+        return this.delegate.exchangeAsync(method, endpoint, headers, json, payload, status)
+            .whenComplete((result, failure) -> {
+                Throwable error = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+                this.metrics.requestCompleted(method, endpoint, status.status, System.nanoTime() - start, error);
+            });
+    }
+
+    @Override
+    public CompletableFuture<Integer> preconnect(int connections) {
+        return this.delegate.preconnect(connections);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.delegate.close();
+    }
+
+    /** Remembers the status code on its way to the caller's reader. */
+    static final class StatusReader<T> implements ResponseReader<T> {
+        private final ResponseReader<T> reader;
+        volatile int status;
+
+        StatusReader(ResponseReader<T> reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public T read(int status, Function<String, String> header, InputStream body) throws Exception {
+            this.status = status;
+            return this.reader.read(status, header, body);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package txnpay;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+
+import org.apache.http.Header;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+
+/**
+ * Transport on the JDK's `java.net.http.HttpClient`, used in virtual-thread and
+ * HTTP/2 modes.
+ *
+ * In HTTP/2 mode the client negotiates HTTP/2 with ALPN, or upgrades plain http
+ * connections to h2c, and multiplexes concurrent exchanges as streams on a single
+ * connection per host. Servers that only speak HTTP/1.1 are used as such. Until
+ * the first exchange has negotiated the protocol, concurrent exchanges wait for
+ * it; otherwise each would open and upgrade a connection of its own.
+ *
+ * Blocking calls park the calling thread on a future instead of holding a
+ * monitor during I/O, so callers running on virtual threads never pin their
+ * carrier. In virtual-thread mode the client's own work runs on virtual
+ * threads as well.
+ *
+ * The JDK client manages its connection pool internally, so the builder's pool
+ * sizes, keep-alive and lease timeout do not apply; the read timeout bounds the
+ * whole exchange. It does not decompress, so gzip and deflate responses are
+ * decoded here.
+ */
+final class JdkHttpTransport implements Transport {
+    private final String baseUrl;
+    private final TraxionPay.Builder options;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final CompletableFuture<Void> negotiated = new CompletableFuture<>();
+    private final AtomicBoolean negotiating = new AtomicBoolean();
+
+    /**
+     * @param baseUrl   scheme and host every endpoint is resolved against
+     * @param options   protocol, timeout and threading settings
+     * @throws Exception when virtual threads are requested but not supported
+     */
+    JdkHttpTransport(String baseUrl, TraxionPay.Builder options) throws Exception {
+        this.baseUrl = baseUrl;
+        this.options = options;
+        this.executor = options.virtualThreads ? VirtualThreads.newPerTaskExecutor() : null;
+
+        HttpClient.Builder client = HttpClient.newBuilder()
+            .version(options.http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(options.connectTimeout);
+        if (this.executor != null) client.executor(this.executor);
+        this.httpClient = client.build();
+        if (!options.http2) this.negotiated.complete(null);
+    }
+
+    @Override
+    public <T> T exchange(String method, String endpoint, @Nullable Header[] headers, @Nullable String json,
+            @Nullable List payload, ResponseReader<T> reader) throws Exception {
+        HttpRequest request = newRequest(method, endpoint, headers, json, payload);
+        HttpResponse<InputStream> response;
+        if (this.negotiated.isDone() || !this.negotiating.compareAndSet(false, true)) {
+            this.negotiated.get();
+            response = this.httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } else {
+            try {
+                response = this.httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            } finally {
+                this.negotiated.complete(null);
+            }
+        }
+        try (InputStream body = ContentCoding.decode(contentEncoding(response), response.body())) {
+            return reader.read(response.statusCode(), name -> response.headers().firstValue(name).orElse(null), body);
+        }
+    }
+
+    /**
+     * The body is buffered before `reader` runs, so no client thread blocks on the network.
+     */
+    @Override
+    public <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+        HttpRequest request;
+        try {
+            request = newRequest(method, endpoint, headers, json, payload);
+        } catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        return sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(response -> {
+                try {
+                    return reader.read(response.statusCode(), name -> response.headers().firstValue(name).orElse(null),
+                        ContentCoding.decode(contentEncoding(response), new ByteArrayInputStream(response.body())));
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            });
+    }
+
+    /**
+     * The JDK client only connects to send a request, so each connection carries a GET of
+     * `/banks/`, the lightest public call. Over HTTP/2 one connection serves every call.
+     *
+     * @param connections
+     * @return CompletableFuture of Integer
+     */
+    @Override
+    public CompletableFuture<Integer> preconnect(int connections) {
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(this.baseUrl + "/banks/"))
+            .timeout(this.options.readTimeout)
+            .build();
+        int count = this.options.http2 ? Math.min(connections, 1) : connections;
+        List<CompletableFuture<Boolean>> sent = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sent.add(sendAsync(probe, HttpResponse.BodyHandlers.discarding()).handle((response, failure) -> {
+                if (failure != null) Log.warn("Warm-up connection failed", failure);
+                return failure == null;
+            }));
+        }
+        return CompletableFuture.allOf(sent.toArray(new CompletableFuture<?>[0]))
+            .thenApply(ignored -> (int) sent.stream().filter(CompletableFuture::join).count());
+    }
+
+    /** Sends `request` once the protocol is negotiated, or negotiates it when no exchange has yet. */
+    private <B> CompletableFuture<HttpResponse<B>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<B> handler) {
+        if (this.negotiated.isDone() || !this.negotiating.compareAndSet(false, true)) {
+            return this.negotiated.thenCompose(ignored -> this.httpClient.sendAsync(request, handler));
+        }
+        return this.httpClient.sendAsync(request, handler)
+            .whenComplete((response, failure) -> this.negotiated.complete(null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpRequest newRequest(String method, String endpoint, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(this.baseUrl + endpoint))
+            .timeout(this.options.readTimeout);
+
+        if ("POST".equals(method)) {
+            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+            if (payload != null) {
+                String form = URLEncodedUtils.format((List<? extends NameValuePair>) payload, StandardCharsets.UTF_8);
+                body = HttpRequest.BodyPublishers.ofString(form);
+                request.header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+            }
+            if (json != null) {
+                body = HttpRequest.BodyPublishers.ofString(json);
+                request.header("Content-Type", "application/json; charset=UTF-8");
+            }
+            request.POST(body);
+        } else if (!"GET".equals(method)) {
+            throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+        }
+        request.setHeader("Accept-Encoding", ContentCoding.ACCEPT);
+        if (headers != null) {
+            for (Header header : headers) request.setHeader(header.getName(), header.getValue());
+        }
+        return request.build();
+    }
+
+    @Nullable
+    private static String contentEncoding(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Encoding").orElse(null);
+    }
+
+    /**
+     * Stops the client's virtual-thread executor.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.httpClient instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) this.httpClient).close();
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+        if (this.executor != null) this.executor.shutdown();
+    }
+}
@@ -0,0 +1,235 @@
+package txnpay;
+
+import java.lang.ref.WeakReference;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits SDK timings as JDK Flight Recorder events in the "TraxionPay" category,
+ * e.g. for `java -XX:StartFlightRecording`. Outside a recording each call costs
+ * one check of whether the event is enabled.
+ *
+ * Events: `txnpay.Request`, `txnpay.ConnectionLease`, `txnpay.ConnectionPool`
+ * (periodic, every second by default), `txnpay.Payform`, `txnpay.PayformVerification`,
+ * `txnpay.Retry` and `txnpay.RateLimitWait`.
+ */
+public final class JfrMetrics implements TraxionPayMetrics {
+    @Override
+    public void requestCompleted(String method, String endpoint, int status, long nanos, @Nullable Throwable error) {
+        RequestEvent event = new RequestEvent();
+        if (!event.isEnabled()) return;
+        event.method = method;
+        event.endpoint = endpoint;
+        event.status = status;
+        event.latency = nanos;
+        event.error = error != null ? error.toString() : null;
+        event.commit();
+    }
+
+    @Override
+    public void connectionLeased(String pool, long waitNanos) {
+        ConnectionLeaseEvent event = new ConnectionLeaseEvent();
+        if (!event.isEnabled()) return;
+        event.pool = pool;
+        event.wait = waitNanos;
+        event.commit();
+    }
+
+    /**
+     * Samples the pool periodically until it is closed and collected.
+     */
+    @Override
+    public void connectionPoolCreated(String pool, Supplier<ConnectionPoolStats> stats) {
+        WeakReference<Supplier<ConnectionPoolStats>> weakStats = new WeakReference<>(stats);
+        Runnable[] hook = new Runnable[1];
+        hook[0] = () -> {
+            Supplier<ConnectionPoolStats> current = weakStats.get();
+            if (current == null) {
+                FlightRecorder.removePeriodicEvent(hook[0]);
+                return;
+            }
+            ConnectionPoolStats sample = current.get();
+            ConnectionPoolEvent event = new ConnectionPoolEvent();
+            event.pool = pool;
+            event.leased = sample.getLeased();
+            event.pending = sample.getPending();
+            event.available = sample.getAvailable();
+            event.max = sample.getMax();
+            event.saturation = sample.getSaturation();
+            event.commit();
+        };
+        FlightRecorder.addPeriodicEvent(ConnectionPoolEvent.class, hook[0]);
+    }
+
+    @Override
+    public void payformBuilt(long signNanos, long encodeNanos) {
+        PayformEvent event = new PayformEvent();
+        if (!event.isEnabled()) return;
+        event.sign = signNanos;
+        event.encode = encodeNanos;
+        event.commit();
+    }
+
+    @Override
+    public void payformUrlVerified(boolean matched) {
+        PayformVerificationEvent event = new PayformVerificationEvent();
+        if (!event.isEnabled()) return;
+        event.matched = matched;
+        event.commit();
+    }
+
+    @Override
+    public void retryScheduled(String method, String endpoint, int attempt, long delayNanos) {
+        RetryEvent event = new RetryEvent();
+        if (!event.isEnabled()) return;
+        event.method = method;
+        event.endpoint = endpoint;
+        event.attempt = attempt;
+        event.delay = delayNanos;
+        event.commit();
+    }
+
+    @Override
+    public void rateLimitWaited(String endpoint, long waitNanos, boolean rejected) {
+        RateLimitWaitEvent event = new RateLimitWaitEvent();
+        if (!event.isEnabled()) return;
+        event.endpoint = endpoint;
+        event.wait = waitNanos;
+        event.rejected = rejected;
+        event.commit();
+    }
+
+    @Name("txnpay.Request")
+    @Label("TraxionPay Request")
+    @Description("One HTTP exchange with the TraxionPay API")
+    @Category("TraxionPay")
+    static final class RequestEvent extends Event {
+        @Label("Method")
+        String method;
+
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Status")
+        int status;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+
+        @Label("Error")
+        String error;
+    }
+
+    @Name("txnpay.ConnectionLease")
+    @Label("TraxionPay Connection Lease")
+    @Description("Wait for a pooled connection")
+    @Category("TraxionPay")
+    @StackTrace(false)
+    static final class ConnectionLeaseEvent extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        long wait;
+    }
+
+    @Name("txnpay.ConnectionPool")
+    @Label("TraxionPay Connection Pool")
+    @Description("Usage of a connection pool")
+    @Category("TraxionPay")
+    @StackTrace(false)
+    @Period("1 s")
+    static final class ConnectionPoolEvent extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Leased")
+        int leased;
+
+        @Label("Pending")
+        int pending;
+
+        @Label("Available")
+        int available;
+
+        @Label("Max")
+        int max;
+
+        @Label("Saturation")
+        @Percentage
+        double saturation;
+    }
+
+    @Name("txnpay.Payform")
+    @Label("TraxionPay Payform")
+    @Description("Hashing and encoding of a payform")
+    @Category("TraxionPay")
+    static final class PayformEvent extends Event {
+        @Label("Sign")
+        @Timespan(Timespan.NANOSECONDS)
+        long sign;
+
+        @Label("Encode")
+        @Timespan(Timespan.NANOSECONDS)
+        long encode;
+    }
+
+    @Name("txnpay.PayformVerification")
+    @Label("TraxionPay Payform Verification")
+    @Description("A locally built payform link compared with the API's")
+    @Category("TraxionPay")
+    @StackTrace(false)
+    static final class PayformVerificationEvent extends Event {
+        @Label("Matched")
+        boolean matched;
+    }
+
+    @Name("txnpay.Retry")
+    @Label("TraxionPay Retry")
+    @Description("A retried HTTP exchange")
+    @Category("TraxionPay")
+    static final class RetryEvent extends Event {
+        @Label("Method")
+        String method;
+
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Attempt")
+        int attempt;
+
+        @Label("Delay")
+        @Timespan(Timespan.NANOSECONDS)
+        long delay;
+    }
+
+    @Name("txnpay.RateLimitWait")
+    @Label("TraxionPay Rate Limit Wait")
+    @Description("Wait for a client-side rate limit permit")
+    @Category("TraxionPay")
+    static final class RateLimitWaitEvent extends Event {
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        long wait;
+
+        @Label("Rejected")
+        boolean rejected;
+    }
+}
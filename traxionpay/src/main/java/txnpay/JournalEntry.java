@@ -0,0 +1,65 @@
+package txnpay;
+
+import java.time.Instant;
+
+import javax.annotation.Nullable;
+
+/**
+ * A `cashIn` or `cashOut` recorded by an {@link OutboxJournal} before it was sent.
+ */
+public final class JournalEntry {
+    private final long id;
+    private final Instant timestamp;
+    private final String endpoint;
+    private final String key;
+    private final String payload;
+
+    JournalEntry(long id, Instant timestamp, String endpoint, @Nullable String key, String payload) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.endpoint = endpoint;
+        this.key = key;
+        this.payload = payload;
+    }
+
+    /**
+     * @return sequence number, increasing in the order entries were recorded
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return when the call was recorded, just before it was sent
+     */
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return "/payform-link" for a cash in, "/payout/bank-payout/" for a cash out
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return idempotency key of the call, i.e. `merchantRefNo` for a cash in, or null if it had none
+     */
+    @Nullable
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return body as sent: the form-encoded, signed `form_data` of a payform, or the JSON of a payout
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalEntry{id=" + id + ", timestamp=" + timestamp + ", endpoint=" + endpoint + ", key=" + key + "}";
+    }
+}
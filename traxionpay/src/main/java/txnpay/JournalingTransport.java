@@ -0,0 +1,154 @@
+package txnpay;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.Nullable;
+
+import org.apache.http.Header;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+
+/**
+ * Records `cashIn` and `cashOut` calls of another {@link Transport} in an
+ * {@link OutboxJournal}: each call is made durable before it is sent, and resolved
+ * once a response arrives. Calls that fail without one stay unresolved. Entries carry
+ * the key the call was made with, the `merchantRefNo` or payout `reference`. Only put
+ * in place when a journal is configured.
+ *
+ * Non-blocking calls wait for their record to be durable on a writer thread of their
+ * own, a virtual one when the instance uses virtual threads, and are sent from there;
+ * the caller gets its future back without touching the disk. Writers are not pooled
+ * to a fixed size, so concurrent calls still share one `fsync`.
+ */
+final class JournalingTransport implements Transport {
+    private static final ThreadFactory WRITER_THREADS = task -> {
+        Thread thread = new Thread(task, "traxionpay-journal");
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    private final Transport delegate;
+    private final OutboxJournal journal;
+    private final ExecutorService writers;
+
+    private JournalingTransport(Transport delegate, OutboxJournal journal, ExecutorService writers) {
+        this.delegate = delegate;
+        this.journal = journal;
+        this.writers = writers;
+    }
+
+    /**
+     * @param transport
+     * @param journal           may be null
+     * @param virtualThreads    whether non-blocking calls are recorded on virtual threads
+     * @return `transport` itself when `journal` is null
+     * @throws Exception when virtual threads are requested but not supported
+     */
+    static Transport wrap(Transport transport, @Nullable OutboxJournal journal, boolean virtualThreads)
+            throws Exception {
+        if (journal == null) {
+            return transport;
+        }
+        ExecutorService writers = virtualThreads
+            ? VirtualThreads.newPerTaskExecutor() : Executors.newCachedThreadPool(WRITER_THREADS);
+        return new JournalingTransport(transport, journal, writers);
+    }
+
+    private static boolean isJournaled(String method, String endpoint) {
+        return "POST".equals(method) && ("/payform-link".equals(endpoint) || "/payout/bank-payout/".equals(endpoint));
+    }
+
+    @Override
+    public <T> T exchange(String method, String endpoint, @Nullable Header[] headers, @Nullable String json,
+            @Nullable List payload, ResponseReader<T> reader) throws Exception {
+        return exchange(method, endpoint, null, headers, json, payload, reader);
+    }
+
+    @Override
+    public <T> T exchange(String method, String endpoint, @Nullable String key, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader) throws Exception {
+        if (!isJournaled(method, endpoint)) {
+            return this.delegate.exchange(method, endpoint, headers, json, payload, reader);
+        }
+
+        JournalEntry entry = intend(endpoint, key, json, payload);
+        InstrumentedTransport.StatusReader<T> status = new InstrumentedTransport.StatusReader<>(reader);
+        try {
+            return this.delegate.exchange(method, endpoint, headers, json, payload, status);
+        } finally {
+            complete(entry, status.status);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+        return exchangeAsync(method, endpoint, null, headers, json, payload, reader);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable String key,
+            @Nullable Header[] headers, @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+        if (!isJournaled(method, endpoint)) {
+            return this.delegate.exchangeAsync(method, endpoint, headers, json, payload, reader);
+        }
+
+        InstrumentedTransport.StatusReader<T> status = new InstrumentedTransport.StatusReader<>(reader);
+        CompletableFuture<JournalEntry> recorded;
+        try {
+            recorded = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return intend(endpoint, key, json, payload);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, this.writers);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IOException("Transport is closed", e));
+            return failed;
+        }
+        return recorded.thenCompose(entry -> this.delegate.exchangeAsync(method, endpoint, headers, json, payload,
+            status).whenComplete((result, failure) -> complete(entry, status.status)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private JournalEntry intend(String endpoint, @Nullable String key, @Nullable String json,
+            @Nullable List payload) throws IOException {
+        String body = json != null ? json
+            : payload != null ? URLEncodedUtils.format((List<? extends NameValuePair>) payload, StandardCharsets.UTF_8)
+            : "";
+        return this.journal.intend(endpoint, key, body);
+    }
+
+    /**
+     * Resolves the entry if the API answered; without a status the call may or may not have been executed.
+     */
+    private void complete(JournalEntry entry, int status) {
+        if (status == 0) return;
+        try {
+            this.journal.complete(entry, status);
+        } catch (IOException e) {
+            Log.warn("Resolving a journal entry failed", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Integer> preconnect(int connections) {
+        return this.delegate.preconnect(connections);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writers.shutdown();
+        this.delegate.close();
+    }
+}
@@ -0,0 +1,43 @@
+package txnpay;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * JSON engine behind request bodies and response parsing.
+ *
+ * The SDK uses {@link JsonSimpleCodec} unless another codec is found with
+ * `ServiceLoader`, e.g. `JacksonJsonCodec` from the `traxionpay-jackson`
+ * artifact. The `txnpay.jsonCodec` system property picks one by {@link #name()}
+ * when several are present. `TraxionPay.Builder.jsonCodec` and `WebhookReceiver.Builder.jsonCodec`
+ * set another for one instance; {@link Utils#setJsonCodec} overrides the choice only for
+ * {@link Utils#request} and the public `toJSON` methods.
+ *
+ * Implementations must be thread-safe, have a public no-argument constructor,
+ * and pass `JsonCodecConformance` from the SDK's test-jar.
+ */
+public interface JsonCodec {
+    /**
+     * @return short name used by the `txnpay.jsonCodec` system property, e.g. "jackson"
+     */
+    String name();
+
+    /**
+     * Writes a flat JSON object, fields in the map's iteration order.
+     * Non-finite numbers are written as null.
+     *
+     * @param fields    values are String, Number, Boolean or null
+     * @return JSON text
+     */
+    String writeObject(Map<String, ?> fields);
+
+    /**
+     * Reads one JSON document, reporting its structure to `handler` as it is lexed.
+     *
+     * @param json
+     * @param handler
+     * @throws IOException when reading fails or the document is not valid JSON
+     */
+    void read(Reader json, JsonHandler handler) throws IOException;
+}
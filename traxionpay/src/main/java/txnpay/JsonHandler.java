@@ -0,0 +1,26 @@
+package txnpay;
+
+import javax.annotation.Nullable;
+
+/**
+ * Receives the structure of a JSON document from a {@link JsonCodec}, in document order.
+ */
+public interface JsonHandler {
+    void startObject();
+
+    void endObject();
+
+    /**
+     * @param key   name of the object entry whose value follows
+     */
+    void key(String key);
+
+    void startArray();
+
+    void endArray();
+
+    /**
+     * @param value String, Long for integers, Double for other numbers, Boolean, or null
+     */
+    void value(@Nullable Object value);
+}
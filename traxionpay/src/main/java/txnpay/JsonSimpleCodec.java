@@ -0,0 +1,93 @@
+package txnpay;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * {@link JsonCodec} on json-simple, the SDK's default. Writes exactly what
+ * `JSONObject.toJSONString` always did.
+ */
+public final class JsonSimpleCodec implements JsonCodec {
+    @Override
+    public String name() {
+        return "json-simple";
+    }
+
+    @Override
+    public String writeObject(Map<String, ?> fields) {
+        return JSONObject.toJSONString(fields);
+    }
+
+    @Override
+    public void read(Reader json, JsonHandler handler) throws IOException {
+        try {
+            new JSONParser().parse(json, new Events(handler));
+        } catch (ParseException e) {
+            throw new IOException("Invalid JSON: " + e, e);
+        }
+    }
+
+    /** Forwards json-simple's SAX-style events. */
+    private static final class Events implements ContentHandler {
+        private final JsonHandler handler;
+
+        Events(JsonHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startJSON() {
+        }
+
+        @Override
+        public void endJSON() {
+        }
+
+        @Override
+        public boolean startObject() {
+            this.handler.startObject();
+            return true;
+        }
+
+        @Override
+        public boolean endObject() {
+            this.handler.endObject();
+            return true;
+        }
+
+        @Override
+        public boolean startObjectEntry(String key) {
+            this.handler.key(key);
+            return true;
+        }
+
+        @Override
+        public boolean endObjectEntry() {
+            return true;
+        }
+
+        @Override
+        public boolean startArray() {
+            this.handler.startArray();
+            return true;
+        }
+
+        @Override
+        public boolean endArray() {
+            this.handler.endArray();
+            return true;
+        }
+
+        @Override
+        public boolean primitive(Object value) {
+            this.handler.value(value);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package txnpay;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.annotation.Nullable;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Builds json-simple `JSONObject` and `JSONArray` trees from any {@link JsonCodec},
+ * for the untyped `JSONObject` methods.
+ */
+final class JsonTree implements JsonHandler {
+    private final Deque<Object> containers = new ArrayDeque<>();
+    private String key;
+    private Object root;
+
+    /**
+     * @return the document's top-level value, null if it is JSON null
+     */
+    @Nullable
+    Object root() {
+        return this.root;
+    }
+
+    @Override
+    public void startObject() {
+        JSONObject object = new JSONObject();
+        add(object);
+        this.containers.push(object);
+    }
+
+    @Override
+    public void endObject() {
+        this.containers.pop();
+    }
+
+    @Override
+    public void key(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public void startArray() {
+        JSONArray array = new JSONArray();
+        add(array);
+        this.containers.push(array);
+    }
+
+    @Override
+    public void endArray() {
+        this.containers.pop();
+    }
+
+    @Override
+    public void value(@Nullable Object value) {
+        add(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(@Nullable Object value) {
+        Object parent = this.containers.peek();
+        if (parent instanceof JSONObject) {
+            ((JSONObject) parent).put(this.key, value);
+        } else if (parent instanceof JSONArray) {
+            ((JSONArray) parent).add(value);
+        } else {
+            this.root = value;
+        }
+    }
+}
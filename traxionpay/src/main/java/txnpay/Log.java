@@ -0,0 +1,37 @@
+package txnpay;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nullable;
+
+/**
+ * Failures the SDK cannot hand to its caller, e.g. those behind the `JSONObject` methods,
+ * which return `{}` instead of throwing, or of work done in the background. They go to the
+ * java.util.logging logger "txnpay", which SLF4J and Log4j can bridge; nothing is printed
+ * to stdout.
+ */
+final class Log {
+    private static final Logger LOGGER = Logger.getLogger("txnpay");
+
+    private Log() {
+    }
+
+    /**
+     * @param message
+     * @param error     may be null
+     */
+    static void warn(String message, @Nullable Throwable error) {
+        LOGGER.log(Level.WARNING, message, error);
+    }
+
+    /**
+     * For failures that are expected and handled, e.g. an optional codec missing from the class path.
+     *
+     * @param message
+     * @param error     may be null
+     */
+    static void debug(String message, @Nullable Throwable error) {
+        LOGGER.log(Level.FINE, message, error);
+    }
+}
@@ -0,0 +1,159 @@
+package txnpay;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import javax.annotation.Nullable;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Publishes SDK timings to a Micrometer `MeterRegistry`. Requires
+ * `io.micrometer:micrometer-core` on the class path, which the SDK does not
+ * pull in itself.
+ *
+ * Meters:
+ * - `traxionpay.requests`: timer per method, endpoint, status, outcome and exception,
+ *   with percentile histograms; its counts are the status-code counters
+ * - `traxionpay.pool.lease`: timer of the wait for a pooled connection, per pool
+ * - `traxionpay.pool.connections`: gauge per pool and state (leased, pending, available)
+ * - `traxionpay.pool.max` and `traxionpay.pool.saturation`: gauges per pool
+ * - `traxionpay.payform.sign` and `traxionpay.payform.encode`: timers
+ * - `traxionpay.payform.verified`: counter of sampled `buildPayformUrl` links per outcome (match, mismatch)
+ * - `traxionpay.retries`: counter per method and endpoint
+ * - `traxionpay.ratelimit.wait`: timer per endpoint and outcome (granted, rejected)
+ */
+public final class MicrometerMetrics implements TraxionPayMetrics {
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final ConcurrentMap<String, Timer> requests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> leases = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> retries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> rateLimitWaits = new ConcurrentHashMap<>();
+    private final Timer sign;
+    private final Timer encode;
+    private final Counter payformMatched;
+    private final Counter payformMismatched;
+
+    /**
+     * @param registry
+     */
+    public MicrometerMetrics(MeterRegistry registry) {
+        this(registry, Tags.empty());
+    }
+
+    /**
+     * @param registry
+     * @param tags      added to every meter, e.g. to tell several `TraxionPay` instances apart
+     */
+    public MicrometerMetrics(MeterRegistry registry, Iterable<Tag> tags) {
+        this.registry = registry;
+        this.tags = Tags.of(tags);
+        this.sign = Timer.builder("traxionpay.payform.sign").tags(this.tags)
+            .description("Time spent hashing payforms").register(registry);
+        this.encode = Timer.builder("traxionpay.payform.encode").tags(this.tags)
+            .description("Time spent serializing and encoding payforms").register(registry);
+        this.payformMatched = Counter.builder("traxionpay.payform.verified").tags(this.tags).tag("outcome", "match")
+            .description("Locally built payform links compared with the API's").register(registry);
+        this.payformMismatched = Counter.builder("traxionpay.payform.verified").tags(this.tags)
+            .tag("outcome", "mismatch")
+            .description("Locally built payform links compared with the API's").register(registry);
+    }
+
+    @Override
+    public void requestCompleted(String method, String endpoint, int status, long nanos, @Nullable Throwable error) {
+        String exception = status == 0 && error != null ? error.getClass().getSimpleName() : "none";
+        String key = method + ' ' + endpoint + ' ' + status + ' ' + exception;
+        Timer timer = this.requests.get(key);
+        if (timer == null) {
+            timer = this.requests.computeIfAbsent(key, k -> Timer.builder("traxionpay.requests").tags(this.tags)
+                .tag("method", method)
+                .tag("endpoint", endpoint)
+                .tag("status", status > 0 ? Integer.toString(status) : "IO_ERROR")
+                .tag("outcome", outcome(status))
+                .tag("exception", exception)
+                .description("HTTP exchanges with the TraxionPay API")
+                .publishPercentileHistogram()
+                .register(this.registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionLeased(String pool, long waitNanos) {
+        this.leases.computeIfAbsent(pool, k -> Timer.builder("traxionpay.pool.lease").tags(this.tags)
+            .tag("pool", pool)
+            .description("Wait for a pooled connection")
+            .publishPercentileHistogram()
+            .register(this.registry))
+            .record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionPoolCreated(String pool, Supplier<ConnectionPoolStats> stats) {
+        gauge("traxionpay.pool.connections", pool, "leased", stats, current -> current.get().getLeased());
+        gauge("traxionpay.pool.connections", pool, "pending", stats, current -> current.get().getPending());
+        gauge("traxionpay.pool.connections", pool, "available", stats, current -> current.get().getAvailable());
+        gauge("traxionpay.pool.max", pool, null, stats, current -> current.get().getMax());
+        gauge("traxionpay.pool.saturation", pool, null, stats, current -> current.get().getSaturation());
+    }
+
+    private void gauge(String name, String pool, @Nullable String state, Supplier<ConnectionPoolStats> stats,
+            ToDoubleFunction<Supplier<ConnectionPoolStats>> value) {
+        Gauge.Builder<Supplier<ConnectionPoolStats>> gauge = Gauge.builder(name, stats, value)
+            .tags(this.tags)
+            .tag("pool", pool);
+        if (state != null) gauge.tag("state", state);
+        gauge.register(this.registry);
+    }
+
+    @Override
+    public void payformBuilt(long signNanos, long encodeNanos) {
+        this.sign.record(signNanos, TimeUnit.NANOSECONDS);
+        this.encode.record(encodeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void payformUrlVerified(boolean matched) {
+        (matched ? this.payformMatched : this.payformMismatched).increment();
+    }
+
+    @Override
+    public void retryScheduled(String method, String endpoint, int attempt, long delayNanos) {
+        this.retries.computeIfAbsent(method + ' ' + endpoint, k -> Counter.builder("traxionpay.retries")
+            .tags(this.tags)
+            .tag("method", method)
+            .tag("endpoint", endpoint)
+            .description("Retried HTTP exchanges")
+            .register(this.registry))
+            .increment();
+    }
+
+    @Override
+    public void rateLimitWaited(String endpoint, long waitNanos, boolean rejected) {
+        String outcome = rejected ? "rejected" : "granted";
+        this.rateLimitWaits.computeIfAbsent(endpoint + ' ' + outcome, k -> Timer.builder("traxionpay.ratelimit.wait")
+            .tags(this.tags)
+            .tag("endpoint", endpoint)
+            .tag("outcome", outcome)
+            .description("Wait for a client-side rate limit permit")
+            .register(this.registry))
+            .record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(int status) {
+        if (status >= 200 && status < 300) return "SUCCESS";
+        if (status >= 300 && status < 400) return "REDIRECTION";
+        if (status >= 400 && status < 500) return "CLIENT_ERROR";
+        if (status >= 500) return "SERVER_ERROR";
+        return "UNKNOWN";
+    }
+}
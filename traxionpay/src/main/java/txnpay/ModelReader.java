@@ -0,0 +1,117 @@
+package txnpay;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads response models straight off the body with the {@link JsonCodec}'s event parser.
+ * No JSON tree or intermediate String is built: each scalar field of an item is
+ * handed to the model as it is lexed, and nested values are skipped.
+ *
+ * Handles a single top-level object, or a top-level array of objects.
+ *
+ * @param <T> model type
+ */
+final class ModelReader<T extends ModelReader.Fields> implements JsonHandler {
+    /** A model populated field by field; not part of the models' public API. */
+    abstract static class Fields {
+        /**
+         * @param key   JSON key of a scalar field
+         * @param value String, Long, Double, Boolean or null, as lexed by the codec
+         */
+        abstract void set(String key, @Nullable Object value);
+    }
+
+    private final Supplier<T> model;
+    private final List<T> items = new ArrayList<>();
+    private T current;
+    private String key;
+    private int depth;
+    private int itemDepth = 1;
+
+    private ModelReader(Supplier<T> model) {
+        this.model = model;
+    }
+
+    /**
+     * @param codec
+     * @param body
+     * @param model
+     * @return one model per object of the top-level array, unmodifiable
+     * @throws Exception
+     */
+    static <T extends Fields> List<T> readList(JsonCodec codec, Reader body, Supplier<T> model) throws Exception {
+        ModelReader<T> reader = new ModelReader<>(model);
+        codec.read(body, reader);
+        return Collections.unmodifiableList(reader.items);
+    }
+
+    /**
+     * @param codec
+     * @param body
+     * @param model
+     * @return the top-level object
+     * @throws Exception when the body is not a JSON object
+     */
+    static <T extends Fields> T readObject(JsonCodec codec, Reader body, Supplier<T> model) throws Exception {
+        ModelReader<T> reader = new ModelReader<>(model);
+        codec.read(body, reader);
+        if (reader.itemDepth != 1 || reader.items.size() != 1) throw new Exception("Expected a JSON object");
+        return reader.items.get(0);
+    }
+
+    static String string(@Nullable Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    static Long number(@Nullable Object value) {
+        if (value instanceof Number) return ((Number) value).longValue();
+        return value != null ? Long.valueOf(value.toString()) : null;
+    }
+
+    static Double decimal(@Nullable Object value) {
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        return value != null ? Double.valueOf(value.toString()) : null;
+    }
+
+    @Override
+    public void startObject() {
+        this.depth++;
+        if (this.depth == this.itemDepth) this.current = this.model.get();
+    }
+
+    @Override
+    public void endObject() {
+        if (this.depth == this.itemDepth) {
+            this.items.add(this.current);
+            this.current = null;
+        }
+        this.depth--;
+    }
+
+    @Override
+    public void key(String key) {
+        if (this.depth == this.itemDepth) this.key = key;
+    }
+
+    @Override
+    public void startArray() {
+        if (this.depth == 0) this.itemDepth = 2;
+        this.depth++;
+    }
+
+    @Override
+    public void endArray() {
+        this.depth--;
+    }
+
+    @Override
+    public void value(@Nullable Object value) {
+        if (this.depth == this.itemDepth && this.current != null) this.current.set(this.key, value);
+    }
+}
@@ -0,0 +1,367 @@
+package txnpay;
+
+import java.util.Arrays;
+
+/**
+ * Hash table of the entries a {@link Reconciler} holds, in primitive arrays rather than
+ * one object per entry: a slot takes 35 bytes, and its key is stored once in a shared
+ * byte arena, as Latin-1 when every character fits and as UTF-16 otherwise.
+ *
+ * Open addressing with linear probing. Removal shifts the following entries back instead
+ * of leaving tombstones, and both the table and the arena shrink again once mostly empty,
+ * so memory follows the number of entries held rather than the number ever added.
+ *
+ * Slots move when the table is resized or an entry is removed; a slot index is only valid
+ * until the next `insert` or `remove`. Not thread-safe.
+ */
+final class OpenItemTable {
+    static final int NONE = -1;
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MIN_ARENA = 16 * 1024;
+    /** Grows past 3/4 full, shrinks under 1/8 full. */
+    private static final int GROW_NUMERATOR = 3;
+    private static final int GROW_DENOMINATOR = 4;
+    private static final int SHRINK_DENOMINATOR = 8;
+    /** Bytes per slot: hash, key, amount and time, currency, state. */
+    private static final int SLOT_BYTES = 4 * Long.BYTES + Short.BYTES + Byte.BYTES;
+    /** A key reference holds the arena offset in its upper 32 bits. */
+    private static final int OFFSET_SHIFT = Integer.SIZE;
+    private static final long UTF16 = 1L << (OFFSET_SHIFT - 1);
+    private static final long LENGTH = UTF16 - 1;
+    private static final int LATIN1_MAX = 0xFF;
+    private static final int BYTE_MASK = 0xFF;
+    /** FNV-1a over the chars, then MurmurHash3's 64-bit finalizer. */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int MIX_SHIFT = 33;
+    private static final long MIX_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+
+    /** Hash of each slot's key; 0 marks a free slot. */
+    private long[] hashes;
+    /** Arena offset of each slot's key, shifted left by 32, with its UTF-16 flag and length in chars. */
+    private long[] keys;
+    private long[] amounts;
+    private long[] times;
+    private short[] currencies;
+    private byte[] states;
+    private int mask;
+    private int size;
+
+    private byte[] arena = new byte[MIN_ARENA];
+    private int arenaUsed;
+    private int arenaGarbage;
+
+    OpenItemTable() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * @param key
+     * @return 64-bit hash of `key`, never 0
+     */
+    static long hash(String key) {
+        long h = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * FNV_PRIME;
+        }
+        h ^= h >>> MIX_SHIFT;
+        h *= MIX_MULTIPLIER_1;
+        h ^= h >>> MIX_SHIFT;
+        h *= MIX_MULTIPLIER_2;
+        h ^= h >>> MIX_SHIFT;
+        return h != 0 ? h : 1;
+    }
+
+    /**
+     * @param key
+     * @param hash  {@link #hash} of `key`
+     * @return slot of `key`, or {@link #NONE}
+     */
+    int find(String key, long hash) {
+        for (int slot = (int) hash & this.mask; this.hashes[slot] != 0; slot = (slot + 1) & this.mask) {
+            if (this.hashes[slot] == hash && keyEquals(this.keys[slot], key)) {
+                return slot;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @param hash
+     * @param time  as last set on the entry
+     * @param state as last set on the entry
+     * @return slot of the entry with that hash, time and state, or {@link #NONE}
+     */
+    int find(long hash, long time, byte state) {
+        for (int slot = (int) hash & this.mask; this.hashes[slot] != 0; slot = (slot + 1) & this.mask) {
+            if (this.hashes[slot] == hash && this.times[slot] == time && this.states[slot] == state) {
+                return slot;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Adds `key`, which must not be present. Its fields are zero until set.
+     *
+     * @param key
+     * @param hash  {@link #hash} of `key`
+     * @return slot of `key`
+     */
+    int insert(String key, long hash) {
+        if (this.size + 1 > (this.mask + 1) / GROW_DENOMINATOR * GROW_NUMERATOR) {
+            resize((this.mask + 1) * 2);
+        }
+        long ref = store(key);
+        int slot = (int) hash & this.mask;
+        while (this.hashes[slot] != 0) {
+            slot = (slot + 1) & this.mask;
+        }
+        this.hashes[slot] = hash;
+        this.keys[slot] = ref;
+        this.size++;
+        return slot;
+    }
+
+    /**
+     * @param slot
+     * @param state
+     * @param amount    in minor units
+     * @param currency  id the {@link Reconciler} gave the currency
+     * @param time
+     */
+    void set(int slot, byte state, long amount, short currency, long time) {
+        this.states[slot] = state;
+        this.amounts[slot] = amount;
+        this.currencies[slot] = currency;
+        this.times[slot] = time;
+    }
+
+    /**
+     * Removes the entry in `slot`, moving back the entries that probed past it.
+     *
+     * @param slot
+     */
+    void remove(int slot) {
+        long ref = this.keys[slot];
+        this.arenaGarbage += keyBytes(ref);
+        this.size--;
+
+        int free = slot;
+        for (int next = (free + 1) & this.mask; this.hashes[next] != 0; next = (next + 1) & this.mask) {
+            int home = (int) this.hashes[next] & this.mask;
+            // The entry may only move back to a slot between its home slot and where it is now.
+            if (((next - home) & this.mask) >= ((next - free) & this.mask)) {
+                move(next, free);
+                free = next;
+            }
+        }
+        this.hashes[free] = 0;
+
+        if (this.mask + 1 > MIN_CAPACITY && this.size < (this.mask + 1) / SHRINK_DENOMINATOR) {
+            resize((this.mask + 1) / 2);
+        }
+        if (this.arena.length > MIN_ARENA && this.arenaGarbage > this.arenaUsed / 2) {
+            compact();
+        }
+    }
+
+    byte state(int slot) {
+        return this.states[slot];
+    }
+
+    long amount(int slot) {
+        return this.amounts[slot];
+    }
+
+    short currency(int slot) {
+        return this.currencies[slot];
+    }
+
+    long time(int slot) {
+        return this.times[slot];
+    }
+
+    /**
+     * @param slot
+     * @return key of the entry in `slot`, decoded from the arena
+     */
+    String key(int slot) {
+        long ref = this.keys[slot];
+        int offset = (int) (ref >>> OFFSET_SHIFT);
+        int length = (int) (ref & LENGTH);
+        char[] chars = new char[length];
+        if ((ref & UTF16) == 0) {
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (this.arena[offset + i] & BYTE_MASK);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[i] = utf16(offset, i);
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return index past the last slot, for iterating with {@link #isUsed}
+     */
+    int capacity() {
+        return this.mask + 1;
+    }
+
+    boolean isUsed(int slot) {
+        return this.hashes[slot] != 0;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Removes every entry and returns to the initial size.
+     */
+    void clear() {
+        allocate(MIN_CAPACITY);
+        this.size = 0;
+        this.arena = new byte[MIN_ARENA];
+        this.arenaUsed = 0;
+        this.arenaGarbage = 0;
+    }
+
+    /**
+     * @return bytes held by the table's arrays and key arena
+     */
+    long retainedBytes() {
+        return (long) (this.mask + 1) * SLOT_BYTES + this.arena.length;
+    }
+
+    private void allocate(int capacity) {
+        this.hashes = new long[capacity];
+        this.keys = new long[capacity];
+        this.amounts = new long[capacity];
+        this.times = new long[capacity];
+        this.currencies = new short[capacity];
+        this.states = new byte[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldHashes = this.hashes;
+        long[] oldKeys = this.keys;
+        long[] oldAmounts = this.amounts;
+        long[] oldTimes = this.times;
+        short[] oldCurrencies = this.currencies;
+        byte[] oldStates = this.states;
+        allocate(capacity);
+        for (int from = 0; from < oldHashes.length; from++) {
+            if (oldHashes[from] == 0) {
+                continue;
+            }
+            int slot = (int) oldHashes[from] & this.mask;
+            while (this.hashes[slot] != 0) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.hashes[slot] = oldHashes[from];
+            this.keys[slot] = oldKeys[from];
+            this.amounts[slot] = oldAmounts[from];
+            this.times[slot] = oldTimes[from];
+            this.currencies[slot] = oldCurrencies[from];
+            this.states[slot] = oldStates[from];
+        }
+    }
+
+    private void move(int from, int to) {
+        this.hashes[to] = this.hashes[from];
+        this.keys[to] = this.keys[from];
+        this.amounts[to] = this.amounts[from];
+        this.times[to] = this.times[from];
+        this.currencies[to] = this.currencies[from];
+        this.states[to] = this.states[from];
+    }
+
+    private long store(String key) {
+        int length = key.length();
+        boolean latin1 = true;
+        for (int i = 0; i < length && latin1; i++) {
+            latin1 = key.charAt(i) <= LATIN1_MAX;
+        }
+        int bytes = latin1 ? length : 2 * length;
+        if (this.arenaUsed + bytes > this.arena.length) {
+            if (this.arenaGarbage > this.arenaUsed / 2) {
+                compact();
+            }
+            if (this.arenaUsed + bytes > this.arena.length) {
+                this.arena = Arrays.copyOf(this.arena, Math.max(this.arena.length * 2, this.arenaUsed + bytes));
+            }
+        }
+
+        int offset = this.arenaUsed;
+        if (latin1) {
+            for (int i = 0; i < length; i++) {
+                this.arena[offset + i] = (byte) key.charAt(i);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                char c = key.charAt(i);
+                this.arena[offset + 2 * i] = (byte) (c >>> Byte.SIZE);
+                this.arena[offset + 2 * i + 1] = (byte) c;
+            }
+        }
+        this.arenaUsed += bytes;
+        return (long) offset << OFFSET_SHIFT | (latin1 ? 0 : UTF16) | length;
+    }
+
+    /** Copies the keys still referenced into a new arena sized for them. */
+    private void compact() {
+        int live = this.arenaUsed - this.arenaGarbage;
+        byte[] compacted = new byte[Math.max(MIN_ARENA, live + live / 2)];
+        int used = 0;
+        for (int slot = 0; slot <= this.mask; slot++) {
+            if (this.hashes[slot] == 0) {
+                continue;
+            }
+            long ref = this.keys[slot];
+            int bytes = keyBytes(ref);
+            System.arraycopy(this.arena, (int) (ref >>> OFFSET_SHIFT), compacted, used, bytes);
+            this.keys[slot] = (long) used << OFFSET_SHIFT | (ref & (UTF16 | LENGTH));
+            used += bytes;
+        }
+        this.arena = compacted;
+        this.arenaUsed = used;
+        this.arenaGarbage = 0;
+    }
+
+    private boolean keyEquals(long ref, String key) {
+        int length = (int) (ref & LENGTH);
+        if (length != key.length()) {
+            return false;
+        }
+        int offset = (int) (ref >>> OFFSET_SHIFT);
+        if ((ref & UTF16) == 0) {
+            for (int i = 0; i < length; i++) {
+                if ((char) (this.arena[offset + i] & BYTE_MASK) != key.charAt(i)) {
+                    return false;
+                }
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                if (utf16(offset, i) != key.charAt(i)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private char utf16(int offset, int index) {
+        return (char) ((this.arena[offset + 2 * index] & BYTE_MASK) << Byte.SIZE
+            | (this.arena[offset + 2 * index + 1] & BYTE_MASK));
+    }
+
+    private static int keyBytes(long ref) {
+        int length = (int) (ref & LENGTH);
+        return (ref & UTF16) == 0 ? length : 2 * length;
+    }
+}
@@ -0,0 +1,115 @@
+package txnpay;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps up to `depth` OTP requests in flight ahead of the payouts that will use
+ * them, so a payout does not wait for its OTP round trip.
+ *
+ * An OTP is only handed out while younger than the validity window, measured from
+ * when it was requested. An older one is discarded and replaced by an OTP fetched
+ * on demand, which is used as is. No more OTPs are prefetched than payouts remain.
+ */
+final class OtpPrefetcher {
+    private final Supplier<CompletableFuture<OtpResponse>> fetch;
+    private final long validityNanos;
+    private final int depth;
+    private final Deque<Prefetched> ready = new ArrayDeque<>();
+    private final AtomicInteger fetched = new AtomicInteger();
+    private final AtomicInteger expired = new AtomicInteger();
+    private int demand;
+
+    /**
+     * @param fetch     requests one OTP
+     * @param validity  how long an OTP may be used after it was requested
+     * @param depth     upper bound of OTPs fetched ahead
+     * @param demand    OTPs that will be taken
+     */
+    OtpPrefetcher(Supplier<CompletableFuture<OtpResponse>> fetch, Duration validity, int depth, int demand) {
+        this.fetch = fetch;
+        this.validityNanos = validity.toNanos();
+        this.depth = depth;
+        this.demand = demand;
+    }
+
+    /**
+     * Starts fetching the first OTPs.
+     */
+    void start() {
+        refill();
+    }
+
+    /**
+     * @return CompletableFuture of an unused OTP code, counting towards the demand
+     */
+    CompletableFuture<String> take() {
+        Prefetched otp;
+        synchronized (this) {
+            otp = this.ready.poll();
+            if (this.demand > 0) this.demand--;
+        }
+        refill();
+        if (otp == null) return fetchNow();
+
+        return otp.code.handle((code, error) -> {
+            if (error == null && System.nanoTime() - otp.requestedAt < this.validityNanos) {
+                return CompletableFuture.completedFuture(code);
+            }
+            if (error == null) this.expired.incrementAndGet();
+            return fetchNow();
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * @return CompletableFuture of an OTP fetched now, outside the demand, e.g. to replace a rejected one
+     */
+    CompletableFuture<String> fetchNow() {
+        this.fetched.incrementAndGet();
+        return this.fetch.get().thenApply(otp -> {
+            if (otp.getCode() == null) throw new IllegalStateException("No OTP code in the response");
+            return otp.getCode();
+        });
+    }
+
+    int fetched() {
+        return this.fetched.get();
+    }
+
+    int expired() {
+        return this.expired.get();
+    }
+
+    private void refill() {
+        for (;;) {
+            Prefetched next;
+            synchronized (this) {
+                if (this.ready.size() >= Math.min(this.depth, this.demand)) return;
+                next = new Prefetched(System.nanoTime());
+                this.ready.add(next);
+            }
+            // Outside the lock, since the transport may run the exchange inline.
+            fetchNow().whenComplete((code, error) -> {
+                if (error != null) {
+                    next.code.completeExceptionally(error);
+                } else {
+                    next.code.complete(code);
+                }
+            });
+        }
+    }
+
+    private static final class Prefetched {
+        final long requestedAt;
+        final CompletableFuture<String> code = new CompletableFuture<>();
+
+        Prefetched(long requestedAt) {
+            this.requestedAt = requestedAt;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package txnpay;
+
+import javax.annotation.Nullable;
+
+/**
+ * One-time password required by a cash out, as issued by `/payout/bank-payout/get-otp/`.
+ */
+public final class OtpResponse extends ModelReader.Fields {
+    private String code;
+
+    OtpResponse() {
+    }
+
+    @Override
+    void set(String key, @Nullable Object value) {
+        if ("code".equals(key)) this.code = ModelReader.string(value);
+    }
+
+    /**
+     * @return code to pass as `OTP` in `CashOutData`
+     */
+    public String getCode() {
+        return code;
+    }
+
+    @Override
+    public String toString() {
+        return "OtpResponse{code=" + code + "}";
+    }
+}
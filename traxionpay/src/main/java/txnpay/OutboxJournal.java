@@ -0,0 +1,454 @@
+package txnpay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nullable;
+
+/**
+ * Append-only journal of `cashIn` and `cashOut` calls, so that after a crash the
+ * calls whose outcome is unknown can be found without scanning application data.
+ *
+ * Set with `TraxionPay.Builder.journal`. Each call is recorded with its idempotency
+ * key and signed body, and made durable, before it is sent; its outcome is recorded
+ * once a response arrives. Calls that failed without a response stay unresolved,
+ * since the API may have executed them. {@link #unresolved} returns those entries,
+ * including the ones of a previous process, and {@link #resolve} retires them once
+ * the application has reconciled them.
+ *
+ * Records are written into a memory-mapped segment file and checksummed, so a torn
+ * write at the end is detected and ignored. Durability uses group commit: a caller
+ * waiting for its record forces every record appended so far, and callers arriving
+ * meanwhile find theirs already durable, so one `fsync` serves many concurrent calls.
+ * Outcomes are not forced; a lost outcome only makes its entry show up as unresolved.
+ * Appending and forcing take separate locks, so calls keep appending while the disk
+ * flushes, and neither pins a virtual thread's carrier.
+ *
+ * When a segment is full, the unresolved entries are copied into a new segment, and
+ * the old one is deleted by the next group commit, once the new one is durable.
+ * Opening a journal therefore reads at most one segment of recent records plus the
+ * entries still in flight, however long its history.
+ */
+public final class OutboxJournal implements AutoCloseable {
+    /** Default segment size. */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final String PREFIX = "outbox-";
+    private static final String SUFFIX = ".journal";
+    private static final byte INTENT = 1;
+    private static final byte OUTCOME = 2;
+    /** Length and checksum in front of every record body. */
+    private static final int HEADER = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final NavigableMap<Long, JournalEntry> unresolved = new ConcurrentSkipListMap<>();
+    /** Guards appending and the fields below it. */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Held by the group commit, so one caller forces for all. */
+    private final ReentrantLock syncLock = new ReentrantLock();
+    /** Segments replaced by a roll, deleted once their successor is durable. */
+    private final Queue<Path> retired = new ConcurrentLinkedQueue<>();
+    private long nextId = 1;
+    private long segment;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    /** Bytes appended since opening, across segments. */
+    private long appended;
+    private volatile long durable;
+    private volatile long syncs;
+    private boolean closed;
+
+    private OutboxJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * @param directory created if missing; must not be used by another open journal
+     * @return OutboxJournal holding the entries left unresolved by the previous process
+     * @throws IOException
+     */
+    public static OutboxJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param directory
+     * @param segmentSize   bytes per segment file; bounds the work of opening the journal
+     * @return OutboxJournal
+     * @throws IOException
+     */
+    public static OutboxJournal open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < 4096) throw new IllegalArgumentException("'segmentSize' must be at least 4096");
+        Files.createDirectories(directory);
+        OutboxJournal journal = new OutboxJournal(directory, segmentSize);
+        journal.recover();
+        return journal;
+    }
+
+    private void recover() throws IOException {
+        this.lock.lock();
+        try {
+            recoverSegments();
+        } finally {
+            this.lock.unlock();
+        }
+        sync(this.appended);
+    }
+
+    private void recoverSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) segments.add(file);
+        }
+        Collections.sort(segments);
+
+        int end = 0;
+        for (Path file : segments) {
+            this.segment = sequence(file);
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, this.channel.size());
+            end = scan(this.buffer);
+            if (file != segments.get(segments.size() - 1)) this.channel.close();
+        }
+
+        if (segments.size() == 1) {
+            this.buffer.position(end);
+        } else {
+            // No segment yet, or a roll was interrupted: start a fresh one from the unresolved entries.
+            roll(0);
+            this.retired.clear();
+            this.retired.addAll(segments);
+        }
+    }
+
+    /**
+     * @return end of the valid records
+     */
+    private int scan(ByteBuffer segment) {
+        CRC32 crc = new CRC32();
+        int position = 0;
+        while (position + HEADER <= segment.limit()) {
+            int length = segment.getInt(position);
+            if (length <= 0 || position + HEADER + length > segment.limit()) break;
+
+            ByteBuffer body = segment.duplicate();
+            body.limit(position + HEADER + length).position(position + HEADER);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != segment.getInt(position + 4)) break;
+
+            read(body);
+            position += HEADER + length;
+        }
+        return position;
+    }
+
+    private void read(ByteBuffer body) {
+        byte type = body.get();
+        long id = body.getLong();
+        this.nextId = Math.max(this.nextId, id + 1);
+        if (type == OUTCOME) {
+            this.unresolved.remove(id);
+            return;
+        }
+        Instant timestamp = Instant.ofEpochMilli(body.getLong());
+        String endpoint = string(body);
+        String key = string(body);
+        String payload = string(body);
+        this.unresolved.put(id, new JournalEntry(id, timestamp, endpoint, key, payload));
+    }
+
+    /**
+     * @return entries sent without a known outcome, oldest first: calls in flight, calls that
+     *         failed without a response, and those left by a previous process
+     */
+    public List<JournalEntry> unresolved() {
+        return new ArrayList<>(this.unresolved.values());
+    }
+
+    /**
+     * Retires an entry once the application has reconciled it, e.g. by looking the payment up.
+     *
+     * @param entry
+     * @throws IOException
+     */
+    public void resolve(JournalEntry entry) throws IOException {
+        long end;
+        this.lock.lock();
+        try {
+            if (this.unresolved.remove(entry.getId()) == null) {
+                return;
+            }
+            end = append(outcome(entry.getId(), 0));
+        } finally {
+            this.lock.unlock();
+        }
+        sync(end);
+    }
+
+    /**
+     * Records a call before it is sent; returns once the record is durable.
+     *
+     * @param endpoint
+     * @param key       idempotency key, may be null
+     * @param payload   body as sent
+     * @return JournalEntry to pass to {@link #complete}
+     * @throws IOException when the call cannot be recorded, in which case it must not be sent
+     */
+    JournalEntry intend(String endpoint, @Nullable String key, String payload) throws IOException {
+        JournalEntry entry;
+        long end;
+        this.lock.lock();
+        try {
+            entry = new JournalEntry(this.nextId++, Instant.now(), endpoint, key, payload);
+            end = append(intent(entry));
+            this.unresolved.put(entry.getId(), entry);
+        } finally {
+            this.lock.unlock();
+        }
+        sync(end);
+        return entry;
+    }
+
+    /**
+     * Records that a response arrived; made durable with the next group commit.
+     *
+     * @param entry
+     * @param status    HTTP status of the response
+     * @throws IOException
+     */
+    void complete(JournalEntry entry, int status) throws IOException {
+        this.lock.lock();
+        try {
+            if (this.unresolved.remove(entry.getId()) != null) {
+                append(outcome(entry.getId(), status));
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of times the journal was forced to disk
+     */
+    long syncs() {
+        return this.syncs;
+    }
+
+    /**
+     * Forces the current segment unless `end` is durable already, then deletes the segments
+     * it replaced. Appends continue meanwhile.
+     */
+    private void sync(long end) throws IOException {
+        if (this.durable >= end && this.retired.isEmpty()) {
+            return;
+        }
+        this.syncLock.lock();
+        try {
+            if (this.durable >= end && this.retired.isEmpty()) {
+                return;
+            }
+            MappedByteBuffer current;
+            long upTo;
+            List<Path> obsolete = new ArrayList<>();
+            this.lock.lock();
+            try {
+                if (this.closed) {
+                    throw new IOException("Journal is closed");
+                }
+                current = this.buffer;
+                upTo = this.appended;
+                drainRetired(obsolete);
+            } finally {
+                this.lock.unlock();
+            }
+            current.force();
+            this.syncs++;
+            this.durable = upTo;
+            delete(obsolete);
+        } finally {
+            this.syncLock.unlock();
+        }
+    }
+
+    /** Takes the retired segments; the caller holds {@link #lock}, so no roll adds one meanwhile. */
+    private void drainRetired(List<Path> obsolete) {
+        Path path;
+        while ((path = this.retired.poll()) != null) {
+            obsolete.add(path);
+        }
+    }
+
+    /** Deletes replaced segments after the current one, and its directory entry, are durable. */
+    private void delete(List<Path> obsolete) throws IOException {
+        if (obsolete.isEmpty()) {
+            return;
+        }
+        syncDirectory();
+        for (Path path : obsolete) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * @return {@link #appended} after the record
+     */
+    private long append(byte[] record) throws IOException {
+        if (this.closed) throw new IOException("Journal is closed");
+        // Keep room for the zero length that marks the end of the records.
+        if (this.buffer.remaining() < record.length + 4) roll(record.length);
+        this.buffer.put(record);
+        this.appended += record.length;
+        return this.appended;
+    }
+
+    /**
+     * Starts a new segment holding the unresolved entries, and retires the current one.
+     * Neither is forced here; the next group commit does, outside {@link #lock}.
+     *
+     * @param needed    bytes of the record about to be appended
+     */
+    private void roll(int needed) throws IOException {
+        List<byte[]> carried = new ArrayList<>();
+        long size = needed + 4;
+        for (JournalEntry entry : this.unresolved.values()) {
+            byte[] record = intent(entry);
+            carried.add(record);
+            size += record.length;
+        }
+        size = Math.max(this.segmentSize, size * 2);
+        if (size > Integer.MAX_VALUE) throw new IOException("Too many unresolved journal entries");
+
+        long sequence = this.segment + 1;
+        FileChannel next = FileChannel.open(path(sequence), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        MappedByteBuffer mapped = next.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        for (byte[] record : carried) {
+            mapped.put(record);
+            this.appended += record.length;
+        }
+
+        FileChannel previous = this.channel;
+        Path previousPath = path(this.segment);
+        this.channel = next;
+        this.buffer = mapped;
+        this.segment = sequence;
+        if (previous != null) {
+            previous.close();
+            this.retired.add(previousPath);
+        }
+    }
+
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the segment itself was forced.
+        }
+    }
+
+    private Path path(long sequence) {
+        return this.directory.resolve(PREFIX + String.format("%016x", sequence) + SUFFIX);
+    }
+
+    private static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()), 16);
+    }
+
+    private static byte[] intent(JournalEntry entry) {
+        byte[] endpoint = bytes(entry.getEndpoint());
+        byte[] key = bytes(entry.getKey());
+        byte[] payload = bytes(entry.getPayload());
+        int length = 1 + 8 + 8 + 12 + (endpoint != null ? endpoint.length : 0) + (key != null ? key.length : 0)
+            + (payload != null ? payload.length : 0);
+        ByteBuffer body = ByteBuffer.allocate(HEADER + length).position(HEADER);
+        body.put(INTENT).putLong(entry.getId()).putLong(entry.getTimestamp().toEpochMilli());
+        put(body, endpoint);
+        put(body, key);
+        put(body, payload);
+        return seal(body);
+    }
+
+    private static byte[] outcome(long id, int status) {
+        ByteBuffer body = ByteBuffer.allocate(HEADER + 1 + 8 + 4).position(HEADER);
+        body.put(OUTCOME).putLong(id).putInt(status);
+        return seal(body);
+    }
+
+    private static byte[] seal(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER, record.capacity() - HEADER);
+        record.putInt(0, record.capacity() - HEADER).putInt(4, (int) crc.getValue());
+        return record.array();
+    }
+
+    @Nullable
+    private static byte[] bytes(@Nullable String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void put(ByteBuffer body, @Nullable byte[] value) {
+        body.putInt(value != null ? value.length : -1);
+        if (value != null) body.put(value);
+    }
+
+    @Nullable
+    private static String string(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0) return null;
+        byte[] value = new byte[length];
+        body.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Forces pending outcomes to disk and releases the segment file. Entries still
+     * unresolved are returned by the next {@link #open}.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        this.syncLock.lock();
+        try {
+            MappedByteBuffer current;
+            List<Path> obsolete = new ArrayList<>();
+            this.lock.lock();
+            try {
+                if (this.closed) {
+                    return;
+                }
+                this.closed = true;
+                current = this.buffer;
+                drainRetired(obsolete);
+            } finally {
+                this.lock.unlock();
+            }
+            current.force();
+            delete(obsolete);
+            this.channel.close();
+        } finally {
+            this.syncLock.unlock();
+        }
+    }
+}
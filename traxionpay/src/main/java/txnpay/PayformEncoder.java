@@ -0,0 +1,243 @@
+package txnpay;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.json.simple.JSONObject;
+
+/**
+ * Writes the Base64 `form_data` of a payform in one pass.
+ *
+ * Produces the same output as
+ * `Base64(StringEscapeUtils.unescapeJava(payform.toJSON()))`: unescaping
+ * json-simple's output restores every string value verbatim, and fields appear
+ * in `JSONObject`'s iteration order. Here the JSON is written straight into a
+ * reusable UTF-8 buffer and Base64-encoded into a second one, so a payment only
+ * allocates the resulting String. Buffers are pooled like the `Mac` instances
+ * in {@link HmacSigner}.
+ */
+final class PayformEncoder {
+    /** Keys in the order {@link PayformData#toJSON} puts them, matching {@link #values}. */
+    private static final String[] KEYS = {
+        "merchant_id", "merchant_ref_no", "merchant_additional_data", "amount", "currency", "description",
+        "billing_email", "billing_first_name", "billing_last_name", "billing_middle_name", "billing_phone",
+        "billing_mobile", "billing_address", "billing_address2", "billing_city", "billing_state", "billing_zip",
+        "billing_country", "billing_remark", "payment_method", "status_notification_url", "success_page_url",
+        "failure_page_url", "cancel_page_url", "pending_page_url", "secure_hash", "auth_hash", "alg",
+    };
+    private static final byte[] BASE64_DIGITS =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final int INITIAL_CAPACITY = 2048;
+    /** Base64 turns each group of 3 bytes into 4 digits of 6 bits. */
+    private static final int GROUP_BYTES = 3;
+    private static final int GROUP_DIGITS = 4;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int DIGIT_MASK = 0x3F;
+    /** Shifts placing the bytes of a group, and reading back its digits, most significant first. */
+    private static final int FIRST_BYTE = 16;
+    private static final int SECOND_BYTE = 8;
+    private static final int FIRST_DIGIT = 18;
+    private static final int SECOND_DIGIT = 12;
+    private static final int THIRD_DIGIT = 6;
+
+    /** Index into {@link #KEYS} of each field, in emission order. */
+    private static final int[] ORDER;
+    /** `{"key":` or `,"key":` for each field, in emission order. */
+    private static final byte[][] PREFIXES;
+
+    static {
+        JSONObject probe = new JSONObject();
+        for (String key : KEYS) {
+            probe.put(key, null);
+        }
+
+        ORDER = new int[KEYS.length];
+        PREFIXES = new byte[KEYS.length][];
+        Iterator<?> keys = probe.keySet().iterator();
+        for (int i = 0; i < KEYS.length; i++) {
+            String key = (String) keys.next();
+            ORDER[i] = Arrays.asList(KEYS).indexOf(key);
+            PREFIXES[i] = ((i == 0 ? "{\"" : ",\"") + key + "\":").getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final Queue<Buffers> pool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param payform
+     * @return Base64 encoded payform, ready to send as `form_data`
+     */
+    String encode(PayformData payform) {
+        Buffers buffers = this.pool.poll();
+        if (buffers == null) {
+            buffers = new Buffers();
+        }
+        try {
+            return buffers.encode(payform);
+        } finally {
+            this.pool.offer(buffers);
+        }
+    }
+
+    private static void writeJSON(PayformData payform, ByteSink out) {
+        Object[] values = values(payform);
+        for (int i = 0; i < ORDER.length; i++) {
+            out.write(PREFIXES[i]);
+            writeValue(values[ORDER[i]], out);
+        }
+        out.write('}');
+    }
+
+    private static Object[] values(PayformData p) {
+        return new Object[] {
+            p.merchantId, p.merchantRefNo, p.merchantAdditionalData, p.amount, p.currency, p.description,
+            p.email, p.firstName, p.lastName, p.middleName, p.phone,
+            p.mobile, p.address, p.address2, p.city, p.state, p.zip,
+            p.country, p.remark, p.paymentMethod, p.statusNotificationUrl, p.successPageUrl,
+            p.failurePageUrl, p.cancelPageUrl, p.pendingPageUrl, p.secureHash, p.authHash, "HS256",
+        };
+    }
+
+    private static void writeValue(Object value, ByteSink out) {
+        if (value instanceof String) {
+            out.write('"');
+            out.writeUtf8((String) value);
+            out.write('"');
+        } else if (value instanceof Double && (((Double) value).isNaN() || ((Double) value).isInfinite())) {
+            out.write(NULL);
+        } else if (value != null) {
+            out.writeUtf8(value.toString());
+        } else {
+            out.write(NULL);
+        }
+    }
+
+    private static final class Buffers {
+        private final ByteSink json = new ByteSink(INITIAL_CAPACITY);
+        private byte[] encoded = new byte[INITIAL_CAPACITY / GROUP_BYTES * GROUP_DIGITS + GROUP_DIGITS];
+
+        String encode(PayformData payform) {
+            this.json.clear();
+            writeJSON(payform, this.json);
+            return base64(this.json);
+        }
+
+        private String base64(ByteSink src) {
+            byte[] in = src.bytes();
+            int length = src.length();
+            int needed = (length + GROUP_BYTES - 1) / GROUP_BYTES * GROUP_DIGITS;
+            if (this.encoded.length < needed) {
+                this.encoded = new byte[needed];
+            }
+
+            byte[] out = this.encoded;
+            int o = 0;
+            int i = 0;
+            for (; i + 2 < length; i += GROUP_BYTES) {
+                int bits = (in[i] & BYTE_MASK) << FIRST_BYTE | (in[i + 1] & BYTE_MASK) << SECOND_BYTE
+                    | (in[i + 2] & BYTE_MASK);
+                out[o++] = BASE64_DIGITS[bits >>> FIRST_DIGIT];
+                out[o++] = BASE64_DIGITS[(bits >>> SECOND_DIGIT) & DIGIT_MASK];
+                out[o++] = BASE64_DIGITS[(bits >>> THIRD_DIGIT) & DIGIT_MASK];
+                out[o++] = BASE64_DIGITS[bits & DIGIT_MASK];
+            }
+            if (i < length) {
+                int bits = (in[i] & BYTE_MASK) << FIRST_BYTE
+                    | (i + 1 < length ? (in[i + 1] & BYTE_MASK) << SECOND_BYTE : 0);
+                out[o++] = BASE64_DIGITS[bits >>> FIRST_DIGIT];
+                out[o++] = BASE64_DIGITS[(bits >>> SECOND_DIGIT) & DIGIT_MASK];
+                out[o++] = i + 1 < length ? BASE64_DIGITS[(bits >>> THIRD_DIGIT) & DIGIT_MASK] : (byte) '=';
+                out[o++] = '=';
+            }
+            return new String(out, 0, o, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /** Growable byte buffer with an inline UTF-8 encoder. */
+    private static final class ByteSink {
+        /** Largest UTF-8 encoding of one char; a surrogate pair takes 4 bytes for 2 chars. */
+        private static final int MAX_BYTES_PER_CHAR = 3;
+        private static final int ONE_BYTE_LIMIT = 0x80;
+        private static final int TWO_BYTES_LIMIT = 0x800;
+        private static final int TWO_BYTES_LEAD = 0xC0;
+        private static final int THREE_BYTES_LEAD = 0xE0;
+        private static final int FOUR_BYTES_LEAD = 0xF0;
+        private static final int CONTINUATION = 0x80;
+        private static final int CONTINUATION_MASK = 0x3F;
+        /** Shifts of the bits carried by the second, third and fourth byte from the end. */
+        private static final int SECOND_LAST = 6;
+        private static final int THIRD_LAST = 12;
+        private static final int FOURTH_LAST = 18;
+
+        private byte[] bytes;
+        private int length;
+
+        ByteSink(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        byte[] bytes() {
+            return this.bytes;
+        }
+
+        int length() {
+            return this.length;
+        }
+
+        void clear() {
+            this.length = 0;
+        }
+
+        void write(int b) {
+            ensure(1);
+            this.bytes[this.length++] = (byte) b;
+        }
+
+        void write(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, this.bytes, this.length, b.length);
+            this.length += b.length;
+        }
+
+        void writeUtf8(String s) {
+            ensure(s.length() * MAX_BYTES_PER_CHAR);
+            byte[] out = this.bytes;
+            int o = this.length;
+            int i = 0;
+            while (i < s.length()) {
+                char c = s.charAt(i);
+                if (c < ONE_BYTE_LIMIT) {
+                    out[o++] = (byte) c;
+                } else if (c < TWO_BYTES_LIMIT) {
+                    out[o++] = (byte) (TWO_BYTES_LEAD | c >> SECOND_LAST);
+                    out[o++] = (byte) (CONTINUATION | c & CONTINUATION_MASK);
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    out[o++] = (byte) (FOUR_BYTES_LEAD | cp >> FOURTH_LAST);
+                    out[o++] = (byte) (CONTINUATION | cp >> THIRD_LAST & CONTINUATION_MASK);
+                    out[o++] = (byte) (CONTINUATION | cp >> SECOND_LAST & CONTINUATION_MASK);
+                    out[o++] = (byte) (CONTINUATION | cp & CONTINUATION_MASK);
+                } else if (Character.isSurrogate(c)) {
+                    // Unpaired surrogate, replaced the same way String.getBytes(UTF_8) does.
+                    out[o++] = '?';
+                } else {
+                    out[o++] = (byte) (THREE_BYTES_LEAD | c >> THIRD_LAST);
+                    out[o++] = (byte) (CONTINUATION | c >> SECOND_LAST & CONTINUATION_MASK);
+                    out[o++] = (byte) (CONTINUATION | c & CONTINUATION_MASK);
+                }
+                i++;
+            }
+            this.length = o;
+        }
+
+        private void ensure(int extra) {
+            if (this.length + extra > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package txnpay;
+
+/**
+ * Hosted payment page created by `/payform-link`.
+ */
+public final class PayformLink {
+    private final String url;
+
+    PayformLink(String url) {
+        this.url = url;
+    }
+
+    /**
+     * @return URL to send the payer to
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public String toString() {
+        return "PayformLink{url=" + url + "}";
+    }
+}
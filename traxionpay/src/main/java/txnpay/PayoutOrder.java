@@ -0,0 +1,39 @@
+package txnpay;
+
+/**
+ * One payout of a {@link TraxionPay#cashOutBatch}, before it has an OTP.
+ */
+public final class PayoutOrder {
+    private final String reference;
+    private final Double amount;
+    private final Integer bankAccount;
+
+    /**
+     * @param reference     unique per intended payout; used as its idempotency key
+     * @param amount
+     * @param bankAccount   id of the {@link BankAccount} to pay out to
+     */
+    public PayoutOrder(String reference, Double amount, Integer bankAccount) {
+        if (reference == null) throw new IllegalArgumentException("'reference' must not be null");
+        this.reference = reference;
+        this.amount = amount;
+        this.bankAccount = bankAccount;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public Integer getBankAccount() {
+        return bankAccount;
+    }
+
+    @Override
+    public String toString() {
+        return "PayoutOrder{reference=" + reference + ", amount=" + amount + ", bankAccount=" + bankAccount + "}";
+    }
+}
@@ -0,0 +1,79 @@
+package txnpay;
+
+import javax.annotation.Nullable;
+
+/**
+ * Where one {@link PayoutOrder} of a {@link PayoutRun} stands.
+ */
+public final class PayoutOutcome {
+    public enum State {
+        /** Waiting for a free slot. */
+        QUEUED,
+        /** Waiting for its OTP or for the payout response. */
+        IN_FLIGHT,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private final PayoutOrder order;
+    private final State state;
+    private final PayoutResult result;
+    private final Throwable error;
+
+    private PayoutOutcome(PayoutOrder order, State state, @Nullable PayoutResult result, @Nullable Throwable error) {
+        this.order = order;
+        this.state = state;
+        this.result = result;
+        this.error = error;
+    }
+
+    static PayoutOutcome queued(PayoutOrder order) {
+        return new PayoutOutcome(order, State.QUEUED, null, null);
+    }
+
+    static PayoutOutcome inFlight(PayoutOrder order) {
+        return new PayoutOutcome(order, State.IN_FLIGHT, null, null);
+    }
+
+    static PayoutOutcome of(PayoutOrder order, @Nullable PayoutResult result, @Nullable Throwable error) {
+        if (error != null) return new PayoutOutcome(order, State.FAILED, null, error);
+        return new PayoutOutcome(order, State.SUCCEEDED, result, null);
+    }
+
+    public PayoutOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * @return `reference` of the order
+     */
+    public String getReference() {
+        return order.getReference();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return payout accepted by the API, or null unless succeeded
+     */
+    @Nullable
+    public PayoutResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return why the payout failed, or null unless failed
+     */
+    @Nullable
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        String detail = result != null ? ", result=" + result : error != null ? ", error=" + error : "";
+        return "PayoutOutcome{reference=" + order.getReference() + ", state=" + state + detail + "}";
+    }
+}
@@ -0,0 +1,91 @@
+package txnpay;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Summary of a {@link PayoutRun}, complete once the run is done.
+ */
+public final class PayoutReport {
+    private final int total;
+    private final int pending;
+    private final int succeeded;
+    private final List<PayoutOutcome> failures;
+    private final double amountPaid;
+    private final int otpsFetched;
+    private final int otpsExpired;
+    private final Duration elapsed;
+
+    PayoutReport(int total, int pending, int succeeded, List<PayoutOutcome> failures, double amountPaid,
+            int otpsFetched, int otpsExpired, Duration elapsed) {
+        this.total = total;
+        this.pending = pending;
+        this.succeeded = succeeded;
+        this.failures = failures;
+        this.amountPaid = amountPaid;
+        this.otpsFetched = otpsFetched;
+        this.otpsExpired = otpsExpired;
+        this.elapsed = elapsed;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return orders queued or in flight; 0 once the run is done
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failures.size();
+    }
+
+    /**
+     * @return failed orders, in the order they were submitted; unmodifiable
+     */
+    public List<PayoutOutcome> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return sum of the amounts of succeeded orders
+     */
+    public double getAmountPaid() {
+        return amountPaid;
+    }
+
+    /**
+     * @return OTPs requested, including replacements for expired or rejected ones
+     */
+    public int getOtpsFetched() {
+        return otpsFetched;
+    }
+
+    /**
+     * @return prefetched OTPs discarded for being older than the validity window
+     */
+    public int getOtpsExpired() {
+        return otpsExpired;
+    }
+
+    /**
+     * @return time since the run started
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return "PayoutReport{total=" + total + ", pending=" + pending + ", succeeded=" + succeeded
+            + ", failed=" + failures.size() + ", amountPaid=" + amountPaid + ", otpsFetched=" + otpsFetched
+            + ", otpsExpired=" + otpsExpired + ", elapsed=" + elapsed + "}";
+    }
+}
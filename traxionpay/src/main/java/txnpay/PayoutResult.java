@@ -0,0 +1,54 @@
+package txnpay;
+
+import javax.annotation.Nullable;
+
+/**
+ * A payout accepted by `/payout/bank-payout/`.
+ */
+public final class PayoutResult extends ModelReader.Fields {
+    private Long id;
+    private Double amount;
+    private Long bankAccount;
+    private String status;
+
+    PayoutResult() {
+    }
+
+    @Override
+    void set(String key, @Nullable Object value) {
+        switch (key) {
+            case "id": this.id = ModelReader.number(value); break;
+            case "amount": this.amount = ModelReader.decimal(value); break;
+            case "bank_account": this.bankAccount = ModelReader.number(value); break;
+            case "status": this.status = ModelReader.string(value); break;
+            default: break;
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return id of the {@link BankAccount} paid out to
+     */
+    public Long getBankAccount() {
+        return bankAccount;
+    }
+
+    /**
+     * @return e.g. "pending"
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return "PayoutResult{id=" + id + ", amount=" + amount + ", status=" + status + "}";
+    }
+}
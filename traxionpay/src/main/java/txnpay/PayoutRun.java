@@ -0,0 +1,185 @@
+package txnpay;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link TraxionPay#cashOutBatch} in progress.
+ *
+ * Works like `cashInBatch`: a sliding window of at most `concurrency` payouts in
+ * flight, each completion starting the next. OTPs come from an {@link OtpPrefetcher},
+ * so the OTP for the next payout is already on its way while the current one is sent.
+ * A payout the API rejects for its OTP is sent once more with a fresh OTP; any other
+ * failure is final for that order and does not stop the others. Outcomes are handled on
+ * `workers`, so orders that fail at once do not start each other on one thread's stack.
+ */
+public final class PayoutRun {
+    private final List<PayoutOrder> orders;
+    private final OtpPrefetcher otps;
+    private final BiFunction<CashOutData, String, CompletableFuture<PayoutResult>> send;
+    private final Executor workers;
+    private final Consumer<PayoutOutcome> results;
+    /** Serializes {@link #results} without locking the caller's object. */
+    private final ReentrantLock delivery = new ReentrantLock();
+    private final ConcurrentMap<String, PayoutOutcome> outcomes = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final AtomicReference<RuntimeException> callbackError = new AtomicReference<>();
+    private final CompletableFuture<PayoutReport> done = new CompletableFuture<>();
+    private final long startedAt = System.nanoTime();
+
+    PayoutRun(List<PayoutOrder> orders, OtpPrefetcher otps,
+            BiFunction<CashOutData, String, CompletableFuture<PayoutResult>> send, Executor workers,
+            Consumer<PayoutOutcome> results) {
+        this.orders = orders;
+        this.otps = otps;
+        this.send = send;
+        this.workers = workers;
+        this.results = results;
+        this.remaining = new AtomicInteger(orders.size());
+        for (PayoutOrder order : orders) {
+            if (this.outcomes.putIfAbsent(order.getReference(), PayoutOutcome.queued(order)) != null) {
+                throw new IllegalArgumentException("Duplicate payout reference: " + order.getReference());
+            }
+        }
+    }
+
+    PayoutRun start(int concurrency) {
+        if (this.orders.isEmpty()) {
+            this.done.complete(getReport());
+            return this;
+        }
+        this.otps.start();
+        for (int i = 0; i < Math.min(concurrency, this.orders.size()); i++) {
+            submitNext();
+        }
+        return this;
+    }
+
+    private void submitNext() {
+        int index = this.next.getAndIncrement();
+        if (index >= this.orders.size()) return;
+
+        PayoutOrder order = this.orders.get(index);
+        this.outcomes.put(order.getReference(), PayoutOutcome.inFlight(order));
+        this.otps.take()
+            .thenCompose(otp -> pay(order, otp, false))
+            .whenCompleteAsync((result, error) -> {
+                PayoutOutcome outcome = PayoutOutcome.of(order, result, unwrap(error));
+                this.outcomes.put(order.getReference(), outcome);
+                deliver(outcome);
+                if (this.remaining.decrementAndGet() == 0) {
+                    finish();
+                } else {
+                    submitNext();
+                }
+            }, this.workers);
+    }
+
+    private CompletableFuture<PayoutResult> pay(PayoutOrder order, String otp, boolean retried) {
+        CashOutData params = new CashOutData(otp, order.getAmount(), order.getBankAccount());
+        return this.send.apply(params, order.getReference()).handle((result, error) -> {
+            Throwable cause = unwrap(error);
+            if (cause == null) return CompletableFuture.completedFuture(result);
+            if (!retried && isOtpRejected(cause)) {
+                return this.otps.fetchNow().thenCompose(fresh -> pay(order, fresh, true));
+            }
+            CompletableFuture<PayoutResult> failed = new CompletableFuture<>();
+            failed.completeExceptionally(cause);
+            return failed;
+        }).thenCompose(Function.identity());
+    }
+
+    private static boolean isOtpRejected(Throwable error) {
+        if (!(error instanceof ApiException)) return false;
+        ApiException api = (ApiException) error;
+        return api.getStatus() == 400 && api.getDetail() != null
+            && api.getDetail().toUpperCase(Locale.ROOT).contains("OTP");
+    }
+
+    @Nullable
+    private static Throwable unwrap(@Nullable Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private void deliver(PayoutOutcome outcome) {
+        // One at a time, so callers may collect into plain lists.
+        this.delivery.lock();
+        try {
+            this.results.accept(outcome);
+        } catch (RuntimeException e) {
+            this.callbackError.compareAndSet(null, e);
+        } finally {
+            this.delivery.unlock();
+        }
+    }
+
+    private void finish() {
+        RuntimeException error = this.callbackError.get();
+        if (error != null) {
+            this.done.completeExceptionally(error);
+        } else {
+            this.done.complete(getReport());
+        }
+    }
+
+    /**
+     * @param reference
+     * @return current state of the order, or null if it is not part of this run
+     */
+    @Nullable
+    public PayoutOutcome getOutcome(String reference) {
+        return this.outcomes.get(reference);
+    }
+
+    /**
+     * @return summary of the run so far
+     */
+    public PayoutReport getReport() {
+        int pending = 0;
+        int succeeded = 0;
+        double amountPaid = 0;
+        List<PayoutOutcome> failures = new ArrayList<>();
+        for (PayoutOrder order : this.orders) {
+            PayoutOutcome outcome = this.outcomes.get(order.getReference());
+            switch (outcome.getState()) {
+                case SUCCEEDED:
+                    succeeded++;
+                    if (order.getAmount() != null) amountPaid += order.getAmount();
+                    break;
+                case FAILED:
+                    failures.add(outcome);
+                    break;
+                default:
+                    pending++;
+                    break;
+            }
+        }
+        return new PayoutReport(this.orders.size(), pending, succeeded, Collections.unmodifiableList(failures),
+            amountPaid, this.otps.fetched(), this.otps.expired(), Duration.ofNanos(System.nanoTime() - this.startedAt));
+    }
+
+    /**
+     * @return CompletableFuture of the final report, once every order succeeded or failed; fails if the
+     *         results callback threw
+     */
+    public CompletableFuture<PayoutReport> completion() {
+        return this.done;
+    }
+}
@@ -0,0 +1,14 @@
+package txnpay;
+
+/**
+ * What a call does when its endpoint's rate limit has no permit left.
+ * See {@link TraxionPay.Builder#rateLimit}.
+ */
+public enum RateLimitMode {
+    /** Wait for a permit, however long it takes. */
+    BLOCK,
+    /** Fail at once with {@link RateLimitedException}. */
+    FAIL_FAST,
+    /** Wait for a permit up to a deadline, then fail with {@link RateLimitedException}. */
+    QUEUE
+}
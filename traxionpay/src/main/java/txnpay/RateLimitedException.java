@@ -0,0 +1,32 @@
+package txnpay;
+
+import java.time.Duration;
+
+/**
+ * Rejected without calling the API because the endpoint's client-side rate limit
+ * had no permit left, or none became free before the deadline.
+ */
+public class RateLimitedException extends TraxionPayException {
+    private static final long serialVersionUID = 1L;
+
+    private final String endpoint;
+    private final Duration retryAfter;
+
+    /**
+     * @param endpoint      limited endpoint or endpoint prefix, e.g. "/payform-link" or "/payout/"
+     * @param retryAfter    time until the next permit is expected to be free
+     */
+    public RateLimitedException(String endpoint, Duration retryAfter) {
+        super("Rate limit reached for " + endpoint + ", retry in " + retryAfter.toMillis() + " ms");
+        this.endpoint = endpoint;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,176 @@
+package txnpay;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Nullable;
+
+import org.apache.http.Header;
+
+/**
+ * Client-side rate limits in front of another {@link Transport}, one
+ * {@link RateLimiter} per configured endpoint prefix; other endpoints pass
+ * straight through.
+ *
+ * A permit covers one call, including any retries made below this transport.
+ * Calls beyond the quota block, fail fast or queue with a deadline, as set by
+ * {@link RateLimitMode}. The view returned by {@link #bulk()} shares the limits
+ * but queues behind every interactive call and always waits for its permit, so
+ * batch work yields to checkout traffic instead of failing.
+ */
+final class RateLimitedTransport implements Transport {
+    /** Marks endpoints without a limit, since the lookup cache cannot hold null. */
+    private static final RateLimiter UNLIMITED =
+        new RateLimiter("", new RateLimiter.Quota(1, Duration.ofSeconds(1), 1));
+
+    private final ResilientTransport delegate;
+    private final Map<String, RateLimiter> limits;
+    private final ConcurrentMap<String, RateLimiter> byEndpoint;
+    private final RateLimitMode mode;
+    private final long deadlineNanos;
+    private final int priority;
+    @Nullable private final TraxionPayMetrics metrics;
+
+    /**
+     * @param delegate  transport performing the calls
+     * @param options   rate limits by endpoint prefix, and what calls beyond them do
+     */
+    RateLimitedTransport(ResilientTransport delegate, TraxionPay.Builder options) {
+        this.delegate = delegate;
+        Map<String, RateLimiter> limits = new HashMap<>();
+        options.rateLimits.forEach((prefix, quota) -> limits.put(prefix, new RateLimiter(prefix, quota)));
+        this.limits = limits;
+        this.byEndpoint = new ConcurrentHashMap<>();
+        this.mode = options.rateLimitMode;
+        this.deadlineNanos = options.rateLimitDeadline.toNanos();
+        this.priority = RateLimiter.INTERACTIVE;
+        this.metrics = options.metrics;
+    }
+
+    private RateLimitedTransport(RateLimitedTransport interactive, ResilientTransport delegate) {
+        this.delegate = delegate;
+        this.limits = interactive.limits;
+        this.byEndpoint = interactive.byEndpoint;
+        this.mode = RateLimitMode.BLOCK;
+        this.deadlineNanos = -1;
+        this.priority = RateLimiter.BULK;
+        this.metrics = interactive.metrics;
+    }
+
+    /**
+     * @return view of this transport for batch work
+     */
+    RateLimitedTransport bulk() {
+        return bulk(this.delegate);
+    }
+
+    /**
+     * @param delegate  transport performing the calls instead of this one's
+     * @return view of this transport for batch work, sending through `delegate`
+     */
+    RateLimitedTransport bulk(ResilientTransport delegate) {
+        return new RateLimitedTransport(this, delegate);
+    }
+
+    @Override
+    public <T> T exchange(String method, String endpoint, @Nullable Header[] headers, @Nullable String json,
+            @Nullable List payload, ResponseReader<T> reader) throws TraxionPayException {
+        return exchange(method, endpoint, null, headers, json, payload, reader);
+    }
+
+    @Override
+    public <T> T exchange(String method, String endpoint, @Nullable String key, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader) throws TraxionPayException {
+        RateLimiter limiter = limiter(endpoint);
+        if (limiter != null && !limiter.tryAcquire()) await(endpoint, limiter);
+        return this.delegate.exchange(method, endpoint, key, headers, json, payload, reader);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+        return exchangeAsync(method, endpoint, null, headers, json, payload, reader);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable String key,
+            @Nullable Header[] headers, @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+        RateLimiter limiter = limiter(endpoint);
+        if (limiter == null || limiter.tryAcquire()) {
+            return this.delegate.exchangeAsync(method, endpoint, key, headers, json, payload, reader);
+        }
+        if (this.mode == RateLimitMode.FAIL_FAST) {
+            report(endpoint, System.nanoTime(), true);
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(limiter.rejected());
+            return rejected;
+        }
+        long start = System.nanoTime();
+        return limiter.acquire(this.priority, deadline())
+            .whenComplete((permit, error) -> report(endpoint, start, error != null))
+            .thenCompose(permit -> this.delegate.exchangeAsync(method, endpoint, key, headers, json, payload, reader));
+    }
+
+    private void await(String endpoint, RateLimiter limiter) throws TraxionPayException {
+        long start = System.nanoTime();
+        if (this.mode == RateLimitMode.FAIL_FAST) {
+            report(endpoint, start, true);
+            throw limiter.rejected();
+        }
+
+        CompletableFuture<Void> permit = limiter.acquire(this.priority, deadline());
+        try {
+            permit.get();
+            report(endpoint, start, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            limiter.cancel(permit, e);
+            throw new TraxionPayException("Interrupted while waiting for a rate limit permit", e);
+        } catch (ExecutionException e) {
+            report(endpoint, start, true);
+            if (e.getCause() instanceof TraxionPayException) throw (TraxionPayException) e.getCause();
+            throw new TraxionPayException("Rate limit permit failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private void report(String endpoint, long start, boolean rejected) {
+        if (this.metrics != null) this.metrics.rateLimitWaited(endpoint, System.nanoTime() - start, rejected);
+    }
+
+    private long deadline() {
+        return this.mode == RateLimitMode.QUEUE ? this.deadlineNanos : -1;
+    }
+
+    @Nullable
+    private RateLimiter limiter(String endpoint) {
+        if (this.limits.isEmpty()) return null;
+        RateLimiter limiter = this.byEndpoint.get(endpoint);
+        if (limiter == null) limiter = this.byEndpoint.computeIfAbsent(endpoint, this::longestPrefix);
+        return limiter != UNLIMITED ? limiter : null;
+    }
+
+    private RateLimiter longestPrefix(String endpoint) {
+        String match = null;
+        for (String prefix : this.limits.keySet()) {
+            if (endpoint.startsWith(prefix) && (match == null || prefix.length() > match.length())) match = prefix;
+        }
+        return match != null ? this.limits.get(match) : UNLIMITED;
+    }
+
+    @Override
+    public CompletableFuture<Integer> preconnect(int connections) {
+        return this.delegate.preconnect(connections);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.delegate.close();
+    }
+}
@@ -0,0 +1,169 @@
+package txnpay;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket for one endpoint, with a priority queue of callers waiting for a permit.
+ *
+ * The bucket is kept as the time at which it would be full again (the generic cell
+ * rate algorithm), in a single `AtomicLong`: taking a permit while nobody waits is
+ * one CAS. Callers that find the bucket empty queue by priority, then arrival, and
+ * are granted permits as they become free by a single drain loop, so bulk work
+ * never overtakes interactive calls.
+ */
+final class RateLimiter {
+    /** Waiter priority; lower runs first. */
+    static final int INTERACTIVE = 0;
+    static final int BULK = 1;
+
+    private final String endpoint;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+    private final PriorityBlockingQueue<Waiter> waiters = new PriorityBlockingQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong arrivals = new AtomicLong();
+    private final AtomicInteger drains = new AtomicInteger();
+    private final AtomicBoolean wakeUpScheduled = new AtomicBoolean();
+
+    /**
+     * @param endpoint
+     * @param quota     permits per period and burst size
+     */
+    RateLimiter(String endpoint, Quota quota) {
+        this.endpoint = endpoint;
+        this.intervalNanos = Math.max(1, quota.period.toNanos() / quota.permits);
+        this.burstNanos = this.intervalNanos * quota.burst;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a permit if one is free and nobody is queued ahead.
+     *
+     * @return true if the call may proceed
+     */
+    boolean tryAcquire() {
+        return this.waiting.get() == 0 && take();
+    }
+
+    /**
+     * @param priority          {@link #INTERACTIVE} or {@link #BULK}
+     * @param deadlineNanos     longest wait, or a negative value to wait indefinitely
+     * @return CompletableFuture completing when a permit is granted, or failing with
+     *         {@link RateLimitedException} once the deadline passes
+     */
+    CompletableFuture<Void> acquire(int priority, long deadlineNanos) {
+        Waiter waiter = new Waiter(priority, this.arrivals.getAndIncrement());
+        this.waiting.incrementAndGet();
+        this.waiters.add(waiter);
+        if (deadlineNanos >= 0) {
+            CompletableFuture.delayedExecutor(deadlineNanos, TimeUnit.NANOSECONDS)
+                .execute(() -> cancel(waiter, rejected()));
+        }
+        drain();
+        return waiter;
+    }
+
+    /**
+     * Withdraws a queued call; a no-op once its permit was granted.
+     *
+     * @param waiter    future returned by {@link #acquire}
+     * @param reason    what the waiter fails with
+     */
+    void cancel(CompletableFuture<Void> waiter, Throwable reason) {
+        if (waiter.completeExceptionally(reason) && this.waiters.remove(waiter)) this.waiting.decrementAndGet();
+    }
+
+    RateLimitedException rejected() {
+        return new RateLimitedException(this.endpoint, Duration.ofNanos(nanosUntilPermit()));
+    }
+
+    private boolean take() {
+        long now = System.nanoTime();
+        for (;;) {
+            long full = this.fullAt.get();
+            long next = (full - now > 0 ? full : now) + this.intervalNanos;
+            if (next - now > this.burstNanos) return false;
+            if (this.fullAt.compareAndSet(full, next)) return true;
+        }
+    }
+
+    private void giveBack() {
+        this.fullAt.addAndGet(-this.intervalNanos);
+    }
+
+    private long nanosUntilPermit() {
+        long wait = this.fullAt.get() + this.intervalNanos - this.burstNanos - System.nanoTime();
+        return Math.max(0, wait);
+    }
+
+    /** Grants free permits to queued callers in priority order; runs on one thread at a time. */
+    private void drain() {
+        if (this.drains.getAndIncrement() != 0) return;
+
+        int missed = 1;
+        do {
+            while (this.waiting.get() > 0) {
+                if (!take()) {
+                    wakeUpIn(nanosUntilPermit());
+                    break;
+                }
+                Waiter next = this.waiters.poll();
+                if (next == null) {
+                    giveBack();
+                    break;
+                }
+                this.waiting.decrementAndGet();
+                // A waiter that timed out in the meantime does not use its permit.
+                if (!next.complete(null)) giveBack();
+            }
+            missed = this.drains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void wakeUpIn(long delayNanos) {
+        if (!this.wakeUpScheduled.compareAndSet(false, true)) return;
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(() -> {
+            this.wakeUpScheduled.set(false);
+            drain();
+        });
+    }
+
+    /** Permits per period, and how many may be taken at once after a quiet spell. */
+    static final class Quota {
+        final int permits;
+        final Duration period;
+        final int burst;
+
+        Quota(int permits, Duration period, int burst) {
+            if (permits < 1 || burst < 1) {
+                throw new IllegalArgumentException("'permits' and 'burst' must be at least 1");
+            }
+            this.permits = permits;
+            this.period = period;
+            this.burst = burst;
+        }
+    }
+
+    private static final class Waiter extends CompletableFuture<Void> implements Comparable<Waiter> {
+        private final int priority;
+        private final long arrival;
+
+        Waiter(int priority, long arrival) {
+            this.priority = priority;
+            this.arrival = arrival;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            if (this.priority != other.priority) return Integer.compare(this.priority, other.priority);
+            return Long.compare(this.arrival, other.arrival);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package txnpay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * Matches issued payforms against their status notifications, or payout orders against
+ * their results, as both arrive, e.g. from two streams read side by side, from the webhook
+ * receiver, or from a replay of an {@link OutboxJournal}. Entries are keyed by
+ * `merchantRefNo`, or by a payout's `reference`; use one instance per kind.
+ *
+ * Each key is reported once it is decided: {@link Reconciliation.Type#MATCHED} or
+ * {@link Reconciliation.Type#AMOUNT_MISMATCH} as soon as both sides are in, a missing
+ * side once the other has waited for `settlementWindow`, and a duplicate at once. Time
+ * is taken from the entries themselves: the latest timestamp seen on either side moves
+ * the reconciler forward, so a replay of last month runs as fast as it can be read.
+ * Use {@link #advanceTo} to move it along during quiet periods, and {@link #finish} at
+ * the end of a batch.
+ *
+ * Only undecided keys are held, plus matched ones for `duplicateWindow`, in an
+ * {@link OpenItemTable} of primitive arrays, so memory follows the number of open
+ * items rather than the history. Amounts are compared in hundredths.
+ *
+ * Methods are synchronized; results are passed to the consumer on the calling thread,
+ * one at a time.
+ */
+public final class Reconciler {
+    static final byte ISSUED = 1;
+    static final byte SETTLED = 2;
+    static final byte CLOSED = 3;
+    private static final long UNKNOWN = Long.MIN_VALUE;
+    /** Amounts are held in hundredths, e.g. centavos. */
+    private static final int MINOR_UNITS = 100;
+
+    private final long settlementWindow;
+    private final long duplicateWindow;
+    private final Consumer<Reconciliation> results;
+    private final OpenItemTable items = new OpenItemTable();
+    /** Open entries by the time they were added, to find those left waiting. */
+    private final Ring open = new Ring();
+    /** Matched entries by the time they matched, to forget them after the duplicate window. */
+    private final Ring closed = new Ring();
+    private final Map<String, Short> currencyIds = new HashMap<>();
+    private final List<String> currencies = new ArrayList<>();
+    private long watermark = Long.MIN_VALUE;
+    private int openCount;
+
+    /**
+     * @param settlementWindow  how long one side waits for the other before it is reported missing
+     * @param duplicateWindow   how long a matched key is remembered to report repeats as duplicates
+     * @param results           receives every decided key
+     */
+    public Reconciler(Duration settlementWindow, Duration duplicateWindow, Consumer<Reconciliation> results) {
+        this.settlementWindow = settlementWindow.toMillis();
+        this.duplicateWindow = duplicateWindow.toMillis();
+        this.results = results;
+    }
+
+    /**
+     * @param cashIn    as sent with `cashIn`, `createPayformLink` or `buildPayformUrl`
+     * @param at        when it was issued
+     */
+    public void issued(CashInData cashIn, Instant at) {
+        issued(cashIn.merchantRefNo, cashIn.amount, cashIn.currency, at);
+    }
+
+    /**
+     * @param order as passed to `cashOutBatch`
+     * @param at    when it was issued
+     */
+    public void issued(PayoutOrder order, Instant at) {
+        issued(order.getReference(), order.getAmount(), "PHP", at);
+    }
+
+    /**
+     * @param key       `merchantRefNo` or payout `reference`
+     * @param amount    null if unknown, which never matches
+     * @param currency  "PHP" if null
+     * @param at        when it was issued
+     */
+    public synchronized void issued(String key, @Nullable Double amount, @Nullable String currency, Instant at) {
+        add(key, ISSUED, minorUnits(amount), currencyId(currency), at.toEpochMilli());
+    }
+
+    /**
+     * Only {@link WebhookEvent.Type#PAID} notifications settle a payform; others are ignored,
+     * so a payform that failed or expired is eventually reported as missing its settlement.
+     *
+     * @param event as received by a {@link WebhookHandler}
+     * @param at    when it was received
+     */
+    public void settled(WebhookEvent event, Instant at) {
+        if (event.getType() != WebhookEvent.Type.PAID) {
+            return;
+        }
+        settled(event.getMerchantRefNo(), event.getAmount(), event.getCurrency(), at);
+    }
+
+    /**
+     * Only {@link PayoutOutcome.State#SUCCEEDED} outcomes settle a payout; others are ignored.
+     *
+     * @param outcome   as reported by a {@link PayoutRun}
+     * @param at        when it completed
+     */
+    public void settled(PayoutOutcome outcome, Instant at) {
+        if (outcome.getState() != PayoutOutcome.State.SUCCEEDED) {
+            return;
+        }
+        settled(outcome.getReference(), outcome.getResult().getAmount(), "PHP", at);
+    }
+
+    /**
+     * @param key       `merchantRefNo` or payout `reference`
+     * @param amount    null if unknown, which never matches
+     * @param currency  "PHP" if null
+     * @param at        when it was settled
+     */
+    public synchronized void settled(String key, @Nullable Double amount, @Nullable String currency, Instant at) {
+        add(key, SETTLED, minorUnits(amount), currencyId(currency), at.toEpochMilli());
+    }
+
+    /**
+     * Moves time forward without an entry, reporting the sides that waited too long by `now`.
+     *
+     * @param now
+     */
+    public synchronized void advanceTo(Instant now) {
+        advance(now.toEpochMilli());
+    }
+
+    /**
+     * Reports every open entry as missing its other side, e.g. at the end of a batch, and
+     * forgets matched keys. The reconciler can be used again afterwards.
+     */
+    public synchronized void finish() {
+        List<Reconciliation> missing = new ArrayList<>(this.openCount);
+        for (int slot = 0; slot < this.items.capacity(); slot++) {
+            if (this.items.isUsed(slot) && this.items.state(slot) != CLOSED) {
+                missing.add(missing(slot));
+            }
+        }
+        this.items.clear();
+        this.open.clear();
+        this.closed.clear();
+        this.openCount = 0;
+        missing.forEach(this.results);
+    }
+
+    /**
+     * @return keys waiting for their other side
+     */
+    public synchronized int openCount() {
+        return this.openCount;
+    }
+
+    /**
+     * @return approximate bytes held for open and recently matched keys
+     */
+    public synchronized long retainedBytes() {
+        return this.items.retainedBytes() + this.open.retainedBytes() + this.closed.retainedBytes();
+    }
+
+    private void add(String key, byte side, long amount, short currency, long time) {
+        // Expire first, so the entry sees what is still open and remembered at its own time.
+        advance(time);
+        long hash = OpenItemTable.hash(key);
+        int slot = this.items.find(key, hash);
+        if (slot == OpenItemTable.NONE) {
+            slot = this.items.insert(key, hash);
+            this.items.set(slot, side, amount, currency, time);
+            this.open.add(hash, time);
+            this.openCount++;
+        } else if (this.items.state(slot) == CLOSED || this.items.state(slot) == side) {
+            this.results.accept(side == ISSUED
+                ? new Reconciliation(Reconciliation.Type.DUPLICATE, key, amount(amount), currency(currency),
+                    Instant.ofEpochMilli(time), null, null, null)
+                : new Reconciliation(Reconciliation.Type.DUPLICATE, key, null, null, null, amount(amount),
+                    currency(currency), Instant.ofEpochMilli(time)));
+        } else {
+            match(slot, key, hash, amount, currency, time);
+        }
+    }
+
+    private void match(int slot, String key, long hash, long amount, short currency, long time) {
+        boolean issuedFirst = this.items.state(slot) == ISSUED;
+        long issuedAmount = issuedFirst ? this.items.amount(slot) : amount;
+        short issuedCurrency = issuedFirst ? this.items.currency(slot) : currency;
+        long issuedAt = issuedFirst ? this.items.time(slot) : time;
+        long settledAmount = issuedFirst ? amount : this.items.amount(slot);
+        short settledCurrency = issuedFirst ? currency : this.items.currency(slot);
+        long settledAt = issuedFirst ? time : this.items.time(slot);
+        boolean matched = issuedAmount != UNKNOWN && issuedAmount == settledAmount
+            && issuedCurrency == settledCurrency;
+
+        this.openCount--;
+        long closedAt = Math.max(time, this.items.time(slot));
+        if (this.duplicateWindow > 0) {
+            this.items.set(slot, CLOSED, 0, (short) 0, closedAt);
+            this.closed.add(hash, closedAt);
+        } else {
+            this.items.remove(slot);
+        }
+        this.results.accept(new Reconciliation(
+            matched ? Reconciliation.Type.MATCHED : Reconciliation.Type.AMOUNT_MISMATCH, key,
+            amount(issuedAmount), currency(issuedCurrency), Instant.ofEpochMilli(issuedAt),
+            amount(settledAmount), currency(settledCurrency), Instant.ofEpochMilli(settledAt)));
+    }
+
+    private void advance(long time) {
+        if (time <= this.watermark) {
+            return;
+        }
+        this.watermark = time;
+
+        while (!this.open.isEmpty() && this.open.time() <= time - this.settlementWindow) {
+            int slot = this.items.find(this.open.hash(), this.open.time(), ISSUED);
+            if (slot == OpenItemTable.NONE) {
+                slot = this.items.find(this.open.hash(), this.open.time(), SETTLED);
+            }
+            this.open.remove();
+            // Entries that matched since are no longer open under this time.
+            if (slot == OpenItemTable.NONE) {
+                continue;
+            }
+
+            Reconciliation missing = missing(slot);
+            this.items.remove(slot);
+            this.openCount--;
+            this.results.accept(missing);
+        }
+        while (!this.closed.isEmpty() && this.closed.time() <= time - this.duplicateWindow) {
+            int slot = this.items.find(this.closed.hash(), this.closed.time(), CLOSED);
+            this.closed.remove();
+            if (slot != OpenItemTable.NONE) {
+                this.items.remove(slot);
+            }
+        }
+    }
+
+    private Reconciliation missing(int slot) {
+        String key = this.items.key(slot);
+        Double amount = amount(this.items.amount(slot));
+        String currency = currency(this.items.currency(slot));
+        Instant at = Instant.ofEpochMilli(this.items.time(slot));
+        return this.items.state(slot) == ISSUED
+            ? new Reconciliation(Reconciliation.Type.MISSING_SETTLEMENT, key, amount, currency, at, null, null, null)
+            : new Reconciliation(Reconciliation.Type.UNMATCHED_SETTLEMENT, key, null, null, null, amount, currency, at);
+    }
+
+    private static long minorUnits(@Nullable Double amount) {
+        if (amount == null || amount.isNaN() || amount.isInfinite()) {
+            return UNKNOWN;
+        }
+        return Math.round(amount * MINOR_UNITS);
+    }
+
+    @Nullable
+    private static Double amount(long minorUnits) {
+        return minorUnits != UNKNOWN ? minorUnits / (double) MINOR_UNITS : null;
+    }
+
+    private short currencyId(@Nullable String currency) {
+        String code = Utils.getValidData(currency, "PHP");
+        Short id = this.currencyIds.get(code);
+        if (id != null) {
+            return id;
+        }
+        if (this.currencies.size() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many currencies");
+        }
+
+        id = (short) this.currencies.size();
+        this.currencies.add(code);
+        this.currencyIds.put(code, id);
+        return id;
+    }
+
+    private String currency(short id) {
+        return this.currencies.get(id);
+    }
+
+    /** Growable FIFO of (hash, time) pairs, shrunk again once mostly empty. */
+    private static final class Ring {
+        private static final int MIN_CAPACITY = 1024;
+        private static final int SHRINK_DENOMINATOR = 8;
+
+        private long[] hashes = new long[MIN_CAPACITY];
+        private long[] times = new long[MIN_CAPACITY];
+        private int head;
+        private int size;
+
+        void add(long hash, long time) {
+            if (this.size == this.hashes.length) {
+                resize(this.hashes.length * 2);
+            }
+            int tail = (this.head + this.size) & (this.hashes.length - 1);
+            this.hashes[tail] = hash;
+            this.times[tail] = time;
+            this.size++;
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        long hash() {
+            return this.hashes[this.head];
+        }
+
+        long time() {
+            return this.times[this.head];
+        }
+
+        void remove() {
+            this.head = (this.head + 1) & (this.hashes.length - 1);
+            this.size--;
+            if (this.hashes.length > MIN_CAPACITY && this.size < this.hashes.length / SHRINK_DENOMINATOR) {
+                resize(this.hashes.length / 2);
+            }
+        }
+
+        void clear() {
+            this.hashes = new long[MIN_CAPACITY];
+            this.times = new long[MIN_CAPACITY];
+            this.head = 0;
+            this.size = 0;
+        }
+
+        long retainedBytes() {
+            return (long) (Long.BYTES + Long.BYTES) * this.hashes.length;
+        }
+
+        private void resize(int capacity) {
+            long[] newHashes = new long[capacity];
+            long[] newTimes = new long[capacity];
+            for (int i = 0; i < this.size; i++) {
+                int from = (this.head + i) & (this.hashes.length - 1);
+                newHashes[i] = this.hashes[from];
+                newTimes[i] = this.times[from];
+            }
+            this.hashes = newHashes;
+            this.times = newTimes;
+            this.head = 0;
+        }
+    }
+}
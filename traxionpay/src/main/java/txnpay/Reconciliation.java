@@ -0,0 +1,100 @@
+package txnpay;
+
+import java.time.Instant;
+import javax.annotation.Nullable;
+
+/**
+ * One result of a {@link Reconciler}: an issued payform or payout, its settlement, or both.
+ * The issued fields are null when there was no issued entry, and the settled ones when
+ * there was no settlement.
+ */
+public final class Reconciliation {
+    /** What the reconciler found for a key. */
+    public enum Type {
+        /** Settled for the issued amount and currency. */
+        MATCHED,
+        /** Settled, but for another amount or currency than issued. */
+        AMOUNT_MISMATCH,
+        /** Issued, but not settled within the settlement window. */
+        MISSING_SETTLEMENT,
+        /** Settled, but never issued within the settlement window. */
+        UNMATCHED_SETTLEMENT,
+        /** Issued or settled again while the key was open, or within the duplicate window after it matched. */
+        DUPLICATE
+    }
+
+    private final Type type;
+    private final String key;
+    private final Double issuedAmount;
+    private final String issuedCurrency;
+    private final Instant issuedAt;
+    private final Double settledAmount;
+    private final String settledCurrency;
+    private final Instant settledAt;
+
+    Reconciliation(Type type, String key, @Nullable Double issuedAmount, @Nullable String issuedCurrency,
+            @Nullable Instant issuedAt, @Nullable Double settledAmount, @Nullable String settledCurrency,
+            @Nullable Instant settledAt) {
+        this.type = type;
+        this.key = key;
+        this.issuedAmount = issuedAmount;
+        this.issuedCurrency = issuedCurrency;
+        this.issuedAt = issuedAt;
+        this.settledAmount = settledAmount;
+        this.settledCurrency = settledCurrency;
+        this.settledAt = settledAt;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return `merchantRefNo` of a payform, or `reference` of a payout
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return amount issued, or null if not issued or unknown
+     */
+    @Nullable
+    public Double getIssuedAmount() {
+        return issuedAmount;
+    }
+
+    @Nullable
+    public String getIssuedCurrency() {
+        return issuedCurrency;
+    }
+
+    @Nullable
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    /**
+     * @return amount settled, or null if not settled or unknown
+     */
+    @Nullable
+    public Double getSettledAmount() {
+        return settledAmount;
+    }
+
+    @Nullable
+    public String getSettledCurrency() {
+        return settledCurrency;
+    }
+
+    @Nullable
+    public Instant getSettledAt() {
+        return settledAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Reconciliation{type=" + type + ", key=" + key + ", issued=" + issuedAmount + " " + issuedCurrency
+            + ", settled=" + settledAmount + " " + settledCurrency + "}";
+    }
+}
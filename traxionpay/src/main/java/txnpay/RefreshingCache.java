@@ -0,0 +1,122 @@
+package txnpay;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Single-value TTL cache for near-static responses such as the bank list.
+ *
+ * Entries older than three quarters of the TTL are still served while one
+ * background reload runs (stale-while-revalidate). A reload that fails, or
+ * returns a result that is not cacheable, is not repeated for an eighth of the
+ * TTL, so an upstream error does not turn into one request per call. Concurrent
+ * misses share a single in-flight load. Reloads go through the transport's non-blocking path,
+ * so no thread is parked while refreshing.
+ *
+ * Cached results are shared between callers and must be treated as read-only.
+ *
+ * @param <T> cached result type
+ */
+final class RefreshingCache<T> {
+    private final Supplier<CompletableFuture<T>> loader;
+    private final Predicate<T> cacheable;
+    private final long ttlNanos;
+    private final long refreshNanos;
+    private final long backoffNanos;
+    private final AtomicReference<CompletableFuture<T>> loading = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Entry<T> entry;
+    /** `System.nanoTime()` before which no background reload starts, after one failed. */
+    private volatile long refreshAfter = System.nanoTime();
+
+    /**
+     * @param ttl       how long a loaded value may be served
+     * @param loader    starts a request for a fresh value
+     * @param cacheable whether a loaded value is a successful result worth keeping
+     */
+    RefreshingCache(Duration ttl, Supplier<CompletableFuture<T>> loader, Predicate<T> cacheable) {
+        this.loader = loader;
+        this.cacheable = cacheable;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshNanos = this.ttlNanos / 4 * 3;
+        this.backoffNanos = this.ttlNanos / 8;
+    }
+
+    /**
+     * @return the cached value, or a future for the load it is waiting on
+     */
+    CompletableFuture<T> get() {
+        Entry<T> current = this.entry;
+        if (current != null) {
+            long now = System.nanoTime();
+            long age = now - current.loadedAt;
+            if (age < this.ttlNanos) {
+                if (age >= this.refreshNanos && now - this.refreshAfter >= 0) load();
+                return CompletableFuture.completedFuture(current.value);
+            }
+        }
+        return load();
+    }
+
+    /**
+     * Drops the cached value. A load that started earlier completes for its
+     * waiters but is not stored.
+     */
+    void invalidate() {
+        this.generation.incrementAndGet();
+        this.entry = null;
+        this.loading.set(null);
+    }
+
+    private CompletableFuture<T> load() {
+        while (true) {
+            CompletableFuture<T> inflight = this.loading.get();
+            if (inflight != null) return inflight;
+
+            CompletableFuture<T> mine = new CompletableFuture<>();
+            if (this.loading.compareAndSet(null, mine)) {
+                start(mine);
+                return mine;
+            }
+        }
+    }
+
+    private void start(CompletableFuture<T> mine) {
+        long startedIn = this.generation.get();
+        CompletableFuture<T> request;
+        try {
+            request = this.loader.get();
+        } catch (RuntimeException e) {
+            request = new CompletableFuture<>();
+            request.completeExceptionally(e);
+        }
+
+        request.whenComplete((value, error) -> {
+            if (error == null && this.cacheable.test(value)) {
+                if (this.generation.get() == startedIn) this.entry = new Entry<>(value, System.nanoTime());
+            } else {
+                this.refreshAfter = System.nanoTime() + this.backoffNanos;
+            }
+            this.loading.compareAndSet(mine, null);
+            if (error != null) {
+                mine.completeExceptionally(error);
+            } else {
+                mine.complete(value);
+            }
+        });
+    }
+
+    private static final class Entry<T> {
+        final T value;
+        final long loadedAt;
+
+        Entry(T value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
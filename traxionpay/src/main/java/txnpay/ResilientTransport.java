@@ -0,0 +1,239 @@
+package txnpay;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.apache.http.Header;
+
+/**
+ * Retries, backoff and circuit breaking around another {@link Transport}.
+ *
+ * Only GET calls are retried, since they are the only idempotent ones: a POST
+ * such as `cashOut` may have been executed even when its response was lost.
+ * A retry follows an I/O failure, a 429 or a 5xx, after an exponential backoff
+ * with jitter, or after `Retry-After` on 429 and 503. A `Retry-After` longer
+ * than the maximum backoff is not waited out; the error is returned instead.
+ * The last attempt's response goes to the caller's reader unchanged.
+ *
+ * Each endpoint has its own {@link CircuitBreaker}, counting I/O failures and
+ * 5xx responses, so a failing endpoint fails fast without affecting the others.
+ *
+ * Every failure reaches the caller as a {@link TraxionPayException}.
+ */
+final class ResilientTransport implements Transport {
+    private final Transport delegate;
+    private final int maxRetries;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    @Nullable private final TraxionPayMetrics metrics;
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate  transport performing the exchanges
+     * @param options   retry and circuit breaker settings
+     */
+    ResilientTransport(Transport delegate, TraxionPay.Builder options) {
+        this.delegate = delegate;
+        this.maxRetries = options.maxRetries;
+        this.initialBackoffNanos = options.initialBackoff.toNanos();
+        this.maxBackoffNanos = options.maxBackoff.toNanos();
+        this.failureThreshold = options.failureThreshold;
+        this.openDuration = options.openDuration;
+        this.metrics = options.metrics;
+    }
+
+    @Override
+    public <T> T exchange(String method, String endpoint, @Nullable Header[] headers, @Nullable String json,
+            @Nullable List payload, ResponseReader<T> reader) throws TraxionPayException {
+        return exchange(method, endpoint, null, headers, json, payload, reader);
+    }
+
+    @Override
+    public <T> T exchange(String method, String endpoint, @Nullable String key, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader) throws TraxionPayException {
+        CircuitBreaker breaker = breaker(endpoint);
+        for (int attempt = 0; ; attempt++) {
+            if (breaker != null) breaker.acquire();
+
+            Attempt<T> current = new Attempt<>(reader, isLast(method, attempt), attempt);
+            Throwable error;
+            try {
+                T result = this.delegate.exchange(method, endpoint, key, headers, json, payload, current);
+                record(breaker, current.status, null);
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = e;
+            } catch (Exception e) {
+                error = e;
+            }
+
+            record(breaker, current.status, error);
+            long delay = retryDelay(method, endpoint, attempt, error);
+            if (delay < 0) throw translate(method, endpoint, error);
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw translate(method, endpoint, e);
+            }
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+        return exchangeAsync(method, endpoint, null, headers, json, payload, reader);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable String key,
+            @Nullable Header[] headers, @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attemptAsync(method, endpoint, key, headers, json, payload, reader, 0, result);
+        return result;
+    }
+
+    private <T> void attemptAsync(String method, String endpoint, @Nullable String key, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader, int attempt,
+            CompletableFuture<T> result) {
+        CircuitBreaker breaker = breaker(endpoint);
+        try {
+            if (breaker != null) breaker.acquire();
+        } catch (CircuitOpenException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+
+        Attempt<T> current = new Attempt<>(reader, isLast(method, attempt), attempt);
+        CompletableFuture<T> exchange = this.delegate.exchangeAsync(method, endpoint, key, headers, json, payload,
+            current);
+        exchange.whenComplete((value, failure) -> {
+            Throwable error = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+            record(breaker, current.status, error);
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+
+            long delay = retryDelay(method, endpoint, attempt, error);
+            if (delay < 0) {
+                result.completeExceptionally(translate(method, endpoint, error));
+                return;
+            }
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(
+                () -> attemptAsync(method, endpoint, key, headers, json, payload, reader, attempt + 1, result));
+        });
+    }
+
+    private boolean isLast(String method, int attempt) {
+        return !"GET".equals(method) || attempt >= this.maxRetries;
+    }
+
+    /**
+     * @return nanoseconds to wait before the next attempt, or -1 to give up
+     */
+    private long retryDelay(String method, String endpoint, int attempt, Throwable error) {
+        if (isLast(method, attempt)) return -1;
+
+        long delay = -1;
+        if (error instanceof RetryLater) delay = ((RetryLater) error).delayNanos;
+        if (error instanceof IOException) delay = backoff(attempt);
+        if (delay >= 0 && this.metrics != null) this.metrics.retryScheduled(method, endpoint, attempt + 1, delay);
+        return delay;
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = Math.min(this.maxBackoffNanos, this.initialBackoffNanos << Math.min(attempt, 30));
+        // Equal jitter: at least half the exponential delay, so retries of many callers spread out.
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private void record(@Nullable CircuitBreaker breaker, int status, @Nullable Throwable error) {
+        if (breaker == null) return;
+        if (status >= 500 || (status == 0 && error != null && !(error instanceof CircuitOpenException))) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    @Nullable
+    private CircuitBreaker breaker(String endpoint) {
+        if (this.failureThreshold <= 0) return null;
+        CircuitBreaker breaker = this.breakers.get(endpoint);
+        if (breaker != null) return breaker;
+        return this.breakers.computeIfAbsent(endpoint,
+            key -> new CircuitBreaker(key, this.failureThreshold, this.openDuration));
+    }
+
+    private static TraxionPayException translate(String method, String endpoint, Throwable error) {
+        if (error instanceof TraxionPayException) return (TraxionPayException) error;
+        return new TraxionPayException("HTTP " + method + " " + endpoint + " failed: " + error, error);
+    }
+
+    @Override
+    public CompletableFuture<Integer> preconnect(int connections) {
+        return this.delegate.preconnect(connections);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.delegate.close();
+    }
+
+    /**
+     * Reader for one attempt: remembers the status and, unless this is the last
+     * attempt, turns a retryable response into {@link RetryLater}.
+     */
+    private final class Attempt<T> implements ResponseReader<T> {
+        private final ResponseReader<T> reader;
+        private final boolean last;
+        private final int attempt;
+        volatile int status;
+
+        Attempt(ResponseReader<T> reader, boolean last, int attempt) {
+            this.reader = reader;
+            this.last = last;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public T read(int status, Function<String, String> header, InputStream body) throws Exception {
+            this.status = status;
+            if (!this.last && (status == 429 || status >= 500)) {
+                Duration retryAfter = status == 429 || status == 503
+                    ? ApiException.parseRetryAfter(header.apply("Retry-After")) : null;
+                if (retryAfter == null) throw new RetryLater(backoff(this.attempt));
+                if (retryAfter.toNanos() <= maxBackoffNanos) throw new RetryLater(retryAfter.toNanos());
+            }
+            return this.reader.read(status, header, body);
+        }
+    }
+
+    /** Signals a retryable response; never reaches callers. */
+    private static final class RetryLater extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final long delayNanos;
+
+        RetryLater(long delayNanos) {
+            super(null, null, false, false);
+            this.delayNanos = delayNanos;
+        }
+    }
+}
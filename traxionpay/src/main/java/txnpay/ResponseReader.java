@@ -0,0 +1,141 @@
+package txnpay;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Turns an HTTP response into a result while the body is still a stream.
+ * Transports hand over the entity's `InputStream` and close it afterwards.
+ *
+ * @param <T> result type
+ */
+interface ResponseReader<T> {
+    /**
+     * @param status    HTTP status code
+     * @param header    first value of a response header by case-insensitive name, or null
+     * @param body      response body, empty when there is none
+     * @return T
+     * @throws Exception
+     */
+    T read(int status, Function<String, String> header, InputStream body) throws Exception;
+
+    /**
+     * {@link #json(JsonCodec, boolean)} with {@link Utils#getJsonCodec}, for {@link Utils#request}.
+     *
+     * @param payform   whether the result is the `Location` header rather than the body
+     * @return ResponseReader of JSONObject
+     */
+    static ResponseReader<JSONObject> json(boolean payform) {
+        return json(Utils.getJsonCodec(), payform);
+    }
+
+    /**
+     * Untyped result as returned by the `JSONObject` methods: the payform link under "url",
+     * top-level arrays under "data", anything else as parsed. The status is not checked.
+     *
+     * @param codec
+     * @param payform   whether the result is the `Location` header rather than the body
+     * @return ResponseReader of JSONObject
+     */
+    static ResponseReader<JSONObject> json(JsonCodec codec, boolean payform) {
+        return (status, header, body) -> {
+            if (!payform) return Utils.toResult(codec, utf8(body));
+            String location = header.apply("Location");
+            if (location == null) throw new Exception("HTTP " + status + " without a payform link");
+
+            JSONObject data = new JSONObject();
+            data.put("url", location);
+            return data;
+        };
+    }
+
+    /**
+     * @param codec
+     * @param model creates one instance per object of a top-level array
+     * @return ResponseReader of List
+     */
+    static <T extends ModelReader.Fields> ResponseReader<List<T>> list(JsonCodec codec, Supplier<T> model) {
+        return (status, header, body) -> {
+            checkStatus(codec, status, header, body);
+            return ModelReader.readList(codec, utf8(body), model);
+        };
+    }
+
+    /**
+     * @param codec
+     * @param model creates the instance the top-level object is read into
+     * @return ResponseReader of T
+     */
+    static <T extends ModelReader.Fields> ResponseReader<T> object(JsonCodec codec, Supplier<T> model) {
+        return (status, header, body) -> {
+            checkStatus(codec, status, header, body);
+            return ModelReader.readObject(codec, utf8(body), model);
+        };
+    }
+
+    /**
+     * @param codec reads the error body, if any
+     * @return ResponseReader of the payform link carried by the redirect's `Location` header
+     */
+    static ResponseReader<PayformLink> payformLink(JsonCodec codec) {
+        return (status, header, body) -> {
+            String location = header.apply("Location");
+            if (status / 100 != 3 || location == null) throw error(codec, status, header, body);
+            return new PayformLink(location);
+        };
+    }
+
+    /**
+     * Fails with the API's `detail` message unless the status is 2xx.
+     *
+     * @param codec
+     * @param status
+     * @param header
+     * @param body
+     * @throws ApiException
+     */
+    static void checkStatus(JsonCodec codec, int status, Function<String, String> header, InputStream body)
+            throws ApiException {
+        if (status / 100 != 2) throw error(codec, status, header, body);
+    }
+
+    /**
+     * @param codec
+     * @param status
+     * @param header
+     * @param body
+     * @return ApiException carrying the status, the API's `detail` message and `Retry-After`, if any
+     */
+    static ApiException error(JsonCodec codec, int status, Function<String, String> header, InputStream body) {
+        String detail = null;
+        try {
+            detail = ModelReader.readObject(codec, utf8(body), ErrorDetail::new).detail;
+        } catch (Exception e) {
+            // Not a JSON error body; report the status alone.
+        }
+        return new ApiException(status, detail, ApiException.parseRetryAfter(header.apply("Retry-After")));
+    }
+
+    static Reader utf8(InputStream body) {
+        return new InputStreamReader(body, StandardCharsets.UTF_8);
+    }
+
+    /** Body of an API error: `{"detail": "..."}`. */
+    final class ErrorDetail extends ModelReader.Fields {
+        String detail;
+
+        @Override
+        void set(String key, @Nullable Object value) {
+            if ("detail".equals(key) && value != null) this.detail = value.toString();
+        }
+    }
+}
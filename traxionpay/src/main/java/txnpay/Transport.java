@@ -0,0 +1,166 @@
+package txnpay;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nullable;
+
+import org.apache.http.Header;
+import org.json.simple.JSONObject;
+
+/**
+ * HTTP exchange used by {@link TraxionPay}. Implementations are long-lived and
+ * shared by every call made through one instance.
+ */
+interface Transport extends Closeable {
+    /**
+     * Performs a blocking HTTP request and reads the response while it streams in.
+     *
+     * @param method
+     * @param endpoint
+     * @param headers
+     * @param json
+     * @param payload   form fields
+     * @param reader    turns the response into the result
+     * @return T
+     * @throws Exception when the exchange fails or `reader` rejects the response
+     */
+    <T> T exchange(String method, String endpoint, @Nullable Header[] headers, @Nullable String json,
+            @Nullable List payload, ResponseReader<T> reader) throws Exception;
+
+    /**
+     * Performs a non-blocking HTTP request. The future completes exceptionally when the
+     * exchange fails or `reader` rejects the response.
+     *
+     * @param method
+     * @param endpoint
+     * @param headers
+     * @param json
+     * @param payload
+     * @param reader
+     * @return CompletableFuture of T
+     */
+    <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader);
+
+    /**
+     * {@link #exchange} on behalf of one payment, identified by `key`: the `merchantRefNo` of
+     * a payform or the `reference` of a payout. Decorators that keep per-payment records,
+     * like {@link JournalingTransport}, use it; others pass it on.
+     *
+     * @param method
+     * @param endpoint
+     * @param key       may be null
+     * @param headers
+     * @param json
+     * @param payload
+     * @param reader
+     * @return T
+     * @throws Exception when the exchange fails or `reader` rejects the response
+     */
+    default <T> T exchange(String method, String endpoint, @Nullable String key, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, ResponseReader<T> reader) throws Exception {
+        return exchange(method, endpoint, headers, json, payload, reader);
+    }
+
+    /**
+     * {@link #exchangeAsync} on behalf of the payment identified by `key`, as in the keyed `exchange`.
+     *
+     * @param method
+     * @param endpoint
+     * @param key       may be null
+     * @param headers
+     * @param json
+     * @param payload
+     * @param reader
+     * @return CompletableFuture of T
+     */
+    default <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable String key,
+            @Nullable Header[] headers, @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+        return exchangeAsync(method, endpoint, headers, json, payload, reader);
+    }
+
+    /**
+     * Opens pooled connections ahead of the first calls, so those do not wait for the TCP
+     * and TLS handshakes. Connections that fail to open are logged and not counted.
+     *
+     * @param connections   connections to open, capped by the pool size
+     * @return CompletableFuture of the number of connections open afterwards
+     */
+    CompletableFuture<Integer> preconnect(int connections);
+
+    /**
+     * Performs a blocking HTTP request. Failures are logged and yield an empty result.
+     *
+     * @param method
+     * @param endpoint
+     * @param headers
+     * @param json
+     * @param payload   form fields; when present the `Location` header is returned under "url"
+     * @return JSONObject
+     */
+    default JSONObject request(String method, String endpoint, @Nullable Header[] headers, @Nullable String json,
+            @Nullable List payload) {
+        return request(method, endpoint, null, headers, json, payload, Utils.getJsonCodec());
+    }
+
+    /**
+     * {@link #request} on behalf of the payment identified by `key`, as in the keyed `exchange`.
+     *
+     * @param method
+     * @param endpoint
+     * @param key       may be null
+     * @param headers
+     * @param json
+     * @param payload
+     * @param codec     parses the response
+     * @return JSONObject
+     */
+    default JSONObject request(String method, String endpoint, @Nullable String key, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload, JsonCodec codec) {
+        JSONObject data = new JSONObject();
+        try {
+            data = exchange(method, endpoint, key, headers, json, payload, ResponseReader.json(codec, payload != null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.warn("HTTP " + method + " " + endpoint + " failed", e);
+        } catch (Exception e) {
+            Log.warn("HTTP " + method + " " + endpoint + " failed", e);
+        }
+        return data;
+    }
+
+    /**
+     * Performs a non-blocking HTTP request.
+     *
+     * @param method
+     * @param endpoint
+     * @param headers
+     * @param json
+     * @param payload
+     * @return CompletableFuture of JSONObject
+     */
+    default CompletableFuture<JSONObject> requestAsync(String method, String endpoint, @Nullable Header[] headers,
+            @Nullable String json, @Nullable List payload) {
+        return requestAsync(method, endpoint, null, headers, json, payload, Utils.getJsonCodec());
+    }
+
+    /**
+     * {@link #requestAsync} on behalf of the payment identified by `key`, as in the keyed `exchange`.
+     *
+     * @param method
+     * @param endpoint
+     * @param key       may be null
+     * @param headers
+     * @param json
+     * @param payload
+     * @param codec     parses the response
+     * @return CompletableFuture of JSONObject
+     */
+    default CompletableFuture<JSONObject> requestAsync(String method, String endpoint, @Nullable String key,
+            @Nullable Header[] headers, @Nullable String json, @Nullable List payload, JsonCodec codec) {
+        return exchangeAsync(method, endpoint, key, headers, json, payload,
+            ResponseReader.json(codec, payload != null));
+    }
+}
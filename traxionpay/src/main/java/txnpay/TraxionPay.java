@@ -1,107 +1,427 @@
 package txnpay;
 
-import org.json.simple.JSONObject;
-
-import org.apache.commons.text.StringEscapeUtils;
-import org.apache.http.message.BasicHeader;
-import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.NameValuePair;
-
-import javax.annotation.Nullable;
-
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import org.apache.http.Header;
+import org.apache.http.NameValuePair;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicNameValuePair;
+import org.json.simple.JSONObject;
 
-public final class TraxionPay {
+/**
+ * Client of the TraxionPay API. Create one with {@link #builder()} and share it across threads.
+ */
+public final class TraxionPay implements AutoCloseable {
     private String token;
     private String apiKey;
     private String secretKey;
-    private BasicHeader authHeaders;
+    private Header[] authHeaders;
+    private final HmacSigner signer;
+    private final String authHash;
+    private final String baseUrl;
+    private final PayformEncoder payformEncoder = new PayformEncoder();
+    private final String payformUrl;
+    private final double payformVerifyRate;
+    @Nullable private final TraxionPayMetrics metrics;
+    private final JsonCodec jsonCodec;
+    private final RateLimitedTransport transport;
+    private final RateLimitedTransport bulkTransport;
+    /** Bulk view that bypasses the journal, for `verifyPayformUrls`. */
+    private final RateLimitedTransport verifyTransport;
+    @Nullable private final RefreshingCache<JSONObject> banksCache;
+    @Nullable private final RefreshingCache<JSONObject> bankAccountsCache;
+    @Nullable private final RefreshingCache<List<Bank>> bankListCache;
+    @Nullable private final RefreshingCache<List<BankAccount>> bankAccountListCache;
+    private final ConditionalGet<JSONObject> banks;
+    private final ConditionalGet<JSONObject> bankAccounts;
+    private final ConditionalGet<List<Bank>> bankList;
+    private final ConditionalGet<List<BankAccount>> bankAccountList;
+    private final IdempotencyRegistry<JSONObject> cashIns;
+    private final IdempotencyRegistry<PayformLink> payformLinks;
+    private final IdempotencyRegistry<JSONObject> cashOuts;
+    private final IdempotencyRegistry<PayoutResult> payouts;
 
     /**
      * Core object for using TraxionPay's `cashIn` and `cashOut` functionalities.
      * See full documentation at <https://dev.traxionpay.com/developers-guide>.
-     * 
+     *
      * @param apiKey
      * @param secretKey
      * @throws Exception
      */
     public TraxionPay(String apiKey, String secretKey) throws Exception {
-        if (!apiKey.isBlank() && !secretKey.isBlank()) {
-            this.token = Utils.generateToken(secretKey);
-            this.secretKey = secretKey;
-            this.apiKey = apiKey;
-            this.authHeaders = new BasicHeader("Authorization", "Basic " + token);
+        this(builder().apiKey(apiKey).secretKey(secretKey));
+    }
+
+    private TraxionPay(Builder options) throws Exception {
+        // Snapshot the settings so later changes to a shared builder cannot leak into this instance.
+        Builder builder = options.copy();
+        String key = builder.apiKey;
+        String secret = builder.secretKey;
+        if (key != null && secret != null && !key.isBlank() && !secret.isBlank()) {
+            this.token = Utils.generateToken(secret);
+            this.secretKey = secret;
+            this.apiKey = key;
+            this.authHeaders = new Header[] {new BasicHeader("Authorization", "Basic " + token)};
+            this.signer = new HmacSigner(secret);
+            this.authHash = this.signer.sign(key);
+            this.baseUrl = builder.baseUrl != null ? builder.baseUrl : Utils.getBaseUrl();
+            Transport http = builder.virtualThreads || builder.http2
+                ? new JdkHttpTransport(this.baseUrl, builder)
+                : new ApacheHttpTransport(this.baseUrl, builder);
+            this.metrics = builder.metrics;
+            this.payformUrl = builder.payformUrl;
+            this.payformVerifyRate = builder.payformVerifyRate;
+            JsonCodec codec = builder.jsonCodec != null ? builder.jsonCodec : Utils.discoveredJsonCodec();
+            this.jsonCodec = codec;
+            this.banks = new ConditionalGet<>("/banks/", ResponseReader.json(codec, false), TraxionPay::isList);
+            this.bankAccounts = new ConditionalGet<>("/payout/bank-account/", ResponseReader.json(codec, false),
+                TraxionPay::isList);
+            this.bankList = new ConditionalGet<>("/banks/", ResponseReader.list(codec, Bank::new), list -> true);
+            this.bankAccountList = new ConditionalGet<>("/payout/bank-account/",
+                ResponseReader.list(codec, BankAccount::new), accounts -> true);
+            Transport instrumented = InstrumentedTransport.wrap(http, builder.metrics);
+            Transport journaled = JournalingTransport.wrap(instrumented, builder.journal, builder.virtualThreads);
+            this.transport = new RateLimitedTransport(new ResilientTransport(journaled, builder), builder);
+            this.bulkTransport = this.transport.bulk();
+            // Verification creates a payform nobody will pay, which recovery must not see as a payment.
+            this.verifyTransport = journaled != instrumented
+                ? this.transport.bulk(new ResilientTransport(instrumented, builder)) : this.bulkTransport;
+            if (builder.cacheTtl != null) {
+                this.banksCache = new RefreshingCache<>(builder.cacheTtl,
+                    () -> this.banks.getAsync(this.transport, null), TraxionPay::isList);
+                this.bankAccountsCache = new RefreshingCache<>(builder.cacheTtl,
+                    () -> this.bankAccounts.getAsync(this.transport, this.authHeaders), TraxionPay::isList);
+                this.bankListCache = new RefreshingCache<>(builder.cacheTtl, this::fetchBankList, list -> true);
+                this.bankAccountListCache = new RefreshingCache<>(builder.cacheTtl, this::fetchBankAccountList,
+                    accounts -> true);
+            } else {
+                this.banksCache = null;
+                this.bankAccountsCache = null;
+                this.bankListCache = null;
+                this.bankAccountListCache = null;
+            }
+            this.cashIns = new IdempotencyRegistry<>(builder.idempotencyWindow, builder.idempotencyMaxEntries);
+            this.payformLinks = new IdempotencyRegistry<>(builder.idempotencyWindow, builder.idempotencyMaxEntries);
+            this.cashOuts = new IdempotencyRegistry<>(builder.idempotencyWindow, builder.idempotencyMaxEntries);
+            this.payouts = new IdempotencyRegistry<>(builder.idempotencyWindow, builder.idempotencyMaxEntries);
         } else {
             throw new Exception("'apiKey' and 'secretKey' must not be null");
         }
     }
 
+    /**
+     * Starts configuring a `TraxionPay` instance and its connection pool.
+     *
+     * @return Builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Does the one-time work of the first calls before any traffic, e.g. before a new worker
+     * reports ready: loads and initializes the signing, payform encoding and response parsing
+     * code, resolves the API host, and opens up to `connections` pooled connections including
+     * their TLS handshakes. No request is sent, except with the JDK client of
+     * {@link Builder#http2()} and {@link Builder#virtualThreads()}: it only connects to send
+     * one, so each connection fetches `/banks/`, and over HTTP/2 a single connection is opened.
+     *
+     * @param connections   connections to open, e.g. the calls expected at once; capped by the pool size
+     * @return number of pooled connections open afterwards
+     * @throws TraxionPayException when the API host cannot be resolved
+     */
+    public int warmUp(int connections) throws TraxionPayException {
+        if (connections < 0) {
+            throw new IllegalArgumentException("'connections' must not be negative");
+        }
+        prime();
+        WarmUp.resolve(this.baseUrl);
+        return join(this.transport.preconnect(connections));
+    }
+
+    /**
+     * Non-blocking variant of {@link #warmUp}, e.g. to warm up while the application starts.
+     *
+     * @param connections
+     * @return CompletableFuture of the number of pooled connections open afterwards
+     */
+    public CompletableFuture<Integer> warmUpAsync(int connections) {
+        if (connections < 0) {
+            throw new IllegalArgumentException("'connections' must not be negative");
+        }
+        return CompletableFuture.runAsync(() -> {
+            try {
+                prime();
+                WarmUp.resolve(this.baseUrl);
+            } catch (TraxionPayException e) {
+                throw new CompletionException(e);
+            }
+        }, WarmUp.THREADS).thenCompose(ignored -> this.transport.preconnect(connections));
+    }
+
+    /** Signs and encodes a payform and reads a sample of every response type, without reporting metrics. */
+    @SuppressWarnings("checkstyle:illegalcatch")
+    private void prime() throws TraxionPayException {
+        CashInData cashIn = new CashInData(0, "warm-up", "{\"warm_up\":true}", 1.0, "Warm-up",
+            "https://localhost/", "https://localhost/", "https://localhost/", "https://localhost/",
+            "https://localhost/", null, null);
+        try {
+            String secureHash = this.signer.sign(cashIn.merchantRefNo + cashIn.amount + cashIn.currency
+                + cashIn.description);
+            this.payformEncoder.encode(new PayformData(cashIn, Utils.encodeAdditionalData(
+                cashIn.merchantAdditionalData), null, secureHash, this.authHash, "HS256"));
+            WarmUp.codecs(this.jsonCodec);
+        } catch (Exception e) {
+            throw new TraxionPayException("Warm-up failed: " + e, e);
+        }
+    }
+
     /**
      * Cash In enables merchants to receive money through the application.
      * Through this feature, merchants receive payments and store it in their in-app wallet.
      *
      * https://devapi.traxionpay.com/payform-link
-     * 
+     *
+     * `merchantRefNo` is the idempotency key: a call for a reference that is already
+     * in flight, or succeeded within the idempotency window, shares that result.
+     *
      * @param cashIn
      * @param billing
      * @return JSONObject
      */
     public JSONObject cashIn(CashInData cashIn, @Nullable BillingDetailsData billing) {
-        String dataToHash = cashIn.merchantRefNo + cashIn.amount + Utils.getValidData(cashIn.currency, "PHP") + cashIn.description;
-        String secureHash = Utils.hmacSha256Digest(dataToHash, this.secretKey);
-        String authHash = Utils.hmacSha256Digest(this.apiKey, this.secretKey);
+        if (cashIn.merchantRefNo == null) {
+            return this.transport.request("POST", "/payform-link", null, null, null, payformPayload(cashIn, billing),
+                this.jsonCodec);
+        }
+        return joinUnchecked(this.cashIns.execute(cashIn.merchantRefNo,
+            () -> CompletableFuture.completedFuture(this.transport.request("POST", "/payform-link",
+                cashIn.merchantRefNo, idempotencyKey(null, cashIn.merchantRefNo), null,
+                payformPayload(cashIn, billing), this.jsonCodec)),
+            TraxionPay::hasUrl));
+    }
+
+    /**
+     * Non-blocking variant of {@link #cashIn}.
+     *
+     * @param cashIn
+     * @param billing
+     * @return CompletableFuture of JSONObject
+     */
+    public CompletableFuture<JSONObject> cashInAsync(CashInData cashIn, @Nullable BillingDetailsData billing) {
+        if (cashIn.merchantRefNo == null) {
+            return this.transport.requestAsync("POST", "/payform-link", null, null, null,
+                payformPayload(cashIn, billing), this.jsonCodec);
+        }
+        return this.cashIns.execute(cashIn.merchantRefNo,
+            () -> this.transport.requestAsync("POST", "/payform-link", cashIn.merchantRefNo,
+                idempotencyKey(null, cashIn.merchantRefNo), null, payformPayload(cashIn, billing), this.jsonCodec),
+            TraxionPay::hasUrl);
+    }
+
+    /**
+     * Creates many payform links at once. Hashing and encoding run on the common
+     * fork-join pool, and at most `concurrency` requests are in flight on the
+     * non-blocking connection pool. Each result is passed to `results` as soon as
+     * it completes, one at a time, and carries the item's `merchantRefNo`.
+     * A failed item is reported as such and does not stop the others. As in `cashIn`,
+     * `merchantRefNo` is the idempotency key: an item repeating one that is in flight,
+     * or succeeded within the idempotency window, shares that result.
+     *
+     * @param items
+     * @param billing       shared by every item, may be null
+     * @param concurrency   upper bound of requests in flight, e.g. `maxConnectionsPerRoute`
+     * @param results       receives one {@link CashInResult} per item, in completion order
+     * @return CompletableFuture completing once every item has been reported
+     */
+    public CompletableFuture<Void> cashInBatch(List<CashInData> items, @Nullable BillingDetailsData billing,
+            int concurrency, Consumer<CashInResult> results) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("'concurrency' must be at least 1");
+        }
+        return new CashInBatch(new ArrayList<>(items), cashIn -> payformPayload(cashIn, billing),
+            this::batchCashIn, ForkJoinPool.commonPool(), results).start(concurrency);
+    }
+
+    /**
+     * Pays out many orders at once, e.g. a nightly settlement. Each payout is chained to its
+     * own OTP, and OTPs are fetched ahead of demand, at most `concurrency` of them, so the
+     * OTP round trip overlaps with earlier payouts instead of adding to each one. An OTP older
+     * than `otpValidity` when its payout is ready is replaced with a fresh one.
+     *
+     * At most `concurrency` payouts are in flight, on the same queue as `cashInBatch`, so
+     * other calls go first. Each order's `reference` is its idempotency key. An order the API
+     * rejects for its OTP is retried once with a new OTP; other failures are reported and do
+     * not stop the rest.
+     *
+     * @param orders
+     * @param concurrency   upper bound of payouts in flight, and of OTPs fetched ahead
+     * @param otpValidity   how long an OTP may be used after it was requested
+     * @param results       receives one {@link PayoutOutcome} per order, in completion order
+     * @return PayoutRun tracking each order, with a summary report once done
+     */
+    public PayoutRun cashOutBatch(List<PayoutOrder> orders, int concurrency, Duration otpValidity,
+            Consumer<PayoutOutcome> results) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("'concurrency' must be at least 1");
+        }
+        OtpPrefetcher otps = new OtpPrefetcher(() -> this.bulkTransport.exchangeAsync("POST",
+            "/payout/bank-payout/get-otp/", this.authHeaders, null, null,
+            ResponseReader.object(this.jsonCodec, OtpResponse::new)),
+            otpValidity, concurrency, orders.size());
+        return new PayoutRun(new ArrayList<>(orders), otps,
+            (params, reference) -> payoutAsync(this.bulkTransport, params, reference), ForkJoinPool.commonPool(),
+            results).start(concurrency);
+    }
 
-        cashIn.merchantAdditionalData = Utils.encodeAdditionalData(cashIn.merchantAdditionalData);
+    private CompletableFuture<JSONObject> batchCashIn(CashInData cashIn, List<NameValuePair> payload) {
+        if (cashIn.merchantRefNo == null) {
+            return this.bulkTransport.requestAsync("POST", "/payform-link", null, null, null, payload, this.jsonCodec);
+        }
+        return this.cashIns.execute(cashIn.merchantRefNo,
+            () -> this.bulkTransport.requestAsync("POST", "/payform-link", cashIn.merchantRefNo,
+                idempotencyKey(null, cashIn.merchantRefNo), null, payload, this.jsonCodec),
+            TraxionPay::hasUrl);
+    }
 
-        PayformData rawPayform = new PayformData(cashIn, billing, secureHash, authHash, "HS256");
-        byte[] encoded = Base64.getEncoder().encode(StringEscapeUtils.unescapeJava(rawPayform.toJSON()).getBytes());
-        String decoded = new String(encoded);
+    List<NameValuePair> payformPayload(CashInData cashIn, @Nullable BillingDetailsData billing) {
+        return formPayload(payformData(cashIn, billing));
+    }
 
+    private static List<NameValuePair> formPayload(String formData) {
         List<NameValuePair> payload = new ArrayList<NameValuePair>();
-        payload.add(new BasicNameValuePair("form_data", decoded));
+        payload.add(new BasicNameValuePair("form_data", formData));
+        return payload;
+    }
 
-        JSONObject data = Utils.request("POST", "/payform-link", null, null, payload);
-        return data;
+    /**
+     * @return signed and Base64 encoded payform
+     */
+    private String payformData(CashInData cashIn, @Nullable BillingDetailsData billing) {
+        long start = this.metrics != null ? System.nanoTime() : 0;
+        String dataToHash = cashIn.merchantRefNo + cashIn.amount + Utils.getValidData(cashIn.currency, "PHP")
+            + cashIn.description;
+        String secureHash = this.signer.sign(dataToHash);
+        long signed = this.metrics != null ? System.nanoTime() : 0;
+
+        String additionalData = Utils.encodeAdditionalData(cashIn.merchantAdditionalData);
+
+        PayformData rawPayform = new PayformData(cashIn, additionalData, billing, secureHash, this.authHash, "HS256");
+        String decoded = this.payformEncoder.encode(rawPayform);
+        if (this.metrics != null) {
+            this.metrics.payformBuilt(signed - start, System.nanoTime() - signed);
+        }
+        return decoded;
     }
 
     /**
-     * Retrieves a list of usable banks.
+     * Retrieves a list of usable banks. Once loaded, the list is revalidated with
+     * `If-None-Match`/`If-Modified-Since`; when unchanged, the same, shared object is returned.
      *
      * https://devapi.traxionpay.com/banks/
      * @return JSONObject
      */
     public JSONObject fetchBanks() {
-        JSONObject data = Utils.request("GET", "/banks/", null, null, null);
-        return data;
+        if (this.banksCache != null) {
+            return await(this.banksCache.get());
+        }
+        return revalidate(this.banks, null);
     }
 
     /**
-     * Retrieves a list of usable bank accounts.
+     * Non-blocking variant of {@link #fetchBanks}.
+     *
+     * @return CompletableFuture of JSONObject
+     */
+    public CompletableFuture<JSONObject> fetchBanksAsync() {
+        if (this.banksCache != null) {
+            return this.banksCache.get();
+        }
+        return this.banks.getAsync(this.transport, null);
+    }
+
+    /**
+     * Retrieves a list of usable bank accounts, revalidated like {@link #fetchBanks}.
      *
      * https://devapi.traxionpay.com/payout/bank-account/
      * @return JSONObject
      */
     public JSONObject fetchBankAccounts() {
-        JSONObject data = Utils.request("GET", "/payout/bank-account/", this.authHeaders, null, null);
-        return data;
+        if (this.bankAccountsCache != null) {
+            return await(this.bankAccountsCache.get());
+        }
+        return revalidate(this.bankAccounts, this.authHeaders);
+    }
+
+    /**
+     * Non-blocking variant of {@link #fetchBankAccounts}.
+     *
+     * @return CompletableFuture of JSONObject
+     */
+    public CompletableFuture<JSONObject> fetchBankAccountsAsync() {
+        if (this.bankAccountsCache != null) {
+            return this.bankAccountsCache.get();
+        }
+        return this.bankAccounts.getAsync(this.transport, this.authHeaders);
     }
 
     /**
      * Links or creates a new bank account.
      *
      * https://devapi.traxionpay.com/payout/bank-account/
-     * 
+     *
      * @param params
      * @return JSONObject
      */
     public JSONObject linkBankAccount(LinkBankAccountData params) {
-        String json = params.toJSON();
-        JSONObject data = Utils.request("POST", "/payout/bank-account/", this.authHeaders, json, null);
+        String json = params.toJSON(this.jsonCodec);
+        JSONObject data = this.transport.request("POST", "/payout/bank-account/", null, this.authHeaders, json, null,
+            this.jsonCodec);
+        return linked(data);
+    }
+
+    /**
+     * Non-blocking variant of {@link #linkBankAccount}.
+     *
+     * @param params
+     * @return CompletableFuture of JSONObject
+     */
+    public CompletableFuture<JSONObject> linkBankAccountAsync(LinkBankAccountData params) {
+        return this.transport.requestAsync("POST", "/payout/bank-account/", null, this.authHeaders,
+            params.toJSON(this.jsonCodec), null, this.jsonCodec).thenApply(this::linked);
+    }
+
+    private JSONObject linked(JSONObject data) {
+        if (data.containsKey("id")) {
+            invalidateBankAccounts();
+        }
         return data;
     }
 
+    private void invalidateBankAccounts() {
+        this.bankAccounts.reset();
+        this.bankAccountList.reset();
+        if (this.bankAccountsCache != null) {
+            this.bankAccountsCache.invalidate();
+        }
+        if (this.bankAccountListCache != null) {
+            this.bankAccountListCache.invalidate();
+        }
+    }
+
     /**
      * Retrieves otp for `cashOut` method.
      *
@@ -109,10 +429,21 @@ public final class TraxionPay {
      * @return JSONObject
      */
     public JSONObject fetchOTP() {
-        JSONObject data = Utils.request("POST", "/payout/bank-payout/get-otp/", this.authHeaders, null, null);
+        JSONObject data = this.transport.request("POST", "/payout/bank-payout/get-otp/", null, this.authHeaders, null,
+            null, this.jsonCodec);
         return data;
     }
 
+    /**
+     * Non-blocking variant of {@link #fetchOTP}.
+     *
+     * @return CompletableFuture of JSONObject
+     */
+    public CompletableFuture<JSONObject> fetchOTPAsync() {
+        return this.transport.requestAsync("POST", "/payout/bank-payout/get-otp/", null, this.authHeaders, null, null,
+            this.jsonCodec);
+    }
+
     /**
      * The Cash Out feature allows merchants to physically retrieve the money stored in the in-app wallet.
      * To Cash Out, the merchant links a bank accout,
@@ -123,8 +454,713 @@ public final class TraxionPay {
      * @return JSONObject
      */
     public JSONObject cashOut(CashOutData params) {
-        String json = params.toJSON();
-        JSONObject data = Utils.request("POST", "/payout/bank-payout/", this.authHeaders, json, null);
+        String json = params.toJSON(this.jsonCodec);
+        JSONObject data = this.transport.request("POST", "/payout/bank-payout/", null, this.authHeaders, json, null,
+            this.jsonCodec);
         return data;
     }
-}
\ No newline at end of file
+
+    /**
+     * {@link #cashOut} with an idempotency key, sent as the `Idempotency-Key` header.
+     * A call whose key is already in flight, or succeeded within the idempotency window,
+     * shares that result instead of requesting another payout. Failed calls are not
+     * remembered, so a payout that timed out can be retried with the same key.
+     *
+     * @param params
+     * @param idempotencyKey    unique per intended payout, e.g. a withdrawal request id
+     * @return JSONObject
+     */
+    public JSONObject cashOut(CashOutData params, String idempotencyKey) {
+        return joinUnchecked(this.cashOuts.execute(idempotencyKey,
+            () -> CompletableFuture.completedFuture(this.transport.request("POST", "/payout/bank-payout/",
+                idempotencyKey, idempotencyKey(this.authHeaders, idempotencyKey), params.toJSON(this.jsonCodec), null,
+                this.jsonCodec)),
+            data -> data.containsKey("id")));
+    }
+
+    /**
+     * Non-blocking variant of {@link #cashOut}.
+     *
+     * @param params
+     * @return CompletableFuture of JSONObject
+     */
+    public CompletableFuture<JSONObject> cashOutAsync(CashOutData params) {
+        return this.transport.requestAsync("POST", "/payout/bank-payout/", null, this.authHeaders,
+            params.toJSON(this.jsonCodec), null, this.jsonCodec);
+    }
+
+    /**
+     * Non-blocking variant of {@link #cashOut(CashOutData, String)}.
+     *
+     * @param params
+     * @param idempotencyKey
+     * @return CompletableFuture of JSONObject
+     */
+    public CompletableFuture<JSONObject> cashOutAsync(CashOutData params, String idempotencyKey) {
+        return this.cashOuts.execute(idempotencyKey,
+            () -> this.transport.requestAsync("POST", "/payout/bank-payout/", idempotencyKey,
+                idempotencyKey(this.authHeaders, idempotencyKey), params.toJSON(this.jsonCodec), null, this.jsonCodec),
+            data -> data.containsKey("id"));
+    }
+
+    /**
+     * Typed variant of {@link #cashIn}. The payform link is read from the response
+     * without building a `JSONObject`. Duplicates are shared by `merchantRefNo`, as in `cashIn`.
+     *
+     * @param cashIn
+     * @param billing
+     * @return PayformLink
+     * @throws TraxionPayException when the API rejects the payform or the exchange fails
+     */
+    public PayformLink createPayformLink(CashInData cashIn, @Nullable BillingDetailsData billing)
+            throws TraxionPayException {
+        if (cashIn.merchantRefNo == null) {
+            return this.transport.exchange("POST", "/payform-link", null, null, payformPayload(cashIn, billing),
+                ResponseReader.payformLink(this.jsonCodec));
+        }
+        return join(this.payformLinks.execute(cashIn.merchantRefNo,
+            () -> now(() -> this.transport.exchange("POST", "/payform-link", cashIn.merchantRefNo,
+                idempotencyKey(null, cashIn.merchantRefNo), null, payformPayload(cashIn, billing),
+                ResponseReader.payformLink(this.jsonCodec))),
+            link -> true));
+    }
+
+    /**
+     * Non-blocking variant of {@link #createPayformLink}.
+     *
+     * @param cashIn
+     * @param billing
+     * @return CompletableFuture of PayformLink
+     */
+    public CompletableFuture<PayformLink> createPayformLinkAsync(CashInData cashIn,
+            @Nullable BillingDetailsData billing) {
+        if (cashIn.merchantRefNo == null) {
+            return this.transport.exchangeAsync("POST", "/payform-link", null, null, payformPayload(cashIn, billing),
+                ResponseReader.payformLink(this.jsonCodec));
+        }
+        return this.payformLinks.execute(cashIn.merchantRefNo,
+            () -> this.transport.exchangeAsync("POST", "/payform-link", cashIn.merchantRefNo,
+                idempotencyKey(null, cashIn.merchantRefNo), null, payformPayload(cashIn, billing),
+                ResponseReader.payformLink(this.jsonCodec)),
+            link -> true);
+    }
+
+    /**
+     * Builds the payform link locally, without calling `/payform-link`: the link is the
+     * hosted payment page set by `Builder.payformUrl` followed by the same signed and
+     * encoded `form_data` that `cashIn` would send. Saves a round trip per checkout.
+     *
+     * The link format is what the API returns today rather than a documented contract,
+     * so `Builder.verifyPayformUrls` can compare a sample of links with the API's in the
+     * background, sent with the `merchantRefNo` as idempotency key and left out of the
+     * journal. Results are reported to the metrics receivers.
+     *
+     * @param cashIn
+     * @param billing
+     * @return PayformLink
+     */
+    public PayformLink buildPayformUrl(CashInData cashIn, @Nullable BillingDetailsData billing) {
+        String formData = payformData(cashIn, billing);
+        String url = this.payformUrl + formData;
+        if (this.payformVerifyRate > 0 && ThreadLocalRandom.current().nextDouble() < this.payformVerifyRate) {
+            verifyPayformUrl(cashIn.merchantRefNo, formData, url);
+        }
+        return new PayformLink(url);
+    }
+
+    private void verifyPayformUrl(@Nullable String merchantRefNo, String formData, String url) {
+        Header[] headers = merchantRefNo != null ? idempotencyKey(null, merchantRefNo) : null;
+        this.verifyTransport.exchangeAsync("POST", "/payform-link", headers, null, formPayload(formData),
+            ResponseReader.payformLink(this.jsonCodec)).whenComplete((link, error) -> {
+                // A failed exchange is already reported through `requestCompleted`.
+                if (error == null && this.metrics != null) {
+                    this.metrics.payformUrlVerified(url.equals(link.getUrl()));
+                }
+            });
+    }
+
+    /**
+     * Typed variant of {@link #fetchBanks}. Banks are parsed as the body streams in.
+     *
+     * @return unmodifiable List of Bank
+     * @throws TraxionPayException when the API returns an error or the exchange fails
+     */
+    public List<Bank> listBanks() throws TraxionPayException {
+        if (this.bankListCache != null) {
+            return join(this.bankListCache.get());
+        }
+        return this.bankList.get(this.transport, null);
+    }
+
+    /**
+     * Non-blocking variant of {@link #listBanks}.
+     *
+     * @return CompletableFuture of List of Bank
+     */
+    public CompletableFuture<List<Bank>> listBanksAsync() {
+        if (this.bankListCache != null) {
+            return this.bankListCache.get();
+        }
+        return fetchBankList();
+    }
+
+    private CompletableFuture<List<Bank>> fetchBankList() {
+        return this.bankList.getAsync(this.transport, null);
+    }
+
+    /**
+     * Typed variant of {@link #fetchBankAccounts}.
+     *
+     * @return unmodifiable List of BankAccount
+     * @throws TraxionPayException when the API returns an error or the exchange fails
+     */
+    public List<BankAccount> listBankAccounts() throws TraxionPayException {
+        if (this.bankAccountListCache != null) {
+            return join(this.bankAccountListCache.get());
+        }
+        return this.bankAccountList.get(this.transport, this.authHeaders);
+    }
+
+    /**
+     * Non-blocking variant of {@link #listBankAccounts}.
+     *
+     * @return CompletableFuture of List of BankAccount
+     */
+    public CompletableFuture<List<BankAccount>> listBankAccountsAsync() {
+        if (this.bankAccountListCache != null) {
+            return this.bankAccountListCache.get();
+        }
+        return fetchBankAccountList();
+    }
+
+    private CompletableFuture<List<BankAccount>> fetchBankAccountList() {
+        return this.bankAccountList.getAsync(this.transport, this.authHeaders);
+    }
+
+    /**
+     * Typed variant of {@link #linkBankAccount}.
+     *
+     * @param params
+     * @return BankAccount
+     * @throws TraxionPayException when the API rejects the account or the exchange fails
+     */
+    public BankAccount createBankAccount(LinkBankAccountData params) throws TraxionPayException {
+        BankAccount account = this.transport.exchange("POST", "/payout/bank-account/", this.authHeaders,
+            params.toJSON(this.jsonCodec), null, ResponseReader.object(this.jsonCodec, BankAccount::new));
+        invalidateBankAccounts();
+        return account;
+    }
+
+    /**
+     * Non-blocking variant of {@link #createBankAccount}.
+     *
+     * @param params
+     * @return CompletableFuture of BankAccount
+     */
+    public CompletableFuture<BankAccount> createBankAccountAsync(LinkBankAccountData params) {
+        return this.transport.exchangeAsync("POST", "/payout/bank-account/", this.authHeaders,
+            params.toJSON(this.jsonCodec), null, ResponseReader.object(this.jsonCodec, BankAccount::new))
+            .thenApply(account -> {
+                invalidateBankAccounts();
+                return account;
+            });
+    }
+
+    /**
+     * Typed variant of {@link #fetchOTP}.
+     *
+     * @return OtpResponse
+     * @throws TraxionPayException when the API returns an error or the exchange fails
+     */
+    public OtpResponse requestOTP() throws TraxionPayException {
+        return this.transport.exchange("POST", "/payout/bank-payout/get-otp/", this.authHeaders, null, null,
+            ResponseReader.object(this.jsonCodec, OtpResponse::new));
+    }
+
+    /**
+     * Non-blocking variant of {@link #requestOTP}.
+     *
+     * @return CompletableFuture of OtpResponse
+     */
+    public CompletableFuture<OtpResponse> requestOTPAsync() {
+        return this.transport.exchangeAsync("POST", "/payout/bank-payout/get-otp/", this.authHeaders, null, null,
+            ResponseReader.object(this.jsonCodec, OtpResponse::new));
+    }
+
+    /**
+     * Typed variant of {@link #cashOut}.
+     *
+     * @param params
+     * @return PayoutResult
+     * @throws TraxionPayException when the API rejects the payout, e.g. for an invalid OTP, or the exchange fails
+     */
+    public PayoutResult requestPayout(CashOutData params) throws TraxionPayException {
+        return this.transport.exchange("POST", "/payout/bank-payout/", this.authHeaders, params.toJSON(this.jsonCodec),
+            null, ResponseReader.object(this.jsonCodec, PayoutResult::new));
+    }
+
+    /**
+     * Typed variant of {@link #cashOut(CashOutData, String)}.
+     *
+     * @param params
+     * @param idempotencyKey    unique per intended payout
+     * @return PayoutResult
+     * @throws TraxionPayException when the API rejects the payout or the exchange fails
+     */
+    public PayoutResult requestPayout(CashOutData params, String idempotencyKey) throws TraxionPayException {
+        return join(this.payouts.execute(idempotencyKey,
+            () -> now(() -> this.transport.exchange("POST", "/payout/bank-payout/", idempotencyKey,
+                idempotencyKey(this.authHeaders, idempotencyKey), params.toJSON(this.jsonCodec), null,
+                ResponseReader.object(this.jsonCodec, PayoutResult::new))),
+            payout -> true));
+    }
+
+    /**
+     * Non-blocking variant of {@link #requestPayout}.
+     *
+     * @param params
+     * @return CompletableFuture of PayoutResult
+     */
+    public CompletableFuture<PayoutResult> requestPayoutAsync(CashOutData params) {
+        return this.transport.exchangeAsync("POST", "/payout/bank-payout/", this.authHeaders,
+            params.toJSON(this.jsonCodec), null, ResponseReader.object(this.jsonCodec, PayoutResult::new));
+    }
+
+    /**
+     * Non-blocking variant of {@link #requestPayout(CashOutData, String)}.
+     *
+     * @param params
+     * @param idempotencyKey
+     * @return CompletableFuture of PayoutResult
+     */
+    public CompletableFuture<PayoutResult> requestPayoutAsync(CashOutData params, String idempotencyKey) {
+        return payoutAsync(this.transport, params, idempotencyKey);
+    }
+
+    private CompletableFuture<PayoutResult> payoutAsync(RateLimitedTransport via, CashOutData params,
+            String idempotencyKey) {
+        return this.payouts.execute(idempotencyKey,
+            () -> via.exchangeAsync("POST", "/payout/bank-payout/", idempotencyKey,
+                idempotencyKey(this.authHeaders, idempotencyKey), params.toJSON(this.jsonCodec), null,
+                ResponseReader.object(this.jsonCodec, PayoutResult::new)),
+            payout -> true);
+    }
+
+    private static Header[] idempotencyKey(@Nullable Header[] headers, String key) {
+        Header idempotencyKey = new BasicHeader("Idempotency-Key", key);
+        if (headers == null) {
+            return new Header[] {idempotencyKey};
+        }
+
+        Header[] withKey = Arrays.copyOf(headers, headers.length + 1);
+        withKey[headers.length] = idempotencyKey;
+        return withKey;
+    }
+
+    private static boolean hasUrl(JSONObject data) {
+        return data.containsKey("url");
+    }
+
+    /** Runs a blocking call on the caller's thread, as a future for {@link IdempotencyRegistry}. */
+    @SuppressWarnings("checkstyle:illegalcatch")
+    private static <T> CompletableFuture<T> now(Callable<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(call.call());
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static boolean isList(JSONObject data) {
+        return data.get("data") instanceof List;
+    }
+
+    /** {@link ConditionalGet} with the failure handling of {@link Transport#request}. */
+    private JSONObject revalidate(ConditionalGet<JSONObject> get, @Nullable Header[] headers) {
+        try {
+            return get.get(this.transport, headers);
+        } catch (TraxionPayException e) {
+            Log.warn("HTTP GET failed", e);
+            return new JSONObject();
+        }
+    }
+
+    private static JSONObject await(CompletableFuture<JSONObject> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Log.warn("HTTP GET failed", e.getCause());
+            return new JSONObject();
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws TraxionPayException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TraxionPayException) {
+                throw (TraxionPayException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new TraxionPayException("Call failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private static <T> T joinUnchecked(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the connection pool. The instance must not be used afterwards.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        this.transport.close();
+    }
+
+    /**
+     * Configures a `TraxionPay` instance. Every instance owns its endpoint, transport,
+     * connection pool, signer and serializer, so instances for different merchants or
+     * environments can coexist in one process. Build each once and share it rather than
+     * creating one per call.
+     */
+    @SuppressWarnings({"checkstyle:hiddenfield", "checkstyle:visibilitymodifier"})
+    public static final class Builder implements Cloneable {
+        String apiKey;
+        String secretKey;
+        String baseUrl;
+        int maxConnections = 20;
+        int maxConnectionsPerRoute = 20;
+        Duration keepAlive = Duration.ofSeconds(30);
+        Duration maxIdleTime = Duration.ofSeconds(60);
+        Duration connectTimeout = Duration.ofSeconds(10);
+        Duration readTimeout = Duration.ofSeconds(30);
+        Duration leaseTimeout = Duration.ofSeconds(5);
+        boolean virtualThreads;
+        boolean http2;
+        Duration cacheTtl;
+        int maxRetries;
+        Duration initialBackoff = Duration.ofMillis(200);
+        Duration maxBackoff = Duration.ofSeconds(5);
+        int failureThreshold;
+        Duration openDuration = Duration.ofSeconds(30);
+        Duration idempotencyWindow = Duration.ZERO;
+        int idempotencyMaxEntries = 10_000;
+        Map<String, RateLimiter.Quota> rateLimits = new LinkedHashMap<>();
+        RateLimitMode rateLimitMode = RateLimitMode.BLOCK;
+        Duration rateLimitDeadline = Duration.ZERO;
+        TraxionPayMetrics metrics;
+        String payformUrl = "https://dev.traxionpay.com/payme/?data=";
+        double payformVerifyRate;
+        OutboxJournal journal;
+        JsonCodec jsonCodec;
+
+        Builder() {
+        }
+
+        public Builder apiKey(String apiKey) {
+            this.apiKey = apiKey;
+            return this;
+        }
+
+        public Builder secretKey(String secretKey) {
+            this.secretKey = secretKey;
+            return this;
+        }
+
+        /**
+         * @param baseUrl   API endpoint, e.g. the sandbox, production, a regional endpoint or a local proxy;
+         *                  defaults to {@link Utils#getBaseUrl()}
+         * @return Builder
+         */
+        public Builder baseUrl(String baseUrl) {
+            this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+            return this;
+        }
+
+        /**
+         * @param maxConnections    upper bound of pooled connections across all routes
+         * @return Builder
+         */
+        public Builder maxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * @param maxConnectionsPerRoute    upper bound of pooled connections to a single host
+         * @return Builder
+         */
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * @param keepAlive     how long an idle connection may be reused when the server does not say otherwise
+         * @return Builder
+         */
+        public Builder keepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * @param maxIdleTime   idle connections older than this are evicted in the background
+         * @return Builder
+         */
+        public Builder maxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder readTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+            return this;
+        }
+
+        /**
+         * @param leaseTimeout  how long a call waits for a free pooled connection
+         * @return Builder
+         */
+        public Builder leaseTimeout(Duration leaseTimeout) {
+            this.leaseTimeout = leaseTimeout;
+            return this;
+        }
+
+        /**
+         * Routes calls through the JDK HTTP client, whose blocking calls park instead of pinning,
+         * and runs its internal work on virtual threads. Use this when issuing many concurrent
+         * blocking calls from virtual threads. Requires Java 21 or newer; pool sizes, keep-alive
+         * and lease timeout are managed by the JDK client in this mode.
+         *
+         * @return Builder
+         */
+        public Builder virtualThreads() {
+            this.virtualThreads = true;
+            return this;
+        }
+
+        /**
+         * Routes calls through the JDK HTTP client over HTTP/2, negotiated with ALPN on https
+         * and with an h2c upgrade on http, falling back to HTTP/1.1 when the server does not
+         * speak it. Concurrent calls then share one connection as multiplexed streams instead
+         * of each holding a pooled connection, so pool sizes, keep-alive and lease timeout do
+         * not apply. Combine with {@link #virtualThreads()} as needed.
+         *
+         * @return Builder
+         */
+        public Builder http2() {
+            this.http2 = true;
+            return this;
+        }
+
+        /**
+         * Caches the results of `fetchBanks` and `fetchBankAccounts` for `ttl`. Entries are
+         * refreshed in the background once three quarters of `ttl` have passed, concurrent
+         * misses share one request, and error responses are never cached. The bank account
+         * cache is cleared after `linkBankAccount` succeeds. Cached results are shared between
+         * callers and must not be modified.
+         *
+         * @param cacheTtl  how long a bank list may be served; disabled by default
+         * @return Builder
+         */
+        public Builder cacheTtl(Duration cacheTtl) {
+            this.cacheTtl = cacheTtl;
+            return this;
+        }
+
+        /**
+         * Retries `fetchBanks` and `fetchBankAccounts` (and their typed and async variants) after
+         * I/O failures, 429 and 5xx responses. Calls with side effects, such as `cashOut`, are
+         * never retried. Disabled by default.
+         *
+         * @param maxRetries    attempts after the first one
+         * @return Builder
+         */
+        public Builder retries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Exponential backoff between retries, with jitter. `Retry-After` on 429 and 503 is honored
+         * instead when it is at most `max`; a longer one is returned to the caller without retrying.
+         *
+         * @param initial   delay ceiling before the first retry, doubled for each further one
+         * @param max       upper bound of any delay
+         * @return Builder
+         */
+        public Builder backoff(Duration initial, Duration max) {
+            this.initialBackoff = initial;
+            this.maxBackoff = max;
+            return this;
+        }
+
+        /**
+         * Opens a per-endpoint circuit breaker after `failureThreshold` consecutive I/O failures or
+         * 5xx responses. While open, calls to that endpoint fail fast with
+         * {@link CircuitOpenException}; after `openDuration` one trial call decides whether it closes.
+         * Disabled by default.
+         *
+         * @param failureThreshold
+         * @param openDuration
+         * @return Builder
+         */
+        public Builder circuitBreaker(int failureThreshold, Duration openDuration) {
+            this.failureThreshold = failureThreshold;
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * Remembers successful `cashIn` results by `merchantRefNo`, and keyed `cashOut` results by
+         * their idempotency key, so repeated calls within `window` return the first result without
+         * a request. Concurrent duplicates always share one in-flight call, even when disabled.
+         *
+         * @param window        how long results are remembered; disabled by default
+         * @param maxEntries    upper bound of remembered results per call type, least recently used evicted first
+         * @return Builder
+         */
+        public Builder idempotencyWindow(Duration window, int maxEntries) {
+            this.idempotencyWindow = window;
+            this.idempotencyMaxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Limits calls to endpoints starting with `endpoint` to `permits` per `period`, so one API key
+         * can be shared by checkout and batch jobs without being throttled. Up to `burst` calls may go
+         * out at once after a quiet spell. The most specific prefix applies; endpoints without a limit
+         * are not limited. Batch calls such as `cashInBatch` queue behind every other call.
+         *
+         * @param endpoint  path prefix, e.g. "/payform-link", "/payout/" or "/banks/"
+         * @param permits   calls allowed per `period`
+         * @param period
+         * @param burst     calls allowed at once
+         * @return Builder
+         */
+        public Builder rateLimit(String endpoint, int permits, Duration period, int burst) {
+            this.rateLimits.put(endpoint, new RateLimiter.Quota(permits, period, burst));
+            return this;
+        }
+
+        /**
+         * What a call does when its endpoint's rate limit has no permit left: wait for one
+         * ({@link RateLimitMode#BLOCK}, the default), fail at once, or wait at most `deadline`.
+         * Failures are reported as {@link RateLimitedException}. Batch calls always wait.
+         *
+         * @param mode
+         * @param deadline  longest wait in {@link RateLimitMode#QUEUE} mode; ignored otherwise
+         * @return Builder
+         */
+        public Builder rateLimitMode(RateLimitMode mode, Duration deadline) {
+            this.rateLimitMode = mode;
+            this.rateLimitDeadline = deadline;
+            return this;
+        }
+
+        /**
+         * Reports request latency and status, connection pool usage, payform hashing and encoding
+         * time, retries and rate limit waits. Nothing is measured without it. Call again to report
+         * to several receivers, e.g. {@link MicrometerMetrics} and {@link JfrMetrics}.
+         *
+         * @param metrics
+         * @return Builder
+         */
+        public Builder metrics(TraxionPayMetrics metrics) {
+            this.metrics = this.metrics != null ? new CompositeMetrics(this.metrics, metrics) : metrics;
+            return this;
+        }
+
+        /**
+         * @param payformUrl    hosted payment page prefix `buildPayformUrl` appends the encoded payform to;
+         *                      the sandbox's "https://dev.traxionpay.com/payme/?data=" by default
+         * @return Builder
+         */
+        public Builder payformUrl(String payformUrl) {
+            this.payformUrl = payformUrl;
+            return this;
+        }
+
+        /**
+         * Also creates a `sampleRate` fraction of the links built by `buildPayformUrl` through the API,
+         * in the background and behind other calls, and compares them. Disabled by default.
+         *
+         * @param sampleRate    between 0 and 1
+         * @return Builder
+         */
+        public Builder verifyPayformUrls(double sampleRate) {
+            if (!(sampleRate >= 0 && sampleRate <= 1)) {
+                throw new IllegalArgumentException("'sampleRate' must be between 0 and 1");
+            }
+            this.payformVerifyRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * Records every `cashIn` and `cashOut` call in `journal` before sending it, so the calls
+         * left without a response by a crash or a network failure can be replayed or reconciled
+         * from {@link OutboxJournal#unresolved}. Not set by default; the caller closes the journal.
+         *
+         * @param journal
+         * @return Builder
+         */
+        public Builder journal(OutboxJournal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        /**
+         * Writes request bodies and parses responses of this instance with `codec`. Defaults to
+         * the one found on the class path, see {@link JsonCodec}; unlike {@link Utils#setJsonCodec},
+         * it leaves other instances alone.
+         *
+         * @param codec
+         * @return Builder
+         */
+        public Builder jsonCodec(JsonCodec codec) {
+            this.jsonCodec = codec;
+            return this;
+        }
+
+        /**
+         * @return TraxionPay
+         * @throws Exception
+         */
+        public TraxionPay build() throws Exception {
+            return new TraxionPay(this);
+        }
+
+        /**
+         * @return Builder with the same settings, changed independently of this one
+         */
+        Builder copy() {
+            try {
+                Builder copy = (Builder) super.clone();
+                copy.rateLimits = new LinkedHashMap<>(this.rateLimits);
+                return copy;
+            } catch (CloneNotSupportedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
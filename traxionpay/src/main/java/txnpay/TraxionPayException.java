@@ -0,0 +1,19 @@
+package txnpay;
+
+/**
+ * Failure of a TraxionPay call: the API rejected it ({@link ApiException}), the
+ * endpoint's circuit breaker is open ({@link CircuitOpenException}), its rate
+ * limit is exhausted ({@link RateLimitedException}), or the exchange itself
+ * failed, with the underlying I/O error as the cause.
+ */
+public class TraxionPayException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public TraxionPayException(String message) {
+        super(message);
+    }
+
+    public TraxionPayException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,81 @@
+package txnpay;
+
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+/**
+ * Receives timings from inside the SDK, to tell time spent in the SDK, waiting
+ * for a pooled connection, and upstream apart. See {@link MicrometerMetrics}
+ * and {@link JfrMetrics}, or implement only the methods of interest.
+ *
+ * Nothing is measured unless an instance is passed to
+ * {@link TraxionPay.Builder#metrics} or {@link Utils#setMetrics}. Methods are
+ * called on the calling or I/O threads and must be fast and thread-safe.
+ */
+public interface TraxionPayMetrics {
+    /**
+     * One HTTP exchange, from sending the request to reading the response.
+     * Retries of a call are reported one by one.
+     *
+     * @param method
+     * @param endpoint  e.g. "/payform-link"
+     * @param status    HTTP status code, or 0 when no response arrived
+     * @param nanos
+     * @param error     why no response arrived, or null
+     */
+    default void requestCompleted(String method, String endpoint, int status, long nanos,
+            @Nullable Throwable error) {
+    }
+
+    /**
+     * @param pool          "blocking" or "async"
+     * @param waitNanos     time spent waiting for a pooled connection
+     */
+    default void connectionLeased(String pool, long waitNanos) {
+    }
+
+    /**
+     * Called once per connection pool; `stats` stays valid until the instance is closed.
+     * Only pools of the default transport are reported.
+     *
+     * @param pool      "blocking" or "async"
+     * @param stats     current usage of the pool
+     */
+    default void connectionPoolCreated(String pool, Supplier<ConnectionPoolStats> stats) {
+    }
+
+    /**
+     * @param signNanos     time spent hashing the payform
+     * @param encodeNanos   time spent serializing and encoding it
+     */
+    default void payformBuilt(long signNanos, long encodeNanos) {
+    }
+
+    /**
+     * A payform link built by `buildPayformUrl` was compared with the one the API created.
+     *
+     * @param matched
+     */
+    default void payformUrlVerified(boolean matched) {
+    }
+
+    /**
+     * @param method
+     * @param endpoint
+     * @param attempt       number of the upcoming attempt, 1 for the first retry
+     * @param delayNanos    backoff before it
+     */
+    default void retryScheduled(String method, String endpoint, int attempt, long delayNanos) {
+    }
+
+    /**
+     * A call found its endpoint's rate limit exhausted.
+     *
+     * @param endpoint
+     * @param waitNanos time until a permit was granted or the call was rejected
+     * @param rejected  whether the call was rejected rather than let through
+     */
+    default void rateLimitWaited(String endpoint, long waitNanos, boolean rejected) {
+    }
+}
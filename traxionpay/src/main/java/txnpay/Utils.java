@@ -1,33 +1,103 @@
 package txnpay;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 
 import javax.annotation.Nullable;
 
-import org.apache.http.Consts;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.Header;
 import org.apache.http.message.BasicHeader;
-import org.apache.http.util.EntityUtils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
-import java.math.BigInteger;
 
 
 public final class Utils {
-    private static final String BASE_URL = "https://devapi.traxionpay.com";
+    static final String DEFAULT_BASE_URL = "https://devapi.traxionpay.com";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static volatile String baseUrl =
+        withoutTrailingSlash(System.getProperty("txnpay.baseUrl", DEFAULT_BASE_URL));
+    /** Lazily created transport backing the static {@link #request} helper. */
+    private static volatile Transport sharedTransport;
+    private static volatile TraxionPayMetrics metrics;
+    private static volatile JsonCodec jsonCodec;
+
+    /**
+     * @return API endpoint new `TraxionPay` instances talk to
+     */
+    public static String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Points the SDK at another API endpoint, e.g. a local stub server.
+     * Defaults to the `txnpay.baseUrl` system property, or the TraxionPay dev API.
+     * Applies to `TraxionPay` instances created afterwards and to {@link #request}.
+     * 
+     * @param url   scheme and host, without a trailing slash
+     */
+    public static void setBaseUrl(String url) {
+        Transport previous;
+        synchronized (Utils.class) {
+            baseUrl = withoutTrailingSlash(url);
+            previous = sharedTransport;
+            sharedTransport = null;
+        }
+        closeQuietly(previous);
+    }
+
+    /**
+     * Reports the calls made through {@link #request}, like {@link TraxionPay.Builder#metrics}
+     * does for an instance. Disabled by default.
+     *
+     * @param receiver  null to stop measuring
+     */
+    public static void setMetrics(@Nullable TraxionPayMetrics receiver) {
+        Transport previous;
+        synchronized (Utils.class) {
+            metrics = receiver;
+            previous = sharedTransport;
+            sharedTransport = null;
+        }
+        closeQuietly(previous);
+    }
+
+    private static void closeQuietly(@Nullable Transport previous) {
+        if (previous != null) {
+            try {
+                previous.close();
+            } catch (Exception e) {
+                Log.warn("Closing the shared transport failed", e);
+            }
+        }
+    }
+
+    private static String withoutTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static Transport sharedTransport() {
+        Transport transport = sharedTransport;
+        if (transport != null) return transport;
+
+        synchronized (Utils.class) {
+            if (sharedTransport == null) {
+                TraxionPay.Builder options = TraxionPay.builder();
+                if (metrics != null) options.metrics(metrics);
+                sharedTransport = InstrumentedTransport.wrap(new ApacheHttpTransport(baseUrl, options), metrics);
+            }
+            return sharedTransport;
+        }
+    }
 
     /**
      * 
@@ -45,7 +115,8 @@ public final class Utils {
     }
 
     /**
-     * Performs HTTP requests
+     * Performs HTTP requests over a shared, pooled transport.
+     * Prefer the methods on a {@link TraxionPay} instance, which own their transport.
      * 
      * @param method
      * @param endpoint
@@ -55,56 +126,82 @@ public final class Utils {
      * @return JSONObject
      */
     public static JSONObject request(String method, String endpoint, @Nullable BasicHeader headers, @Nullable String json, @Nullable List payload) {
-        JSONParser parser = new JSONParser();
-        JSONObject data = new JSONObject();
-        Object parsedResponse = new Object();
+        Header[] requestHeaders = headers != null ? new Header[] {headers} : null;
+        return sharedTransport().request(method, endpoint, requestHeaders, json, payload);
+    }
 
-        CloseableHttpClient httpclient = HttpClients.createDefault();
-        String url = BASE_URL + endpoint;
-        
-        // handle POST requests
-        if (method == "POST") {
-            HttpPost request = new HttpPost(url);
-            try {
-                if (headers != null) request.setHeader(headers);
-                if (payload != null) request.setEntity(new UrlEncodedFormEntity(payload, Consts.UTF_8));
-                if (json != null) request.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+    /**
+     * @return codec of {@link #request} and the public `toJSON` methods, see {@link JsonCodec}
+     */
+    public static JsonCodec getJsonCodec() {
+        JsonCodec codec = jsonCodec;
+        return codec != null ? codec : discoveredJsonCodec();
+    }
 
-                HttpResponse response = httpclient.execute(request);
+    /**
+     * Replaces the codec found with `ServiceLoader` for {@link #request} and the public `toJSON`
+     * methods, e.g. to go back to {@link JsonSimpleCodec}. `TraxionPay` instances keep theirs,
+     * set with `Builder.jsonCodec`.
+     *
+     * @param codec null to go back to the one found
+     */
+    public static void setJsonCodec(@Nullable JsonCodec codec) {
+        jsonCodec = codec;
+    }
 
-                if (payload != null) {
-                    parsedResponse = response.getHeaders("Location")[0].getValue();
-                    data.put("url", parsedResponse);
-                } else {
-                    String res = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
-                    parsedResponse = parser.parse(res);
+    /**
+     * @return codec found with `ServiceLoader` and the `txnpay.jsonCodec` property, looked up once
+     */
+    static JsonCodec discoveredJsonCodec() {
+        return DiscoveredCodec.CODEC;
+    }
 
-                    if (parsedResponse instanceof JSONArray) data.put("data", parsedResponse);
-                    if (parsedResponse instanceof JSONObject) data = (JSONObject) parsedResponse;
-                }
+    /** Holder, so the lookup runs on first use. */
+    private static final class DiscoveredCodec {
+        static final JsonCodec CODEC = loadJsonCodec(System.getProperty("txnpay.jsonCodec"));
+    }
 
-            } catch (Exception e) {
-                System.out.println("HTTP POST Exception: " + e);
-            }
-        }
+    /**
+     * @param name  codec to pick, or null for the first one found
+     * @return JsonCodec found with `ServiceLoader`, or json-simple
+     */
+    static JsonCodec loadJsonCodec(@Nullable String name) {
+        JsonCodec fallback = new JsonSimpleCodec();
+        if (fallback.name().equals(name)) return fallback;
 
-        // handle GET requests
-        if (method == "GET") {
-            HttpGet request = new HttpGet(url);
+        JsonCodec found = null;
+        Iterator<JsonCodec> codecs = ServiceLoader.load(JsonCodec.class, Utils.class.getClassLoader()).iterator();
+        while (found == null) {
             try {
-                if (headers != null) request.setHeader(headers);
-
-                HttpResponse response = httpclient.execute(request);
-                String res = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
-                parsedResponse = parser.parse(res);
-
-                if (parsedResponse instanceof JSONArray) data.put("data", parsedResponse);
-                if (parsedResponse instanceof JSONObject) data = (JSONObject) parsedResponse;
-            } catch (Exception e) {
-                System.out.println("HTTP GET Exception: " + e);
+                if (!codecs.hasNext()) break;
+                JsonCodec codec = codecs.next();
+                if (name == null || codec.name().equals(name)) found = codec;
+            } catch (ServiceConfigurationError | LinkageError e) {
+                // A codec whose engine is missing from the class path is skipped.
+                Log.debug("Skipped a JSON codec", e);
             }
         }
-        
+        if (found != null) return found;
+        if (name != null) Log.warn("JSON codec '" + name + "' not found, using json-simple", null);
+        return fallback;
+    }
+
+    /**
+     * Parses a response body, wrapping top-level arrays under the "data" key.
+     * 
+     * @param codec
+     * @param body
+     * @return JSONObject
+     * @throws IOException
+     */
+    static JSONObject toResult(JsonCodec codec, Reader body) throws IOException {
+        JsonTree tree = new JsonTree();
+        codec.read(body, tree);
+        Object parsedResponse = tree.root();
+        JSONObject data = new JSONObject();
+
+        if (parsedResponse instanceof JSONArray) data.put("data", parsedResponse);
+        if (parsedResponse instanceof JSONObject) data = (JSONObject) parsedResponse;
         return data;
     }
 
@@ -133,18 +230,33 @@ public final class Utils {
         try {
             Mac sha256_HMAC = Mac.getInstance("HmacSHA256");
         
-            SecretKeySpec secretKey = new SecretKeySpec(key.getBytes(), "HmacSHA256");
+            SecretKeySpec secretKey = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
             sha256_HMAC.init(secretKey);
             
-            byte[] hashedDataByte = sha256_HMAC.doFinal(data.getBytes());
-            hashedData = String.format("%032x", new BigInteger(1, hashedDataByte)); 
+            byte[] hashedDataByte = sha256_HMAC.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            hashedData = toHex(hashedDataByte);
         } catch (Exception e) {
-            System.out.println("Error:"+ e);
+            Log.warn("HMAC-SHA256 failed", e);
         }
         
         return hashedData;
     }
 
+    /**
+     * Encodes bytes as lowercase hex, keeping leading zeros.
+     * 
+     * @param bytes
+     * @return hex string of twice the length of bytes
+     */
+    static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
     public static String encodeAdditionalData(String additionalData) {
         byte[] encodedData = Base64.getEncoder().encode(additionalData.getBytes());
         String data = new String(encodedData);
@@ -0,0 +1,42 @@
+package txnpay;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reflective access to virtual threads, so the SDK still builds and runs on
+ * runtimes that predate them.
+ */
+final class VirtualThreads {
+    private static final Method NEW_EXECUTOR = lookup();
+
+    private VirtualThreads() {
+    }
+
+    private static Method lookup() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the running JVM supports virtual threads
+     */
+    static boolean isSupported() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * @return an executor that starts a new virtual thread per task
+     * @throws Exception when virtual threads are not supported
+     */
+    static ExecutorService newPerTaskExecutor() throws Exception {
+        if (!isSupported()) {
+            throw new Exception("Virtual threads require Java 21 or newer");
+        }
+        return (ExecutorService) NEW_EXECUTOR.invoke(null);
+    }
+}
@@ -0,0 +1,86 @@
+package txnpay;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The one-time work of the first call, done by {@link TraxionPay#warmUp} ahead of traffic:
+ * class loading and initialization of the response codecs, and DNS resolution.
+ */
+final class WarmUp {
+    /**
+     * Runs each task on a new daemon thread. Warm-up blocks on DNS and handshakes, and
+     * only happens once per instance, so it neither needs a pool nor may take a shared one.
+     */
+    static final Executor THREADS = task -> {
+        Thread thread = new Thread(task, "traxionpay-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    private static final Function<String, String> NO_HEADERS = name -> null;
+
+    private WarmUp() {
+    }
+
+    /**
+     * Reads a sample of every response type through the readers and both content codings.
+     *
+     * @param codec as configured for the instance warming up
+     * @throws Exception
+     */
+    static void codecs(JsonCodec codec) throws Exception {
+        byte[] banks = "[{\"id\":161414,\"bank\":\"BDO Unibank\"}]".getBytes(StandardCharsets.UTF_8);
+        try (InputStream body = ContentCoding.decode("gzip", compressed(banks, true))) {
+            ResponseReader.list(codec, Bank::new).read(200, NO_HEADERS, body);
+        }
+        try (InputStream body = ContentCoding.decode("deflate", compressed(banks, false))) {
+            ResponseReader.json(codec, false).read(200, NO_HEADERS, body);
+        }
+        ResponseReader.list(codec, BankAccount::new).read(200, NO_HEADERS, body("[{\"id\":433,\"bank\":161414,"
+            + "\"account_type\":\"savings\",\"account_name\":\"John Doe\",\"account_number\":\"123412341234\"}]"));
+        ResponseReader.object(codec, OtpResponse::new).read(200, NO_HEADERS, body("{\"code\":\"123456\"}"));
+        ResponseReader.object(codec, PayoutResult::new).read(200, NO_HEADERS,
+            body("{\"id\":1,\"amount\":150.0,\"bank_account\":433,\"status\":\"pending\"}"));
+        Function<String, String> location = name -> "Location".equalsIgnoreCase(name) ? "https://localhost/" : null;
+        ResponseReader.payformLink(codec).read(302, location, body(""));
+        ResponseReader.json(codec, true).read(302, location, body(""));
+        new CashOutData("123456", 150.0, 433).toJSON(codec);
+    }
+
+    /**
+     * @param baseUrl
+     * @throws TraxionPayException when the host of `baseUrl` cannot be resolved
+     */
+    static void resolve(String baseUrl) throws TraxionPayException {
+        String host = URI.create(baseUrl).getHost();
+        try {
+            InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new TraxionPayException("Cannot resolve " + host + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream compressed(byte[] data, boolean gzip) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes) : new DeflaterOutputStream(bytes)) {
+            out.write(data);
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+}
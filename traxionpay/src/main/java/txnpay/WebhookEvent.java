@@ -0,0 +1,206 @@
+package txnpay;
+
+import java.util.Locale;
+import javax.annotation.Nullable;
+
+/**
+ * A payment status notification, as posted to the `statusNotificationUrl` of a `CashInData`.
+ */
+public final class WebhookEvent extends ModelReader.Fields {
+    /** What a notification reports, from its raw `status`. */
+    public enum Type {
+        PAID, PENDING, FAILED, EXPIRED, OTHER;
+
+        /**
+         * @param status    raw `status`, matched case-insensitively
+         * @return its type, OTHER when unknown or missing
+         */
+        static Type of(@Nullable String status) {
+            if (status == null) {
+                return OTHER;
+            }
+            switch (status.toLowerCase(Locale.ROOT)) {
+                case "paid": case "success": case "successful": case "completed": return PAID;
+                case "pending": case "processing": return PENDING;
+                case "failed": case "declined": case "cancelled": case "canceled": return FAILED;
+                case "expired": return EXPIRED;
+                default: return OTHER;
+            }
+        }
+    }
+
+    private String merchantRefNo;
+    private String status;
+    private Double amount;
+    private String amountText;
+    private String currency;
+    private String paymentMethod;
+    private String referenceNo;
+    private String secureHash;
+
+    WebhookEvent() {
+    }
+
+    @Override
+    void set(String key, @Nullable Object value) {
+        switch (key) {
+            case "merchant_ref_no":
+                this.merchantRefNo = ModelReader.string(value);
+                break;
+            case "status":
+                this.status = ModelReader.string(value);
+                break;
+            case "amount":
+                this.amount = ModelReader.decimal(value);
+                this.amountText = ModelReader.string(value);
+                break;
+            case "currency":
+                this.currency = ModelReader.string(value);
+                break;
+            case "payment_method":
+                this.paymentMethod = ModelReader.string(value);
+                break;
+            case "reference_no":
+                this.referenceNo = ModelReader.string(value);
+                break;
+            case "secure_hash":
+                this.secureHash = ModelReader.string(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Data covered by `secure_hash`, concatenated like the payform's hash.
+     *
+     * @return merchantRefNo + amount as sent + currency + status
+     */
+    String signedData() {
+        return merchantRefNo + amountText + Utils.getValidData(currency, "PHP") + status;
+    }
+
+    /**
+     * Replaces the amount's text with the number as it was written in the body,
+     * since the codec only reports its value.
+     *
+     * @param text  raw JSON number
+     */
+    void amountWrittenAs(String text) {
+        this.amountText = text;
+    }
+
+    /**
+     * Finds the text of a number at the top level of a JSON object, as written.
+     *
+     * @param json
+     * @param key
+     * @return the number's text, or null when `key` is missing or not a number
+     */
+    @Nullable
+    static String rawNumber(String json, String key) {
+        int depth = 0;
+        int i = 0;
+        while (i < json.length()) {
+            char c = json.charAt(i);
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            } else if (c == '"') {
+                int end = endOfString(json, i);
+                int colon = skipWhitespace(json, end + 1);
+                boolean entry = colon < json.length() && json.charAt(colon) == ':';
+                if (depth == 1 && entry && json.substring(i + 1, end).equals(key)) {
+                    return numberAt(json, skipWhitespace(json, colon + 1));
+                }
+                i = end;
+            }
+            i++;
+        }
+        return null;
+    }
+
+    @Nullable
+    private static String numberAt(String json, int start) {
+        int end = start;
+        while (end < json.length() && "+-.0123456789eE".indexOf(json.charAt(end)) >= 0) {
+            end++;
+        }
+        return end > start ? json.substring(start, end) : null;
+    }
+
+    /**
+     * @return index of the quote closing the string opened at `start`
+     */
+    private static int endOfString(String json, int start) {
+        int i = start + 1;
+        while (i < json.length() && json.charAt(i) != '"') {
+            i += json.charAt(i) == '\\' ? 2 : 1;
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(String json, int start) {
+        int i = start;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    String getSecureHash() {
+        return secureHash;
+    }
+
+    /**
+     * @return `merchantRefNo` of the `CashInData` this notification is about
+     */
+    public String getMerchantRefNo() {
+        return merchantRefNo;
+    }
+
+    public Type getType() {
+        return Type.of(status);
+    }
+
+    /**
+     * @return status as sent, e.g. "paid"
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return amount as written in the notification, e.g. "1500.00", for a custom signed data function
+     */
+    public String getAmountText() {
+        return amountText;
+    }
+
+    public String getCurrency() {
+        return Utils.getValidData(currency, "PHP");
+    }
+
+    @Nullable
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    /**
+     * @return TraxionPay's reference for the payment, if sent
+     */
+    @Nullable
+    public String getReferenceNo() {
+        return referenceNo;
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookEvent{merchantRefNo=" + merchantRefNo + ", status=" + status + ", amount=" + amount + "}";
+    }
+}
@@ -0,0 +1,16 @@
+package txnpay;
+
+/**
+ * Handles status notifications received by a {@link WebhookReceiver}.
+ */
+@FunctionalInterface
+public interface WebhookHandler {
+    /**
+     * Throwing makes the receiver answer with an error, so TraxionPay delivers the
+     * notification again.
+     *
+     * @param event verified notification
+     * @throws Exception
+     */
+    void handle(WebhookEvent event) throws Exception;
+}
@@ -0,0 +1,384 @@
+package txnpay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Receives the status notifications TraxionPay posts to a `statusNotificationUrl`.
+ *
+ * A notification is accepted only if its `secure_hash` is the HmacSHA256, with the
+ * secret key, of `merchant_ref_no + amount + currency + status`, the same scheme as
+ * the payform's hash, with the amount as written in the body; `Builder.signedData`
+ * replaces that scheme. It is then parsed into a {@link WebhookEvent} and handed to the
+ * handlers registered for its {@link WebhookEvent.Type}. Redeliveries of a
+ * notification already handled, by `merchant_ref_no` and status, are acknowledged
+ * without calling the handlers again, and concurrent redeliveries wait for the first.
+ *
+ * A notification is acknowledged with 200 only after its handlers returned, so one
+ * that failed is delivered again rather than lost. {@link #start} serves notifications
+ * with the JDK's `HttpServer` on a fixed pool of workers behind a bounded queue; when
+ * the queue is full, the server stops accepting connections until a worker is free,
+ * which slows bursts down instead of dropping them. In a servlet container, call
+ * {@link #receive} from the servlet instead.
+ */
+public final class WebhookReceiver implements AutoCloseable {
+    private static final int MAX_BODY = 64 * 1024;
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int UNAUTHORIZED = 401;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int PAYLOAD_TOO_LARGE = 413;
+    private static final int INTERNAL_SERVER_ERROR = 500;
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    private final HmacSigner signer;
+    private final Function<WebhookEvent, String> signedData;
+    private final Map<WebhookEvent.Type, List<WebhookHandler>> handlers;
+    private final IdempotencyRegistry<WebhookEvent> handled;
+    private final int port;
+    private final String path;
+    private final int workerCount;
+    private final int queueCapacity;
+    private final Duration shutdownTimeout;
+    private final JsonCodec jsonCodec;
+    private HttpServer server;
+    private ThreadPoolExecutor workers;
+
+    private WebhookReceiver(Builder options) throws Exception {
+        if (options.secretKey == null || options.secretKey.isBlank()) {
+            throw new Exception("'secretKey' must not be null");
+        }
+        this.signer = new HmacSigner(options.secretKey);
+        this.signedData = options.signedData;
+        Map<WebhookEvent.Type, List<WebhookHandler>> byType = new EnumMap<>(WebhookEvent.Type.class);
+        options.handlers.forEach((type, list) -> byType.put(type, new ArrayList<>(list)));
+        this.handlers = byType;
+        this.handled = new IdempotencyRegistry<>(options.dedupWindow, options.dedupMaxEntries);
+        this.port = options.port;
+        this.path = options.path;
+        this.workerCount = options.workers;
+        this.queueCapacity = options.queueCapacity;
+        this.shutdownTimeout = options.shutdownTimeout;
+        this.jsonCodec = options.jsonCodec != null ? options.jsonCodec : Utils.discoveredJsonCodec();
+    }
+
+    /**
+     * @return Builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Serves notifications at `path` on `port` until closed.
+     *
+     * @return this receiver
+     * @throws IOException when the port cannot be bound
+     */
+    public synchronized WebhookReceiver start() throws IOException {
+        if (this.server != null) {
+            throw new IllegalStateException("Already started");
+        }
+
+        AtomicInteger threads = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "traxionpay-webhook-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.workers = new ThreadPoolExecutor(this.workerCount, this.workerCount, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(this.queueCapacity), factory, WebhookReceiver::waitForRoom);
+        this.server = HttpServer.create(new InetSocketAddress(this.port), 0);
+        this.server.createContext(this.path, this::serve);
+        this.server.setExecutor(this.workers);
+        this.server.start();
+        return this;
+    }
+
+    /**
+     * Blocks the server's dispatcher until the queue has room, so it stops accepting
+     * connections instead of dropping them.
+     */
+    private static void waitForRoom(Runnable exchange, ThreadPoolExecutor workers) {
+        if (workers.isShutdown()) {
+            throw new RejectedExecutionException("Webhook receiver is closed");
+        }
+        try {
+            workers.getQueue().put(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+    }
+
+    /**
+     * @return port {@link #start} listens on, useful when started on port 0
+     */
+    public synchronized int getPort() {
+        if (this.server == null) {
+            throw new IllegalStateException("Not started");
+        }
+        return this.server.getAddress().getPort();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            int status = "POST".equals(exchange.getRequestMethod()) ? receive(body) : METHOD_NOT_ALLOWED;
+            exchange.sendResponseHeaders(status, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Verifies, parses and handles one notification on the calling thread.
+     *
+     * @param body  request body as posted by TraxionPay
+     * @return HTTP status to answer with: 200 once handled, 400 for a malformed body, 401 for
+     *         a wrong `secure_hash`, 413 for an oversized body, 500 when a handler failed
+     */
+    public int receive(InputStream body) {
+        byte[] bytes;
+        try {
+            bytes = body.readNBytes(MAX_BODY + 1);
+        } catch (IOException e) {
+            return BAD_REQUEST;
+        }
+        if (bytes.length > MAX_BODY) {
+            return PAYLOAD_TOO_LARGE;
+        }
+        return receive(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param body  request body as posted by TraxionPay
+     * @return HTTP status to answer with, as for {@link #receive(InputStream)}
+     */
+    public int receive(String body) {
+        WebhookEvent event;
+        try {
+            event = ModelReader.readObject(this.jsonCodec, new StringReader(body), WebhookEvent::new);
+        } catch (Exception e) {
+            return BAD_REQUEST;
+        }
+        String amount = WebhookEvent.rawNumber(body, "amount");
+        if (amount != null) {
+            event.amountWrittenAs(amount);
+        }
+        if (event.getMerchantRefNo() == null || event.getStatus() == null) {
+            return BAD_REQUEST;
+        }
+        if (!verify(event)) {
+            return UNAUTHORIZED;
+        }
+
+        String key = event.getMerchantRefNo() + "|" + event.getStatus();
+        try {
+            this.handled.execute(key, () -> dispatch(event), handledEvent -> true).get();
+            return OK;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SERVICE_UNAVAILABLE;
+        } catch (ExecutionException e) {
+            Log.warn("Webhook handler failed for " + event, e.getCause());
+            return INTERNAL_SERVER_ERROR;
+        }
+    }
+
+    private boolean verify(WebhookEvent event) {
+        String hash = event.getSecureHash();
+        if (hash == null) {
+            return false;
+        }
+        byte[] expected = this.signer.sign(this.signedData.apply(event)).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, hash.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private CompletableFuture<WebhookEvent> dispatch(WebhookEvent event) {
+        CompletableFuture<WebhookEvent> done = new CompletableFuture<>();
+        try {
+            for (WebhookHandler handler : this.handlers.getOrDefault(event.getType(), Collections.emptyList())) {
+                handler.handle(event);
+            }
+            done.complete(event);
+        } catch (Exception e) {
+            done.completeExceptionally(e);
+        }
+        return done;
+    }
+
+    /**
+     * Stops accepting notifications and waits up to the shutdown timeout for those
+     * already accepted to be handled.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.server == null) {
+            return;
+        }
+        this.workers.shutdown();
+        try {
+            this.workers.awaitTermination(this.shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.server.stop(0);
+        this.workers.shutdownNow();
+    }
+
+    /**
+     * Configures a `WebhookReceiver`.
+     */
+    @SuppressWarnings({"checkstyle:hiddenfield", "checkstyle:visibilitymodifier"})
+    public static final class Builder {
+        String secretKey;
+        int port = 8080;
+        String path = "/";
+        int workers = Runtime.getRuntime().availableProcessors();
+        int queueCapacity = 1_000;
+        Duration dedupWindow = Duration.ofHours(24);
+        int dedupMaxEntries = 100_000;
+        Duration shutdownTimeout = Duration.ofSeconds(10);
+        JsonCodec jsonCodec;
+        Function<WebhookEvent, String> signedData = WebhookEvent::signedData;
+        final Map<WebhookEvent.Type, List<WebhookHandler>> handlers = new EnumMap<>(WebhookEvent.Type.class);
+
+        Builder() {
+        }
+
+        /**
+         * @param secretKey secret of the `TraxionPay` instance that created the payforms
+         * @return Builder
+         */
+        public Builder secretKey(String secretKey) {
+            this.secretKey = secretKey;
+            return this;
+        }
+
+        /**
+         * @param port  port {@link #start} listens on, 0 for any free port; 8080 by default
+         * @return Builder
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * @param path  path of the `statusNotificationUrl`; "/" by default
+         * @return Builder
+         */
+        public Builder path(String path) {
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * @param workers       threads running handlers; the number of processors by default
+         * @param queueCapacity notifications waiting for a worker before new connections wait instead
+         * @return Builder
+         */
+        public Builder workers(int workers, int queueCapacity) {
+            this.workers = workers;
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * @param window        how long handled notifications are remembered; 24 hours by default
+         * @param maxEntries    upper bound of remembered notifications, least recently used evicted first
+         * @return Builder
+         */
+        public Builder dedupWindow(Duration window, int maxEntries) {
+            this.dedupWindow = window;
+            this.dedupMaxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @param shutdownTimeout   how long `close` waits for accepted notifications
+         * @return Builder
+         */
+        public Builder shutdownTimeout(Duration shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout;
+            return this;
+        }
+
+        /**
+         * @param codec parses notifications; the one found on the class path by default, see {@link JsonCodec}
+         * @return Builder
+         */
+        public Builder jsonCodec(JsonCodec codec) {
+            this.jsonCodec = codec;
+            return this;
+        }
+
+        /**
+         * Replaces the data `secure_hash` is checked against, `merchant_ref_no + amount + currency + status`
+         * by default, should TraxionPay sign notifications differently. Use {@link WebhookEvent#getAmountText}
+         * to sign the amount as it was sent.
+         *
+         * @param signedData    data to sign with the secret key for a parsed notification
+         * @return Builder
+         */
+        public Builder signedData(Function<WebhookEvent, String> signedData) {
+            this.signedData = signedData;
+            return this;
+        }
+
+        /**
+         * Runs `handler` for notifications of `type`, after the handlers registered before it.
+         *
+         * @param type
+         * @param handler
+         * @return Builder
+         */
+        public Builder on(WebhookEvent.Type type, WebhookHandler handler) {
+            this.handlers.computeIfAbsent(type, key -> new ArrayList<>()).add(handler);
+            return this;
+        }
+
+        /**
+         * Runs `handler` for every notification.
+         *
+         * @param handler
+         * @return Builder
+         */
+        public Builder onAny(WebhookHandler handler) {
+            for (WebhookEvent.Type type : WebhookEvent.Type.values()) {
+                on(type, handler);
+            }
+            return this;
+        }
+
+        /**
+         * @return WebhookReceiver, not yet listening
+         * @throws Exception
+         */
+        public WebhookReceiver build() throws Exception {
+            return new WebhookReceiver(this);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * `cacheTtl` against {@link StubTraxionPayServer}, counting the requests that reach it.
+ */
+class CacheTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+
+    private StubTraxionPayServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private TraxionPay client(Duration ttl) throws Exception {
+        return TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(server.baseUrl()).cacheTtl(ttl)
+            .build();
+    }
+
+    @Test
+    void testServesFromCacheWithinTtl() throws Exception {
+        try (TraxionPay traxionpay = client(Duration.ofMinutes(5))) {
+            JSONObject first = traxionpay.fetchBanks();
+            JSONObject second = traxionpay.fetchBanks();
+
+            assertTrue(((JSONArray) first.get("data")).size() > 0);
+            assertSame(first, second);
+            assertSame(first, traxionpay.fetchBanksAsync().get());
+            assertEquals(1, server.requestCount("/banks/"));
+        }
+    }
+
+    @Test
+    void testCollapsesConcurrentMisses() throws Exception {
+        server.latency(Duration.ofMillis(200), Duration.ofMillis(200));
+        try (TraxionPay traxionpay = client(Duration.ofMinutes(5))) {
+            List<CompletableFuture<JSONObject>> calls = new ArrayList<>();
+            for (int i = 0; i < 20; i++) calls.add(CompletableFuture.supplyAsync(traxionpay::fetchBankAccounts));
+            for (CompletableFuture<JSONObject> call : calls) assertTrue(call.get().containsKey("data"));
+
+            assertEquals(1, server.requestCount("/payout/bank-account/"));
+        }
+    }
+
+    @Test
+    void testRefreshesInBackgroundBeforeExpiry() throws Exception {
+        try (TraxionPay traxionpay = client(Duration.ofMillis(800))) {
+            JSONObject first = traxionpay.fetchBanks();
+            Thread.sleep(650);
+
+            assertSame(first, traxionpay.fetchBanks());
+            for (int i = 0; i < 50 && server.requestCount("/banks/") < 2; i++) Thread.sleep(10);
+            assertEquals(2, server.requestCount("/banks/"));
+        }
+    }
+
+    @Test
+    void testBacksOffAfterFailedRefresh() throws Exception {
+        try (TraxionPay traxionpay = client(Duration.ofMillis(3200))) {
+            JSONObject first = traxionpay.fetchBanks();
+            Thread.sleep(2450);
+            server.errorRate(1.0);
+
+            // The refresh fails; later calls keep serving the cached list without trying again at once.
+            for (int i = 0; i < 20; i++) {
+                assertSame(first, traxionpay.fetchBanks());
+                Thread.sleep(5);
+            }
+            assertEquals(2, server.requestCount("/banks/"));
+
+            Thread.sleep(450);
+            assertSame(first, traxionpay.fetchBanks());
+            for (int i = 0; i < 50 && server.requestCount("/banks/") < 3; i++) Thread.sleep(10);
+            assertEquals(3, server.requestCount("/banks/"));
+        }
+    }
+
+    @Test
+    void testDoesNotCacheErrors() throws Exception {
+        try (TraxionPay traxionpay = client(Duration.ofMinutes(5))) {
+            server.throttleRate(1.0, Duration.ofSeconds(1));
+            assertEquals("Request was throttled.", traxionpay.fetchBanks().get("detail"));
+
+            server.throttleRate(0.0, Duration.ofSeconds(1));
+            assertTrue(traxionpay.fetchBanks().containsKey("data"));
+            assertEquals(2, server.requestCount("/banks/"));
+        }
+    }
+
+    @Test
+    void testLinkBankAccountInvalidatesAccounts() throws Exception {
+        try (TraxionPay traxionpay = client(Duration.ofMinutes(5))) {
+            assertEquals(1, ((JSONArray) traxionpay.fetchBankAccounts().get("data")).size());
+
+            traxionpay.linkBankAccount(new LinkBankAccountData("161414", "savings", "John Doe", "123412341234"));
+
+            assertEquals(2, ((JSONArray) traxionpay.fetchBankAccounts().get("data")).size());
+            assertEquals(3, server.requestCount("/payout/bank-account/"));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package txnpay;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * `cashInBatch` against {@link StubTraxionPayServer}.
+ */
+class CashInBatchTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+    private static final int TIMEOUT_SECONDS = 30;
+
+    private StubTraxionPayServer server;
+    private TraxionPay traxionpay;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+        traxionpay = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(server.baseUrl()).build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        traxionpay.close();
+        server.close();
+    }
+
+    @Test
+    void testCorrelatesResultsByMerchantRefNo() throws Exception {
+        List<CashInData> cashIns = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            cashIns.add(ContractTest.cashIn("REF-" + i));
+        }
+
+        Map<String, CashInResult> results = new HashMap<>();
+        traxionpay.cashInBatch(cashIns, null, 8, result -> results.put(result.getMerchantRefNo(), result))
+            .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(100, results.size());
+        assertEquals(100, server.requestCount("/payform-link"));
+        for (int i = 0; i < 100; i++) {
+            CashInResult result = results.get("REF-" + i);
+            assertTrue(result.isSuccess(), result.toString());
+            String formData = result.getUrl().substring("https://dev.traxionpay.com/payme/?data=".length());
+            String payform = new String(Base64.getDecoder().decode(formData), StandardCharsets.UTF_8);
+            assertTrue(payform.contains("\"merchant_ref_no\":\"REF-" + i + "\""));
+        }
+    }
+
+    @Test
+    void testSharesPayformsByMerchantRefNo() throws Exception {
+        List<CashInData> cashIns = List.of(ContractTest.cashIn("REF-0"), ContractTest.cashIn("REF-1"),
+            ContractTest.cashIn("REF-1"), ContractTest.cashIn("REF-2"));
+        List<CashInResult> results = new ArrayList<>();
+        try (TraxionPay remembering = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY)
+                .baseUrl(server.baseUrl()).idempotencyWindow(Duration.ofMinutes(10), 100).build()) {
+            remembering.cashIn(ContractTest.cashIn("REF-0"), null);
+            remembering.cashInBatch(cashIns, null, 4, results::add).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        assertEquals(4, results.size());
+        assertTrue(results.stream().allMatch(CashInResult::isSuccess), results.toString());
+        assertEquals(3, server.requestCount("/payform-link"));
+    }
+
+    @Test
+    void testDeliversOnWorkersWithoutLockingTheConsumer() throws Exception {
+        ExecutorService io = Executors.newSingleThreadExecutor(task -> new Thread(task, "io"));
+        List<String> threads = new ArrayList<>();
+        Consumer<CashInResult> results = result -> threads.add(Thread.currentThread().getName());
+        List<CashInData> cashIns = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            cashIns.add(ContractTest.cashIn("REF-" + i));
+        }
+        try {
+            // Holding the consumer's monitor must not stall the batch.
+            synchronized (results) {
+                new CashInBatch(cashIns, cashIn -> List.of(),
+                    (cashIn, payload) -> CompletableFuture.supplyAsync(JSONObject::new, io),
+                    ForkJoinPool.commonPool(), results).start(4).get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            io.shutdown();
+        }
+        assertEquals(10, threads.size());
+        assertFalse(threads.contains("io"), threads.toString());
+    }
+
+    @Test
+    void testFailuresDoNotAbortTheBatch() throws Exception {
+        List<CashInData> cashIns = new ArrayList<>();
+        cashIns.add(ContractTest.cashIn("GOOD-1"));
+        cashIns.add(new CashInData(6328, "BROKEN", null, 1500.0, "No additional data", "", "", "", "", "", "", ""));
+        cashIns.add(ContractTest.cashIn("GOOD-2"));
+
+        Map<String, CashInResult> results = new HashMap<>();
+        traxionpay.cashInBatch(cashIns, null, 1, result -> results.put(result.getMerchantRefNo(), result))
+            .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertTrue(results.get("GOOD-1").isSuccess());
+        assertTrue(results.get("GOOD-2").isSuccess());
+        assertFalse(results.get("BROKEN").isSuccess());
+        assertTrue(results.get("BROKEN").getError() instanceof NullPointerException);
+    }
+
+    @Test
+    void testReportsServerErrors() throws Exception {
+        server.errorRate(1.0);
+
+        List<CashInResult> results = new ArrayList<>();
+        traxionpay.cashInBatch(List.of(ContractTest.cashIn("REF-1")), null, 4, results::add)
+            .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(1, results.size());
+        assertFalse(results.get(0).isSuccess());
+        assertEquals("REF-1", results.get(0).getMerchantRefNo());
+        assertNotNull(results.get(0).getError());
+    }
+
+    @Test
+    void testBoundsConcurrency() throws Exception {
+        server.latency(Duration.ofMillis(100), Duration.ofMillis(100));
+        List<CashInData> cashIns = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            cashIns.add(ContractTest.cashIn("REF-" + i));
+        }
+
+        long start = System.nanoTime();
+        traxionpay.cashInBatch(cashIns, null, 4, result -> { }).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(300).toNanos());
+    }
+
+    @Test
+    void testEmptyBatch() throws Exception {
+        traxionpay.cashInBatch(new ArrayList<>(), null, 4, result -> { }).get(1, TimeUnit.SECONDS);
+    }
+}
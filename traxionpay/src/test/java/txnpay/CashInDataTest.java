@@ -0,0 +1,79 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Building, templating and reusing cash in requests.
+ */
+class CashInDataTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+    private static final String CALLBACK_URL = "https://devapi.traxionpay.com/callback";
+
+    private static final CashInData TEMPLATE = CashInData.builder()
+        .merchantId(6328)
+        .statusNotificationUrl(CALLBACK_URL + "/")
+        .successPageUrl(CALLBACK_URL)
+        .failurePageUrl(CALLBACK_URL)
+        .cancelPageUrl(CALLBACK_URL)
+        .pendingPageUrl(CALLBACK_URL)
+        .build();
+
+    private static CashInData payment(String merchantRefNo) {
+        return TEMPLATE.toBuilder()
+            .merchantRefNo(merchantRefNo)
+            .merchantAdditionalData("{\"payment_code\":\"" + merchantRefNo + "\"}")
+            .amount(1500.0)
+            .description("My test payment")
+            .build();
+    }
+
+    @Test
+    void testConstructorKeepsPaymentMethodAndCurrency() {
+        CashInData cashIn = new CashInData(6328, "REF-1", "{}", 1.0, "d", "", "", "", "", "", "gcash", "USD");
+        assertEquals("gcash", cashIn.paymentMethod);
+        assertEquals("USD", cashIn.currency);
+
+        CashInData defaults = new CashInData(6328, "REF-1", "{}", 1.0, "d", "", "", "", "", "", null, " ");
+        assertEquals("", defaults.paymentMethod);
+        assertEquals("PHP", defaults.currency);
+        assertEquals("PHP", CashInData.builder().build().currency);
+    }
+
+    @Test
+    void testTemplatesMatchTheConstructor() throws Exception {
+        BillingDetailsData billing = BillingDetailsData.builder().email("jane@example.com").firstName("Jane")
+            .lastName("Doe").build();
+        BillingDetailsData positional = new BillingDetailsData("jane@example.com", "Jane", "Doe", null, null, null,
+            null, null, null, null, null, null, null);
+
+        try (TraxionPay traxionpay = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).build()) {
+            assertEquals(traxionpay.buildPayformUrl(ContractTest.cashIn("ORDER-1"), positional).getUrl(),
+                traxionpay.buildPayformUrl(payment("ORDER-1"), billing).getUrl());
+        }
+        assertEquals("PH", billing.country);
+        assertEquals("Jane", billing.toBuilder().lastName("Cruz").build().firstName);
+        assertEquals(null, TEMPLATE.merchantRefNo);
+    }
+
+    @Test
+    void testRequestsCanBeSharedAndResent() throws Exception {
+        CashInData cashIn = payment("ORDER-1");
+        try (TraxionPay traxionpay = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).build()) {
+            String first = traxionpay.buildPayformUrl(cashIn, null).getUrl();
+
+            List<CompletableFuture<String>> concurrent = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                concurrent.add(CompletableFuture.supplyAsync(() -> traxionpay.buildPayformUrl(cashIn, null).getUrl()));
+            }
+            for (CompletableFuture<String> url : concurrent) assertEquals(first, url.get());
+            assertEquals("{\"payment_code\":\"ORDER-1\"}", cashIn.merchantAdditionalData);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Conditional and compressed GETs of the bank and bank account lists against {@link StubTraxionPayServer}.
+ */
+class ConditionalGetTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+
+    private StubTraxionPayServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private TraxionPay.Builder client() {
+        return TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(server.baseUrl());
+    }
+
+    @Test
+    void testUnchangedListsAreNotReparsed() throws Exception {
+        try (TraxionPay traxionpay = client().build()) {
+            List<Bank> banks = traxionpay.listBanks();
+            assertNull(server.lastRequestHeader("/banks/", "If-None-Match"));
+            assertSame(banks, traxionpay.listBanks());
+            assertSame(banks, traxionpay.listBanksAsync().get());
+            assertNotNull(server.lastRequestHeader("/banks/", "If-None-Match"));
+            assertEquals(2, server.notModifiedCount("/banks/"));
+
+            JSONObject untyped = traxionpay.fetchBanks();
+            assertEquals(4, ((List<?>) untyped.get("data")).size());
+            assertSame(untyped, traxionpay.fetchBanks());
+            assertSame(untyped, traxionpay.fetchBanksAsync().get());
+            assertEquals(2, server.requestCount("/banks/") - server.notModifiedCount("/banks/"));
+        }
+    }
+
+    @Test
+    void testLastModifiedAloneRevalidates() throws Exception {
+        server.validators(false, true);
+        try (TraxionPay traxionpay = client().build()) {
+            List<BankAccount> accounts = traxionpay.listBankAccounts();
+            assertSame(accounts, traxionpay.listBankAccounts());
+            assertNull(server.lastRequestHeader("/payout/bank-account/", "If-None-Match"));
+            assertNotNull(server.lastRequestHeader("/payout/bank-account/", "If-Modified-Since"));
+            assertEquals(1, server.notModifiedCount("/payout/bank-account/"));
+        }
+    }
+
+    @Test
+    void testChangedListsAreReloaded() throws Exception {
+        try (TraxionPay traxionpay = client().build()) {
+            List<BankAccount> before = traxionpay.listBankAccounts();
+            JSONObject untypedBefore = traxionpay.fetchBankAccounts();
+            traxionpay.createBankAccount(new LinkBankAccountData("161414", "savings", "Jane Doe", "432143214321"));
+
+            List<BankAccount> after = traxionpay.listBankAccounts();
+            assertNotSame(before, after);
+            assertEquals(before.size() + 1, after.size());
+            assertNotSame(untypedBefore, traxionpay.fetchBankAccounts());
+            assertSame(after, traxionpay.listBankAccounts());
+        }
+    }
+
+    @Test
+    void testWithoutValidatorsEveryCallIsAFullResponse() throws Exception {
+        server.validators(false, false);
+        try (TraxionPay traxionpay = client().build()) {
+            List<Bank> banks = traxionpay.listBanks();
+            List<Bank> again = traxionpay.listBanks();
+            assertNotSame(banks, again);
+            assertEquals(banks.size(), again.size());
+            assertNull(server.lastRequestHeader("/banks/", "If-Modified-Since"));
+            assertEquals(0, server.notModifiedCount("/banks/"));
+        }
+    }
+
+    @Test
+    void testCompressedResponsesOnEveryTransport() throws Exception {
+        server.validators(false, false);
+        for (String encoding : new String[] {"gzip", "deflate", null}) {
+            server.contentEncoding(encoding);
+            try (TraxionPay apache = client().build(); TraxionPay jdk = client().http2().build()) {
+                assertEquals(4, apache.listBanks().size());
+                assertEquals(4, apache.listBanksAsync().get().size());
+                assertEquals(4, ((List<?>) apache.fetchBanksAsync().get().get("data")).size());
+                assertEquals(4, jdk.listBanks().size());
+                assertEquals(4, jdk.listBanksAsync().get().size());
+                assertEquals(1, jdk.listBankAccounts().size());
+                assertEquals("gzip, deflate", server.lastRequestHeader("/banks/", "Accept-Encoding"));
+            }
+        }
+    }
+
+    @Test
+    void testCompressionSavesBandwidth() throws Exception {
+        server.validators(false, false).contentEncoding(null);
+        try (TraxionPay traxionpay = client().build()) {
+            traxionpay.listBanks();
+        }
+        long plain = server.bytesSent("/banks/");
+
+        server.contentEncoding("gzip");
+        try (TraxionPay traxionpay = client().build()) {
+            traxionpay.listBanks();
+        }
+        long gzip = server.bytesSent("/banks/") - plain;
+        assertTrue(gzip < plain, "gzip " + gzip + " bytes, plain " + plain + " bytes");
+    }
+}
@@ -0,0 +1,228 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs every `TraxionPay` call against {@link StubTraxionPayServer} instead of the live dev API.
+ */
+class ContractTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+
+    private StubTraxionPayServer server;
+    private TraxionPay traxionpay;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+        traxionpay = client(SECRET_KEY);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        traxionpay.close();
+        server.close();
+    }
+
+    private TraxionPay client(String secretKey) throws Exception {
+        return TraxionPay.builder().apiKey(API_KEY).secretKey(secretKey).baseUrl(server.baseUrl()).build();
+    }
+
+    @Test
+    void testCashIn() throws Exception {
+        JSONObject data = traxionpay.cashIn(cashIn("ABC123DEF456"), null);
+
+        assertTrue(data.get("url").toString().startsWith("https://dev.traxionpay.com/payme/?data="));
+        String formData = data.get("url").toString().substring("https://dev.traxionpay.com/payme/?data=".length());
+        String payform = new String(Base64.getDecoder().decode(formData), StandardCharsets.UTF_8);
+        assertTrue(payform.contains("\"merchant_ref_no\":\"ABC123DEF456\""));
+    }
+
+    @Test
+    void testCashInAsync() throws Exception {
+        JSONObject data = traxionpay.cashInAsync(cashIn("ABC123DEF456"), null).get();
+
+        assertTrue(data.get("url").toString().startsWith("https://dev.traxionpay.com/payme/?data="));
+    }
+
+    @Test
+    void testCashInRejectsWrongSecret() throws Exception {
+        try (TraxionPay wrongSecret = client("not-the-secret")) {
+            JSONObject data = wrongSecret.cashIn(cashIn("ABC123DEF456"), null);
+
+            assertFalse(data.containsKey("url"));
+        }
+    }
+
+    @Test
+    void testInstancesKeepTheirOwnEndpoint() throws Exception {
+        try (StubTraxionPayServer other = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+                TraxionPay otherClient = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY)
+                    .baseUrl(other.baseUrl() + "/").build()) {
+            traxionpay.fetchBanks();
+            otherClient.fetchBanks();
+            otherClient.fetchBanks();
+
+            assertEquals(1, server.requestCount("/banks/"));
+            assertEquals(2, other.requestCount("/banks/"));
+        }
+    }
+
+    @Test
+    void testUsesGlobalBaseUrlByDefault() throws Exception {
+        Utils.setBaseUrl(server.baseUrl());
+        try (TraxionPay defaultClient = new TraxionPay(API_KEY, SECRET_KEY)) {
+            assertTrue(((JSONArray) defaultClient.fetchBanks().get("data")).size() > 0);
+        } finally {
+            Utils.setBaseUrl(Utils.DEFAULT_BASE_URL);
+        }
+    }
+
+    @Test
+    void testFetchBanks() {
+        JSONArray banks = (JSONArray) traxionpay.fetchBanks().get("data");
+
+        assertTrue(banks.size() > 0);
+        assertEquals(1, server.requestCount("/banks/"));
+    }
+
+    @Test
+    void testFetchBankAccounts() {
+        JSONArray bankAccounts = (JSONArray) traxionpay.fetchBankAccounts().get("data");
+
+        assertTrue(bankAccounts.size() > 0);
+    }
+
+    @Test
+    void testLinkBankAccount() throws Exception {
+        JSONObject data = traxionpay.linkBankAccount(
+            new LinkBankAccountData("161414", "savings", "John Doe", "123412341234"));
+
+        assertTrue(data.containsKey("id"));
+        assertTrue(data.containsKey("bank_name"));
+        assertTrue(data.containsKey("account_number"));
+        assertEquals(2, ((JSONArray) traxionpay.fetchBankAccounts().get("data")).size());
+    }
+
+    @Test
+    void testCashOut() {
+        JSONObject otp = traxionpay.fetchOTP();
+        assertNotNull(otp.get("code"));
+
+        JSONObject data = traxionpay.cashOut(new CashOutData(otp.get("code").toString(), 150.0, 433));
+        assertEquals("pending", data.get("status"));
+
+        JSONObject reused = traxionpay.cashOut(new CashOutData(otp.get("code").toString(), 150.0, 433));
+        assertEquals("Invalid OTP.", reused.get("detail"));
+    }
+
+    @Test
+    void testTypedCalls() throws Exception {
+        List<Bank> banks = traxionpay.listBanks();
+        assertEquals("BDO Unibank", banks.stream().filter(bank -> bank.getId() == 161414L).findFirst().get().getName());
+
+        BankAccount account = traxionpay.createBankAccount(
+            new LinkBankAccountData("161414", "savings", "John Doe", "123412341234"));
+        assertEquals("123412341234", account.getAccountNumber());
+        assertEquals(2, traxionpay.listBankAccountsAsync().get().size());
+
+        OtpResponse otp = traxionpay.requestOTP();
+        PayoutResult payout = traxionpay.requestPayout(new CashOutData(otp.getCode(), 150.0, 433));
+        assertEquals("pending", payout.getStatus());
+        assertEquals(150.0, payout.getAmount());
+
+        Exception reused = assertThrows(Exception.class,
+            () -> traxionpay.requestPayout(new CashOutData(otp.getCode(), 150.0, 433)));
+        assertEquals("HTTP 400: Invalid OTP.", reused.getMessage());
+
+        PayformLink link = traxionpay.createPayformLinkAsync(cashIn("ABC123DEF456"), null).get();
+        assertTrue(link.getUrl().startsWith("https://dev.traxionpay.com/payme/?data="));
+    }
+
+    @Test
+    void testBuildPayformUrl() throws Exception {
+        PayformLink built = traxionpay.buildPayformUrl(cashIn("ABC123DEF456"), null);
+        assertEquals(0, server.requestCount("/payform-link"));
+
+        assertEquals(traxionpay.cashIn(cashIn("ABC123DEF456"), null).get("url"), built.getUrl());
+    }
+
+    @Test
+    void testVerifyPayformUrls() throws Exception {
+        BlockingQueue<Boolean> verified = new LinkedBlockingQueue<>();
+        TraxionPayMetrics metrics = new TraxionPayMetrics() {
+            @Override
+            public void payformUrlVerified(boolean matched) {
+                verified.add(matched);
+            }
+        };
+        TraxionPay.Builder builder = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY)
+            .baseUrl(server.baseUrl()).verifyPayformUrls(1.0).metrics(metrics);
+
+        try (TraxionPay verifying = builder.build()) {
+            verifying.buildPayformUrl(cashIn("ABC123DEF456"), null);
+            assertEquals(true, verified.poll(5, TimeUnit.SECONDS));
+        }
+        try (TraxionPay misconfigured = builder.payformUrl("https://pay.example.com/?data=").build()) {
+            misconfigured.buildPayformUrl(cashIn("ABC123DEF456"), null);
+            assertEquals(false, verified.poll(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, server.requestCount("/payform-link"));
+    }
+
+    @Test
+    void testTypedCallsReportThrottling() {
+        server.throttleRate(1.0, Duration.ofSeconds(3));
+
+        Exception error = assertThrows(Exception.class, () -> traxionpay.listBanks());
+        assertEquals("HTTP 429: Request was throttled.", error.getMessage());
+    }
+
+    @Test
+    void testThrottling() {
+        server.throttleRate(1.0, Duration.ofSeconds(3));
+
+        assertEquals("Request was throttled.", traxionpay.fetchBanks().get("detail"));
+    }
+
+    @Test
+    void testServerErrors() {
+        server.errorRate(1.0);
+
+        assertTrue(traxionpay.cashIn(cashIn("ABC123DEF456"), null).isEmpty());
+    }
+
+    @Test
+    void testLatency() {
+        server.latency(Duration.ofMillis(100), Duration.ofMillis(100));
+
+        long start = System.nanoTime();
+        traxionpay.fetchBanks();
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(100).toNanos());
+    }
+
+    static CashInData cashIn(String merchantRefNo) {
+        return new CashInData(6328, merchantRefNo, "{\"payment_code\":\"" + merchantRefNo + "\"}", 1500.0,
+            "My test payment", "https://devapi.traxionpay.com/callback/", "https://devapi.traxionpay.com/callback",
+            "https://devapi.traxionpay.com/callback", "https://devapi.traxionpay.com/callback",
+            "https://devapi.traxionpay.com/callback", "", "");
+    }
+}
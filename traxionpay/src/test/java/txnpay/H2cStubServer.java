@@ -0,0 +1,142 @@
+package txnpay;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+/**
+ * Serves a {@link StubTraxionPayServer} over HTTP/1.1 and h2c, counting the TCP
+ * connections and HTTP/2 streams clients open.
+ *
+ * The JDK's `HttpServer` only speaks HTTP/1.1, so this Jetty front forwards every
+ * exchange to the stub, which keeps its latency, failure and validation settings.
+ */
+public final class H2cStubServer implements AutoCloseable {
+    private final StubTraxionPayServer backend;
+    private final HttpClient forwarder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+        .followRedirects(HttpClient.Redirect.NEVER).build();
+    private final Server server;
+    private final ServerConnector connector;
+    private final Set<EndPoint> connections = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final LongAdder http2Requests = new LongAdder();
+
+    private H2cStubServer(StubTraxionPayServer backend) throws Exception {
+        this.backend = backend;
+        this.server = new Server();
+        HttpConfiguration config = new HttpConfiguration();
+        this.connector = new ServerConnector(this.server, new HttpConnectionFactory(config),
+            new HTTP2CServerConnectionFactory(config));
+        this.connector.setHost("127.0.0.1");
+        this.connector.addBean(new Connection.Listener() {
+            @Override
+            public void onOpened(Connection connection) {
+                H2cStubServer.this.connections.add(connection.getEndPoint());
+            }
+
+            @Override
+            public void onClosed(Connection connection) {
+            }
+        });
+        this.server.addConnector(this.connector);
+        this.server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request base, HttpServletRequest request, HttpServletResponse response)
+                    throws IOException {
+                base.setHandled(true);
+                forward(request, response);
+            }
+        });
+        this.server.start();
+    }
+
+    /**
+     * @param backend   stub the exchanges are forwarded to; closed with this server
+     * @return H2cStubServer
+     * @throws Exception
+     */
+    public static H2cStubServer start(StubTraxionPayServer backend) throws Exception {
+        return new H2cStubServer(backend);
+    }
+
+    /**
+     * @return URL to pass to `TraxionPay.Builder.baseUrl`
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + this.connector.getLocalPort();
+    }
+
+    /**
+     * @return TCP connections accepted so far
+     */
+    public int connectionCount() {
+        return this.connections.size();
+    }
+
+    /**
+     * @return requests received as HTTP/2 streams, including upgraded ones
+     */
+    public long http2RequestCount() {
+        return this.http2Requests.sum();
+    }
+
+    private void forward(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if ("HTTP/2.0".equals(request.getProtocol())) this.http2Requests.increment();
+
+        byte[] body;
+        try (InputStream in = request.getInputStream()) {
+            body = in.readAllBytes();
+        }
+        HttpRequest.Builder forwarded = HttpRequest.newBuilder(
+                URI.create(this.backend.baseUrl() + request.getRequestURI()))
+            .method(request.getMethod(), body.length > 0
+                ? HttpRequest.BodyPublishers.ofByteArray(body) : HttpRequest.BodyPublishers.noBody());
+        for (String name : new String[] {"Authorization", "Content-Type", "Idempotency-Key"}) {
+            String value = request.getHeader(name);
+            if (value != null) forwarded.header(name, value);
+        }
+
+        HttpResponse<byte[]> answer;
+        try {
+            answer = this.forwarder.send(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(503);
+            return;
+        }
+        response.setStatus(answer.statusCode());
+        for (String name : new String[] {"Content-Type", "Location", "Retry-After"}) {
+            answer.headers().firstValue(name).ifPresent(value -> response.setHeader(name, value));
+        }
+        response.setContentLength(answer.body().length);
+        try (OutputStream out = response.getOutputStream()) {
+            out.write(answer.body());
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.server.stop();
+        this.backend.close();
+    }
+}
@@ -0,0 +1,30 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HmacSignerTest {
+    @Test
+    void testMatchesRfc4231Vector() throws Exception {
+        HmacSigner signer = new HmacSigner("Jefe");
+        String expected = "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843";
+
+        assertEquals(expected, signer.sign("what do ya want for nothing?"));
+        assertEquals(expected, Utils.hmacSha256Digest("what do ya want for nothing?", "Jefe"));
+    }
+
+    @Test
+    void testKeepsLeadingZeros() throws Exception {
+        HmacSigner signer = new HmacSigner("secret");
+        int leadingZeros = 0;
+        for (int i = 0; i < 256; i++) {
+            String digest = signer.sign("ref" + i);
+            assertEquals(64, digest.length());
+            assertEquals(Utils.hmacSha256Digest("ref" + i, "secret"), digest);
+            if (digest.charAt(0) == '0') leadingZeros++;
+        }
+        assertTrue(leadingZeros > 0);
+    }
+}
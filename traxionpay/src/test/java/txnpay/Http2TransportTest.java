@@ -0,0 +1,122 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.Test;
+
+/**
+ * `TraxionPay.Builder.http2` against an h2c server, and against an HTTP/1.1-only one.
+ */
+class Http2TransportTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+
+    private static TraxionPay.Builder client(String baseUrl) {
+        return TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(baseUrl);
+    }
+
+    @Test
+    void testMultiplexesConcurrentCallsOnOneConnection() throws Exception {
+        try (H2cStubServer server = H2cStubServer.start(StubTraxionPayServer.start(API_KEY, SECRET_KEY)
+                .latency(Duration.ofMillis(10), Duration.ofMillis(30)));
+                TraxionPay traxionpay = client(server.baseUrl()).http2().build()) {
+            List<CompletableFuture<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                calls.add(traxionpay.listBanksAsync());
+                calls.add(traxionpay.cashInAsync(ContractTest.cashIn("ORDER-" + i), null)
+                    .thenAccept(link -> assertTrue(link.containsKey("url"), link.toJSONString())));
+                calls.add(traxionpay.requestOTPAsync()
+                    .thenCompose(otp -> traxionpay.requestPayoutAsync(new CashOutData(otp.getCode(), 150.0, 433)))
+                    .thenAccept(payout -> assertEquals("pending", payout.getStatus())));
+            }
+            CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+            assertEquals(1, server.connectionCount());
+            // All but the first call, which was sent as HTTP/1.1 with the h2c upgrade.
+            assertEquals(20 * 4 - 1, server.http2RequestCount());
+        }
+    }
+
+    @Test
+    void testLowerTailLatencyThanPooledHttp1() throws Exception {
+        try (H2cStubServer server = H2cStubServer.start(StubTraxionPayServer.start(API_KEY, SECRET_KEY)
+                .latency(Duration.ofMillis(100), Duration.ofMillis(100)))) {
+            long[] http1;
+            try (TraxionPay traxionpay = client(server.baseUrl()).build()) {
+                http1 = latencies(traxionpay, 64);
+            }
+            int http1Connections = server.connectionCount();
+
+            long[] http2;
+            try (TraxionPay traxionpay = client(server.baseUrl()).http2().build()) {
+                http2 = latencies(traxionpay, 64);
+            }
+            int http2Connections = server.connectionCount() - http1Connections;
+
+            // 64 concurrent calls queue for 20 pooled HTTP/1.1 connections, but not for HTTP/2 streams.
+            assertEquals(20, http1Connections);
+            assertEquals(1, http2Connections);
+            assertTrue(percentile(http2, 0.99) < percentile(http1, 0.99),
+                "p99 h2 " + percentile(http2, 0.99) + " ms, http/1.1 " + percentile(http1, 0.99) + " ms");
+        }
+    }
+
+    @Test
+    void testFallsBackToHttp1() throws Exception {
+        try (StubTraxionPayServer server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+                TraxionPay traxionpay = client(server.baseUrl()).http2().build()) {
+            assertEquals(4, traxionpay.listBanks().size());
+            JSONObject link = traxionpay.cashIn(ContractTest.cashIn("ORDER-1"), null);
+            assertTrue(link.containsKey("url"));
+            PayoutResult payout = traxionpay.requestPayout(new CashOutData(traxionpay.requestOTP().getCode(), 150.0,
+                433));
+            assertEquals("pending", payout.getStatus());
+        }
+    }
+
+    /**
+     * @return latency in milliseconds of the blocking calls of two rounds of `concurrency` calls started at
+     *         once, after a warm-up round
+     */
+    private static long[] latencies(TraxionPay traxionpay, int concurrency) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(concurrency);
+        try {
+            long[] latencies = new long[2 * concurrency];
+            for (int round = -1; round < 2; round++) {
+                List<Future<Long>> calls = new ArrayList<>();
+                for (int i = 0; i < concurrency; i++) {
+                    calls.add(callers.submit(() -> {
+                        long start = System.nanoTime();
+                        traxionpay.listBanks();
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }));
+                }
+                for (int i = 0; i < concurrency; i++) {
+                    long latency = calls.get(i).get(30, TimeUnit.SECONDS);
+                    if (round >= 0) latencies[round * concurrency + i] = latency;
+                }
+            }
+            return latencies;
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    private static long percentile(long[] latencies, double percentile) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+}
@@ -0,0 +1,135 @@
+package txnpay;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Idempotency keys and de-duplication against {@link StubTraxionPayServer}.
+ */
+class IdempotencyTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+    private static final int BANK_ACCOUNT = 433;
+
+    private StubTraxionPayServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private TraxionPay client(Duration window, int maxEntries) throws Exception {
+        return TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(server.baseUrl())
+            .idempotencyWindow(window, maxEntries).build();
+    }
+
+    @Test
+    void testConcurrentDuplicatesShareOneCall() throws Exception {
+        server.latency(Duration.ofMillis(200), Duration.ofMillis(200));
+        try (TraxionPay traxionpay = client(Duration.ZERO, 100)) {
+            List<CompletableFuture<JSONObject>> clicks = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                clicks.add(traxionpay.cashInAsync(ContractTest.cashIn("ORDER-1"), null));
+            }
+            clicks.add(CompletableFuture.supplyAsync(() -> traxionpay.cashIn(ContractTest.cashIn("ORDER-1"), null)));
+
+            for (CompletableFuture<JSONObject> click : clicks) {
+                assertEquals(clicks.get(0).get().get("url"), click.get().get("url"));
+            }
+            assertEquals(1, server.requestCount("/payform-link"));
+            assertEquals("ORDER-1", server.lastRequestHeader("/payform-link", "Idempotency-Key"));
+
+            // Nothing is remembered once the call completes without a window.
+            traxionpay.cashIn(ContractTest.cashIn("ORDER-1"), null);
+            assertEquals(2, server.requestCount("/payform-link"));
+        }
+    }
+
+    @Test
+    void testRemembersResultsWithinWindow() throws Exception {
+        try (TraxionPay traxionpay = client(Duration.ofMillis(300), 100)) {
+            JSONObject first = traxionpay.cashIn(ContractTest.cashIn("ORDER-1"), null);
+            assertEquals(first, traxionpay.cashIn(ContractTest.cashIn("ORDER-1"), null));
+            assertEquals(first.get("url"), traxionpay.createPayformLink(ContractTest.cashIn("ORDER-1"), null).getUrl());
+            assertEquals(2, server.requestCount("/payform-link"));
+
+            traxionpay.createPayformLink(ContractTest.cashIn("ORDER-1"), null);
+            assertEquals(2, server.requestCount("/payform-link"));
+
+            Thread.sleep(350);
+            traxionpay.cashIn(ContractTest.cashIn("ORDER-1"), null);
+            assertEquals(3, server.requestCount("/payform-link"));
+        }
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() throws Exception {
+        try (TraxionPay traxionpay = client(Duration.ofMinutes(5), 2)) {
+            traxionpay.cashIn(ContractTest.cashIn("A"), null);
+            traxionpay.cashIn(ContractTest.cashIn("B"), null);
+            traxionpay.cashIn(ContractTest.cashIn("A"), null);
+            traxionpay.cashIn(ContractTest.cashIn("C"), null);
+            assertEquals(3, server.requestCount("/payform-link"));
+
+            traxionpay.cashIn(ContractTest.cashIn("A"), null);
+            assertEquals(3, server.requestCount("/payform-link"));
+            traxionpay.cashIn(ContractTest.cashIn("B"), null);
+            assertEquals(4, server.requestCount("/payform-link"));
+        }
+    }
+
+    @Test
+    void testCashOutWithIdempotencyKey() throws Exception {
+        try (TraxionPay traxionpay = client(Duration.ofMinutes(5), 100)) {
+            JSONObject rejected = traxionpay.cashOut(new CashOutData("000000", 150.0, BANK_ACCOUNT), "withdrawal-1");
+            assertEquals("Invalid OTP.", rejected.get("detail"));
+
+            // Failures are not remembered, so the same key can be retried.
+            String code = traxionpay.requestOTP().getCode();
+            JSONObject payout = traxionpay.cashOut(new CashOutData(code, 150.0, BANK_ACCOUNT), "withdrawal-1");
+            assertEquals("pending", payout.get("status"));
+            assertEquals("withdrawal-1", server.lastRequestHeader("/payout/bank-payout/", "Idempotency-Key"));
+
+            CashOutData repeat = new CashOutData(code, 150.0, BANK_ACCOUNT);
+            assertEquals(payout, traxionpay.cashOutAsync(repeat, "withdrawal-1").get());
+            assertEquals(2, server.requestCount("/payout/bank-payout/"));
+
+            JSONObject other = traxionpay.cashOut(new CashOutData(code, 150.0, BANK_ACCOUNT), "withdrawal-2");
+            assertEquals("Invalid OTP.", other.get("detail"));
+            assertEquals(3, server.requestCount("/payout/bank-payout/"));
+        }
+    }
+
+    @Test
+    void testTypedPayoutWithIdempotencyKey() throws Exception {
+        server.latency(Duration.ofMillis(100), Duration.ofMillis(100));
+        try (TraxionPay traxionpay = client(Duration.ofMinutes(5), 100)) {
+            String code = traxionpay.requestOTP().getCode();
+            CompletableFuture<PayoutResult> first =
+                traxionpay.requestPayoutAsync(new CashOutData(code, 150.0, BANK_ACCOUNT), "w-1");
+            PayoutResult second = traxionpay.requestPayout(new CashOutData(code, 150.0, BANK_ACCOUNT), "w-1");
+
+            assertEquals(first.get().getId(), second.getId());
+            assertEquals(1, server.requestCount("/payout/bank-payout/"));
+
+            ApiException error = assertThrows(ApiException.class,
+                () -> traxionpay.requestPayout(new CashOutData(code, 150.0, BANK_ACCOUNT), "w-2"));
+            assertNotEquals(200, error.getStatus());
+        }
+    }
+}
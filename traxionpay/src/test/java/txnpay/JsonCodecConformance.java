@@ -0,0 +1,179 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Behavior every {@link JsonCodec} must share with the json-simple default.
+ * Published in the test-jar: a codec's test extends this class and returns it
+ * from {@link #codec()}.
+ */
+public abstract class JsonCodecConformance {
+    /**
+     * @return codec under test
+     */
+    protected abstract JsonCodec codec();
+
+    @Test
+    void testWritesStringsThatReadBackVerbatim() throws Exception {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("plain", "Juan dela Cruz");
+        fields.put("quotes", "say \"hi\"");
+        fields.put("backslash", "C:\\temp\\");
+        fields.put("slash", "https://example.com/ok");
+        fields.put("controls", "tab\tnew\nline\r\u0000\u001f");
+        fields.put("unicode", "Ñiño – ₱100 \uD83D\uDCB3");
+        fields.put("empty", "");
+        fields.put("we\"ird key", "value");
+
+        String json = codec().writeObject(fields);
+
+        assertEquals(fields, new JSONParser().parse(json));
+        assertEquals(fields, read(json));
+    }
+
+    @Test
+    void testWritesNumbersBooleansAndNull() throws Exception {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("int", 6328);
+        fields.put("long", 9_007_199_254_740_993L);
+        fields.put("double", 1500.0);
+        fields.put("fraction", 0.1);
+        fields.put("negative", -42.5);
+        fields.put("true", true);
+        fields.put("false", false);
+        fields.put("null", null);
+        fields.put("nan", Double.NaN);
+
+        JSONObject read = (JSONObject) new JSONParser().parse(codec().writeObject(fields));
+
+        assertEquals(6328L, read.get("int"));
+        assertEquals(9_007_199_254_740_993L, read.get("long"));
+        assertEquals(1500.0, read.get("double"));
+        assertEquals(0.1, read.get("fraction"));
+        assertEquals(-42.5, read.get("negative"));
+        assertEquals(true, read.get("true"));
+        assertEquals(false, read.get("false"));
+        assertTrue(read.containsKey("null"));
+        assertEquals(null, read.get("null"));
+        assertTrue(read.containsKey("nan"));
+        assertEquals(null, read.get("nan"));
+    }
+
+    @Test
+    void testWritesFieldsInIterationOrder() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("b", 1);
+        fields.put("a", 2);
+        fields.put("c", 3);
+
+        String json = codec().writeObject(fields).replace(" ", "");
+
+        assertEquals("{\"b\":1,\"a\":2,\"c\":3}", json);
+        assertEquals("{}", codec().writeObject(new LinkedHashMap<>()).replace(" ", ""));
+    }
+
+    @Test
+    void testReportsEventsInDocumentOrder() throws Exception {
+        String json = "{\"id\":1,\"bank\":\"BDO\",\"tags\":[\"a\",{\"x\":null}],\"meta\":{},\"list\":[],\"ok\":true}";
+
+        assertEquals(Arrays.asList(
+            "{", "key:id", "1:Long", "key:bank", "BDO:String",
+            "key:tags", "[", "a:String", "{", "key:x", "null", "}", "]",
+            "key:meta", "{", "}", "key:list", "[", "]", "key:ok", "true:Boolean", "}"), events(json));
+    }
+
+    @Test
+    void testReadsNumberTypes() throws Exception {
+        assertEquals(Arrays.asList("[", "0:Long", "-7:Long", "9223372036854775807:Long", "1.5:Double",
+            "-0.25:Double", "1000.0:Double", "0.012:Double", "150.0:Double", "]"),
+            events("[0, -7, 9223372036854775807, 1.5, -0.25, 1e3, 1.2E-2, 150.0]"));
+    }
+
+    @Test
+    void testReadsEscapes() throws Exception {
+        JSONObject read = (JSONObject) read("{\"s\":\"a\\\"b\\\\c\\/d\\n\\t\\u00f1\\ud83d\\udcb3\"}");
+
+        assertEquals("a\"b\\c/d\n\t\u00f1\uD83D\uDCB3", read.get("s"));
+    }
+
+    @Test
+    void testReadsTopLevelArraysAndScalars() throws Exception {
+        assertEquals(Arrays.asList("[", "{", "key:id", "1:Long", "}", "{", "key:id", "2:Long", "}", "]"),
+            events(" [ {\"id\":1} , {\"id\":2} ] "));
+        assertEquals(Arrays.asList("ok:String"), events("\"ok\""));
+        assertEquals(Arrays.asList("null"), events("null"));
+    }
+
+    @Test
+    void testRejectsInvalidDocuments() {
+        for (String json : new String[] {"", "   ", "{", "{\"a\":}", "{\"a\":1", "[1,2", "nope", "{} x", "{}{}"}) {
+            assertThrows(IOException.class, () -> events(json), json);
+        }
+    }
+
+    @Test
+    void testUntypedResultsMatchJsonSimple() throws Exception {
+        String json = "[{\"id\":161414,\"bank\":\"BDO Unibank\",\"bank_code\":\"BDO\",\"is_active\":true,"
+            + "\"branches\":[{\"id\":1,\"rate\":0.5}],\"meta\":{\"note\":null}}]";
+
+        assertEquals(new JSONParser().parse(json), read(json));
+    }
+
+    private Object read(String json) throws IOException {
+        JsonTree tree = new JsonTree();
+        codec().read(new StringReader(json), tree);
+        return tree.root();
+    }
+
+    private List<String> events(String json) throws IOException {
+        List<String> events = new ArrayList<>();
+        codec().read(new StringReader(json), new JsonHandler() {
+            @Override
+            public void startObject() {
+                events.add("{");
+            }
+
+            @Override
+            public void endObject() {
+                events.add("}");
+            }
+
+            @Override
+            public void key(String key) {
+                events.add("key:" + key);
+            }
+
+            @Override
+            public void startArray() {
+                events.add("[");
+            }
+
+            @Override
+            public void endArray() {
+                events.add("]");
+            }
+
+            @Override
+            public void value(@Nullable Object value) {
+                events.add(value == null ? "null" : value + ":" + value.getClass().getSimpleName());
+            }
+        });
+        return events;
+    }
+}
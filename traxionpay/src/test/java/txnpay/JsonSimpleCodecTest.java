@@ -0,0 +1,88 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The default codec, and how codecs are picked.
+ */
+class JsonSimpleCodecTest extends JsonCodecConformance {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+
+    @Override
+    protected JsonCodec codec() {
+        return new JsonSimpleCodec();
+    }
+
+    @Test
+    void testFallsBackToJsonSimple() {
+        assertTrue(Utils.loadJsonCodec(null) instanceof JsonSimpleCodec);
+        assertTrue(Utils.loadJsonCodec("json-simple") instanceof JsonSimpleCodec);
+        assertTrue(Utils.loadJsonCodec("missing") instanceof JsonSimpleCodec);
+    }
+
+    @Test
+    void testRequestBodiesAreUnchanged() throws Exception {
+        assertEquals("{\"amount\":150.0,\"OTP\":\"123456\",\"bank_account\":433}",
+            new CashOutData("123456", 150.0, 433).toJSON());
+    }
+
+    @Test
+    void testInstancesKeepTheirCodec() throws Exception {
+        CountingCodec own = new CountingCodec();
+        CountingCodec global = new CountingCodec();
+        Utils.setJsonCodec(global);
+        try (StubTraxionPayServer server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+                TraxionPay configured = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY)
+                    .baseUrl(server.baseUrl()).jsonCodec(own).build();
+                TraxionPay discovered = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY)
+                    .baseUrl(server.baseUrl()).build()) {
+            assertTrue(configured.fetchBanks().containsKey("data"));
+            configured.cashOut(new CashOutData("000000", 150.0, 433));
+            assertEquals(2, own.reads.get());
+            assertEquals(1, own.writes.get());
+
+            assertTrue(discovered.fetchBanks().containsKey("data"));
+            discovered.cashOut(new CashOutData("000000", 150.0, 433));
+            assertEquals(0, global.reads.get() + global.writes.get());
+
+            // The static codec is left to the legacy helpers.
+            new CashOutData("123456", 150.0, 433).toJSON();
+            assertEquals(1, global.writes.get());
+        } finally {
+            Utils.setJsonCodec(null);
+        }
+    }
+
+    /** {@link JsonSimpleCodec}, counting its calls. */
+    private static final class CountingCodec implements JsonCodec {
+        private final JsonCodec delegate = new JsonSimpleCodec();
+        final AtomicInteger writes = new AtomicInteger();
+        final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public String name() {
+            return "counting";
+        }
+
+        @Override
+        public String writeObject(Map<String, ?> fields) {
+            this.writes.incrementAndGet();
+            return this.delegate.writeObject(fields);
+        }
+
+        @Override
+        public void read(Reader json, JsonHandler handler) throws IOException {
+            this.reads.incrementAndGet();
+            this.delegate.read(json, handler);
+        }
+    }
+}
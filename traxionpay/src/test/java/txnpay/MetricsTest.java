@@ -0,0 +1,133 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Micrometer and JFR reporting against {@link StubTraxionPayServer}.
+ */
+class MetricsTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+
+    private StubTraxionPayServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private TraxionPay.Builder builder() {
+        return TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(server.baseUrl());
+    }
+
+    @Test
+    void testMicrometer() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        try (TraxionPay traxionpay = builder().retries(1).backoff(Duration.ofMillis(1), Duration.ofMillis(10))
+                .rateLimit("/payout/", 1, Duration.ofMinutes(1), 1)
+                .rateLimitMode(RateLimitMode.FAIL_FAST, Duration.ZERO)
+                .metrics(new MicrometerMetrics(registry)).build()) {
+            server.failNext(1);
+            traxionpay.listBanks();
+            traxionpay.cashIn(ContractTest.cashIn("ORDER-1"), null);
+            traxionpay.cashInAsync(ContractTest.cashIn("ORDER-2"), null).get();
+            traxionpay.fetchOTP();
+            traxionpay.fetchOTP();
+
+            assertEquals(1, registry.get("traxionpay.requests").tag("endpoint", "/banks/").tag("status", "500")
+                .tag("outcome", "SERVER_ERROR").timer().count());
+            assertEquals(1, registry.get("traxionpay.requests").tag("endpoint", "/banks/").tag("status", "200")
+                .timer().count());
+            assertEquals(2, registry.get("traxionpay.requests").tag("endpoint", "/payform-link")
+                .tag("outcome", "REDIRECTION").timer().count());
+            assertEquals(1, registry.get("traxionpay.retries").tag("endpoint", "/banks/").counter().count());
+
+            assertEquals(2, registry.get("traxionpay.payform.sign").timer().count());
+            assertEquals(2, registry.get("traxionpay.payform.encode").timer().count());
+            assertTrue(registry.get("traxionpay.pool.lease").tag("pool", "blocking").timer().count() >= 3);
+            assertEquals(1, registry.get("traxionpay.pool.lease").tag("pool", "async").timer().count());
+            assertEquals(20, registry.get("traxionpay.pool.max").tag("pool", "blocking").gauge().value());
+            assertEquals(0, registry.get("traxionpay.pool.connections").tag("pool", "blocking")
+                .tag("state", "leased").gauge().value());
+            assertEquals(1, registry.get("traxionpay.ratelimit.wait").tag("endpoint", "/payout/bank-payout/get-otp/")
+                .tag("outcome", "rejected").timer().count());
+        }
+    }
+
+    @Test
+    void testFlightRecorder() throws Exception {
+        Path file = Files.createTempFile("traxionpay", ".jfr");
+        try (Recording recording = new Recording();
+                TraxionPay traxionpay = builder().metrics(new JfrMetrics()).build()) {
+            recording.enable("txnpay.Request");
+            recording.enable("txnpay.ConnectionLease");
+            recording.enable("txnpay.Payform");
+            recording.start();
+            traxionpay.listBanks();
+            traxionpay.cashIn(ContractTest.cashIn("ORDER-1"), null);
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            Set<String> names = new TreeSet<>();
+            for (RecordedEvent event : events) names.add(event.getEventType().getName());
+            assertEquals(new TreeSet<>(List.of("txnpay.ConnectionLease", "txnpay.Payform", "txnpay.Request")), names);
+
+            RecordedEvent request = events.stream()
+                .filter(event -> event.getEventType().getName().equals("txnpay.Request"))
+                .filter(event -> "/banks/".equals(event.getString("endpoint")))
+                .findFirst().orElse(null);
+            assertNotNull(request);
+            assertEquals(200, request.getInt("status"));
+            assertTrue(request.getDuration("latency").toNanos() > 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testStaticRequestHelper() throws Exception {
+        List<String> reported = new ArrayList<>();
+        String baseUrl = Utils.getBaseUrl();
+        Utils.setBaseUrl(server.baseUrl());
+        Utils.setMetrics(new TraxionPayMetrics() {
+            @Override
+            public synchronized void requestCompleted(String method, String endpoint, int status, long nanos,
+                    Throwable error) {
+                reported.add(method + " " + endpoint + " " + status);
+            }
+        });
+        try {
+            assertTrue(Utils.request("GET", "/banks/", null, null, null).containsKey("data"));
+            assertEquals(List.of("GET /banks/ 200"), reported);
+        } finally {
+            Utils.setMetrics(null);
+            Utils.setBaseUrl(baseUrl);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Streaming response readers, fed from raw bytes as a transport would.
+ */
+class ModelReaderTest {
+    private static final Function<String, String> NO_HEADERS = name -> null;
+    private static final JsonCodec CODEC = new JsonSimpleCodec();
+
+    @Test
+    void testReadsListOfModels() throws Exception {
+        String body = "[{\"id\":161414,\"bank\":\"BDO Unibank\",\"bank_code\":\"BDO\",\"is_active\":true},"
+            + "{\"bank\":\"Metrobank\",\"id\":161416,\"branches\":[{\"id\":1,\"bank\":\"Nested\"}],"
+            + "\"meta\":{\"bank\":\"Nested\"},\"is_active\":false}]";
+
+        List<Bank> banks = ResponseReader.list(CODEC, Bank::new).read(200, NO_HEADERS, utf8(body));
+
+        assertEquals(2, banks.size());
+        assertEquals(161414L, banks.get(0).getId());
+        assertEquals("BDO Unibank", banks.get(0).getName());
+        assertEquals("BDO", banks.get(0).getCode());
+        assertTrue(banks.get(0).isActive());
+        assertEquals("Metrobank", banks.get(1).getName());
+        assertNull(banks.get(1).getCode());
+    }
+
+    @Test
+    void testReadsObjectWithEscapesAndNonAsciiText() throws Exception {
+        String body = "{\"id\":\"433\",\"bank\":161414,\"bank_name\":\"Banco \\\"Ñ\\\" \\u20b1\","
+            + "\"account_number\":\"0012\",\"account_name\":null}";
+
+        BankAccount account = ResponseReader.object(CODEC, BankAccount::new).read(201, NO_HEADERS, utf8(body));
+
+        assertEquals(433L, account.getId());
+        assertEquals(161414L, account.getBank());
+        assertEquals("Banco \"Ñ\" ₱", account.getBankName());
+        assertEquals("0012", account.getAccountNumber());
+        assertNull(account.getAccountName());
+    }
+
+    @Test
+    void testReadsEmptyList() throws Exception {
+        assertTrue(ResponseReader.list(CODEC, Bank::new).read(200, NO_HEADERS, utf8("[]")).isEmpty());
+    }
+
+    @Test
+    void testReportsApiErrors() {
+        Exception error = assertThrows(Exception.class, () -> ResponseReader.object(CODEC, OtpResponse::new)
+            .read(401, NO_HEADERS, utf8("{\"detail\":\"Authentication credentials were not provided.\"}")));
+        assertEquals("HTTP 401: Authentication credentials were not provided.", error.getMessage());
+
+        error = assertThrows(Exception.class,
+            () -> ResponseReader.list(CODEC, Bank::new).read(502, NO_HEADERS, utf8("<html>Bad gateway</html>")));
+        assertEquals("HTTP 502", error.getMessage());
+    }
+
+    @Test
+    void testRejectsUnexpectedShapes() {
+        assertThrows(Exception.class,
+            () -> ResponseReader.object(CODEC, OtpResponse::new).read(200, NO_HEADERS, utf8("[]")));
+        assertThrows(Exception.class,
+            () -> ResponseReader.list(CODEC, Bank::new).read(200, NO_HEADERS, utf8("[{\"id\":")));
+    }
+
+    @Test
+    void testReadsPayformLinkFromRedirect() throws Exception {
+        String url = "https://dev.traxionpay.com/payme/?data=abc";
+        Function<String, String> headers = name -> "Location".equals(name) ? url : null;
+        PayformLink link = ResponseReader.payformLink(CODEC).read(302, headers, utf8(""));
+        assertEquals(url, link.getUrl());
+
+        Exception error = assertThrows(Exception.class,
+            () -> ResponseReader.payformLink(CODEC).read(400, NO_HEADERS, utf8("{\"detail\":\"Invalid hash.\"}")));
+        assertEquals("HTTP 400: Invalid hash.", error.getMessage());
+    }
+
+    private static InputStream utf8(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,290 @@
+package txnpay;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.apache.http.Header;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recording, recovering and compacting an {@link OutboxJournal}.
+ */
+class OutboxJournalTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+    private static final int BANK_ACCOUNT = 433;
+
+    @TempDir
+    Path directory;
+
+    private static List<String> keys(OutboxJournal journal) {
+        return journal.unresolved().stream().map(JournalEntry::getKey).collect(Collectors.toList());
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void testAnsweredCallsAreResolved() throws Exception {
+        try (StubTraxionPayServer server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+                OutboxJournal journal = OutboxJournal.open(this.directory)) {
+            try (TraxionPay traxionpay = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY)
+                    .baseUrl(server.baseUrl()).journal(journal).build()) {
+                assertTrue(traxionpay.cashIn(ContractTest.cashIn("ORDER-1"), null).containsKey("url"));
+                String code = traxionpay.requestOTP().getCode();
+                traxionpay.requestPayout(new CashOutData(code, 150.0, BANK_ACCOUNT), "withdrawal-1");
+                // Rejected by the API, so known not to be executed.
+                assertThrows(ApiException.class,
+                    () -> traxionpay.requestPayout(new CashOutData("000000", 150.0, BANK_ACCOUNT), "withdrawal-2"));
+                traxionpay.listBanks();
+            }
+            assertEquals(0, journal.unresolved().size());
+        }
+        try (OutboxJournal reopened = OutboxJournal.open(this.directory)) {
+            assertEquals(0, reopened.unresolved().size());
+        }
+    }
+
+    @Test
+    void testUnansweredCallsAreReplayedAfterACrash() throws Exception {
+        StubTraxionPayServer server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+        String baseUrl = server.baseUrl();
+        server.close();
+
+        // Not closed, as if the process died.
+        OutboxJournal crashed = OutboxJournal.open(this.directory);
+        try (TraxionPay traxionpay = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(baseUrl)
+                .journal(crashed).build()) {
+            assertEquals(0, traxionpay.cashIn(ContractTest.cashIn("ORDER-1"), null).size());
+            CompletableFuture<PayoutResult> payout =
+                traxionpay.requestPayoutAsync(new CashOutData("123456", 150.0, BANK_ACCOUNT), "withdrawal-1");
+            assertThrows(Exception.class, payout::join);
+        }
+        assertEquals(2, crashed.unresolved().size());
+
+        try (OutboxJournal journal = OutboxJournal.open(this.directory)) {
+            List<JournalEntry> unresolved = journal.unresolved();
+            assertEquals(2, unresolved.size());
+
+            JournalEntry cashIn = unresolved.get(0);
+            assertEquals("/payform-link", cashIn.getEndpoint());
+            assertEquals("ORDER-1", cashIn.getKey());
+            assertTrue(cashIn.getPayload().startsWith("form_data="));
+            JournalEntry cashOut = unresolved.get(1);
+            assertEquals("/payout/bank-payout/", cashOut.getEndpoint());
+            assertEquals("withdrawal-1", cashOut.getKey());
+            assertEquals(new CashOutData("123456", 150.0, BANK_ACCOUNT).toJSON(), cashOut.getPayload());
+            assertTrue(cashOut.getId() > cashIn.getId());
+
+            journal.resolve(cashIn);
+            assertEquals(List.of("withdrawal-1"), keys(journal));
+        }
+        try (OutboxJournal journal = OutboxJournal.open(this.directory)) {
+            assertEquals(List.of("withdrawal-1"), keys(journal));
+        }
+    }
+
+    @Test
+    void testBatchCashInsAreJournaledByMerchantRefNo() throws Exception {
+        StubTraxionPayServer server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+        String baseUrl = server.baseUrl();
+        server.close();
+
+        try (OutboxJournal journal = OutboxJournal.open(this.directory);
+                TraxionPay traxionpay = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(baseUrl)
+                    .journal(journal).build()) {
+            List<CashInData> cashIns = List.of(ContractTest.cashIn("ORDER-1"), ContractTest.cashIn("ORDER-2"),
+                ContractTest.cashIn("ORDER-3"));
+            traxionpay.cashInBatch(cashIns, null, 2, result -> { }).get();
+
+            List<String> keys = keys(journal);
+            keys.sort(null);
+            assertEquals(List.of("ORDER-1", "ORDER-2", "ORDER-3"), keys);
+        }
+    }
+
+    @Test
+    void testPayformVerificationIsNotJournaled() throws Exception {
+        StubTraxionPayServer server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+        String baseUrl = server.baseUrl();
+        server.close();
+
+        BlockingQueue<String> completed = new LinkedBlockingQueue<>();
+        TraxionPayMetrics metrics = new TraxionPayMetrics() {
+            @Override
+            public void requestCompleted(String method, String endpoint, int status, long nanos,
+                    @Nullable Throwable error) {
+                completed.add(endpoint);
+            }
+        };
+        try (OutboxJournal journal = OutboxJournal.open(this.directory);
+                TraxionPay traxionpay = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(baseUrl)
+                    .journal(journal).metrics(metrics).verifyPayformUrls(1.0).build()) {
+            traxionpay.buildPayformUrl(ContractTest.cashIn("ORDER-1"), null);
+            assertEquals("/payform-link", completed.poll(5, TimeUnit.SECONDS));
+            assertEquals(0, journal.unresolved().size());
+        }
+    }
+
+    @Test
+    void testAsyncCallsAreRecordedOffTheCallersThread() throws Exception {
+        CompletableFuture<String> sentFrom = new CompletableFuture<>();
+        Transport sender = new Transport() {
+            @Override
+            public <T> T exchange(String method, String endpoint, @Nullable Header[] headers,
+                    @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <T> CompletableFuture<T> exchangeAsync(String method, String endpoint, @Nullable Header[] headers,
+                    @Nullable String json, @Nullable List payload, ResponseReader<T> reader) {
+                sentFrom.complete(Thread.currentThread().getName());
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public CompletableFuture<Integer> preconnect(int connections) {
+                return CompletableFuture.completedFuture(0);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (OutboxJournal journal = OutboxJournal.open(this.directory);
+                Transport transport = JournalingTransport.wrap(sender, journal, false)) {
+            transport.exchangeAsync("POST", "/payout/bank-payout/", "withdrawal-1", null, "{}", null,
+                (status, header, body) -> status).get(10, TimeUnit.SECONDS);
+            // Sent once durable, from the writer that waited for the disk.
+            assertEquals("traxionpay-journal", sentFrom.get());
+            assertEquals(List.of("withdrawal-1"), keys(journal));
+        }
+    }
+
+    @Test
+    void testTornWritesAreIgnored() throws Exception {
+        try (OutboxJournal journal = OutboxJournal.open(this.directory, 4096)) {
+            journal.intend("/payout/bank-payout/", "withdrawal-1", "{}");
+            journal.intend("/payout/bank-payout/", "withdrawal-2", "{}");
+        }
+
+        // Half of a third record: a length and some bytes that do not match their checksum.
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer contents = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int end = 0;
+            while (contents.getInt(end) != 0) {
+                end += 8 + contents.getInt(end);
+            }
+            contents.putInt(end, 60).putInt(end + 4, 12345).put(end + 8, (byte) 1);
+        }
+
+        try (OutboxJournal journal = OutboxJournal.open(this.directory, 4096)) {
+            assertEquals(List.of("withdrawal-1", "withdrawal-2"), keys(journal));
+            journal.intend("/payout/bank-payout/", "withdrawal-3", "{}");
+        }
+        try (OutboxJournal journal = OutboxJournal.open(this.directory, 4096)) {
+            assertEquals(List.of("withdrawal-1", "withdrawal-2", "withdrawal-3"), keys(journal));
+        }
+    }
+
+    @Test
+    void testFullSegmentsAreCompacted() throws Exception {
+        try (OutboxJournal journal = OutboxJournal.open(this.directory, 4096)) {
+            journal.intend("/payform-link", "ORDER-OLD", "form_data=old");
+            for (int i = 0; i < 2_000; i++) {
+                JournalEntry entry = journal.intend("/payform-link", "ORDER-" + i, "form_data=" + i);
+                if (i != 1_000) {
+                    journal.complete(entry, 200);
+                }
+            }
+            assertEquals(1, segments().size());
+            assertEquals(List.of("ORDER-OLD", "ORDER-1000"), keys(journal));
+        }
+
+        try (OutboxJournal journal = OutboxJournal.open(this.directory, 4096)) {
+            assertEquals(List.of("ORDER-OLD", "ORDER-1000"), keys(journal));
+            assertEquals(4096, Files.size(segments().get(0)));
+            JournalEntry next = journal.intend("/payform-link", "ORDER-NEW", "form_data=new");
+            assertTrue(next.getId() > journal.unresolved().get(1).getId());
+        }
+    }
+
+    @Test
+    void testReplacedSegmentsAreDeletedByTheNextForce() throws Exception {
+        try (OutboxJournal journal = OutboxJournal.open(this.directory, 4096)) {
+            JournalEntry open = journal.intend("/payform-link", "ORDER-OPEN", "form_data=open");
+            List<JournalEntry> entries = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                entries.add(journal.intend("/payform-link", "ORDER-" + i, "form_data=" + i));
+            }
+            // Outcomes are not forced, so a roll they cause leaves the old segment until the next intent.
+            for (JournalEntry entry : entries) {
+                journal.complete(entry, 200);
+            }
+            assertEquals(2, segments().size());
+            journal.intend("/payform-link", "ORDER-NEXT", "form_data=next");
+            assertEquals(1, segments().size());
+            assertEquals(List.of("ORDER-OPEN", "ORDER-NEXT"), keys(journal));
+            journal.complete(open, 200);
+        }
+        try (OutboxJournal journal = OutboxJournal.open(this.directory, 4096)) {
+            assertEquals(List.of("ORDER-NEXT"), keys(journal));
+        }
+    }
+
+    @Test
+    void testConcurrentCallsShareForces() throws Exception {
+        int threads = 16;
+        int calls = 200;
+        try (OutboxJournal journal = OutboxJournal.open(this.directory, 64 * 1024)) {
+            ExecutorService workers = Executors.newFixedThreadPool(threads);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                writers.add(workers.submit(() -> {
+                    for (int i = 0; i < calls; i++) {
+                        JournalEntry entry = journal.intend("/payout/bank-payout/", thread + "-" + i, "{}");
+                        if (i % 50 != 0) {
+                            journal.complete(entry, 200);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            workers.shutdown();
+
+            assertEquals(threads * calls / 50, journal.unresolved().size());
+            assertTrue(journal.syncs() < threads * calls, "forces: " + journal.syncs());
+        }
+        try (OutboxJournal journal = OutboxJournal.open(this.directory, 64 * 1024)) {
+            assertEquals(threads * calls / 50, journal.unresolved().size());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package txnpay;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.apache.commons.text.StringEscapeUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Golden tests: the streaming encoder must produce exactly the `form_data` of the
+ * original `JSONObject` / `unescapeJava` / Base64 pipeline.
+ */
+class PayformEncoderTest {
+    private static final String SECURE_HASH = "0f3a5c7e9b1d2f4a6c8e0b2d4f6a8c0e1f3a5c7e9b1d2f4a6c8e0b2d4f6a8c0e";
+    private static final String AUTH_HASH = "9b1d2f4a6c8e0b2d4f6a8c0e1f3a5c7e9b1d2f4a6c8e0b2d4f6a8c0e0f3a5c7e";
+    private static final int MERCHANT_ID = 6328;
+
+    /** Output of the original pipeline for {@code payform("ABC123DEF456", "My test payment", 1500.0, null)}. */
+    private static final String GOLDEN_JSON =
+        "{\"billing_last_name\":\"\",\"billing_phone\":\"\","
+        + "\"success_page_url\":\"https://devapi.traxionpay.com/callback\","
+        + "\"pending_page_url\":\"https://devapi.traxionpay.com/callback\","
+        + "\"auth_hash\":\"9b1d2f4a6c8e0b2d4f6a8c0e1f3a5c7e9b1d2f4a6c8e0b2d4f6a8c0e0f3a5c7e\","
+        + "\"description\":\"My test payment\",\"billing_mobile\":\"\",\"billing_address\":\"\","
+        + "\"merchant_id\":6328,\"billing_state\":\"\",\"billing_email\":\"\",\"merchant_ref_no\":\"ABC123DEF456\","
+        + "\"billing_zip\":\"\",\"currency\":\"PHP\","
+        + "\"cancel_page_url\":\"https://devapi.traxionpay.com/callback\",\"billing_first_name\":\"\","
+        + "\"alg\":\"HS256\",\"billing_address2\":\"\",\"payment_method\":\"\",\"amount\":1500.0,"
+        + "\"status_notification_url\":\"https://devapi.traxionpay.com/callback/\",\"billing_country\":\"\","
+        + "\"billing_remark\":\"\",\"billing_city\":\"\","
+        + "\"failure_page_url\":\"https://devapi.traxionpay.com/callback\","
+        + "\"secure_hash\":\"0f3a5c7e9b1d2f4a6c8e0b2d4f6a8c0e1f3a5c7e9b1d2f4a6c8e0b2d4f6a8c0e\","
+        + "\"billing_middle_name\":\"\",\"merchant_additional_data\":\"eyJwYXltZW50X2NvZGUiOiJYIn0=\"}";
+
+    private final PayformEncoder encoder = new PayformEncoder();
+
+    @Test
+    void testGoldenOutput() {
+        PayformData payform = payform("ABC123DEF456", "My test payment", 1500.0, null);
+
+        String golden = Base64.getEncoder().encodeToString(GOLDEN_JSON.getBytes(StandardCharsets.UTF_8));
+        assertEquals(golden, encoder.encode(payform));
+        assertEquals(legacy(payform), encoder.encode(payform));
+    }
+
+    @Test
+    void testMatchesLegacyWithBilling() {
+        BillingDetailsData billing = new BillingDetailsData("jane@example.com", "Jane", "Doe", null, "123",
+            "09171234567", "1 Main St.", null, "Makati", null, "1200", null, "VIP");
+
+        PayformData payform = payform("REF-1", "Order #1", 99.95, billing);
+        assertEquals(legacy(payform), encoder.encode(payform));
+    }
+
+    @Test
+    void testMatchesLegacyWithEscapedCharacters() {
+        String[] descriptions = {
+            "quote \" backslash \\ slash / done",
+            "tab\tnew\nline\rcr\bbs\ffeed",
+            "trailing backslash \\",
+            "\\u0041 and \\101 look like escapes",
+            "control \u0001\u001f and del \u007f",
+            "",
+        };
+        for (String description : descriptions) {
+            PayformData payform = payform("REF\"/\\", description, 0.1, null);
+            assertEquals(legacy(payform), encoder.encode(payform), description);
+        }
+    }
+
+    @Test
+    void testMatchesLegacyWithNullsAndSpecialAmounts() {
+        assertEquals(legacy(payform(null, null, null, null)), encoder.encode(payform(null, null, null, null)));
+        assertEquals(legacy(payform("R", "d", Double.NaN, null)), encoder.encode(payform("R", "d", Double.NaN, null)));
+        assertEquals(legacy(payform("R", "d", 1e-7, null)), encoder.encode(payform("R", "d", 1e-7, null)));
+    }
+
+    @Test
+    void testMatchesLegacyWithNonAsciiText() {
+        assumeTrue(Charset.defaultCharset().equals(StandardCharsets.UTF_8), "legacy path used the platform charset");
+
+        PayformData payform = payform("REF-ñ", "Bayad — ₱500 💳   \u0085", 500.0, null);
+        assertEquals(legacy(payform), encoder.encode(payform));
+    }
+
+    @Test
+    void testReusesBuffersAcrossSizes() {
+        StringBuilder longDescription = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            longDescription.append("long description ");
+        }
+
+        PayformData small = payform("S", "small", 1.0, null);
+        PayformData large = payform("L", longDescription.toString(), 2.0, null);
+        assertEquals(legacy(large), encoder.encode(large));
+        assertEquals(legacy(small), encoder.encode(small));
+    }
+
+    private static String legacy(PayformData payform) {
+        byte[] encoded = Base64.getEncoder().encode(StringEscapeUtils.unescapeJava(payform.toJSON()).getBytes());
+        return new String(encoded);
+    }
+
+    private static PayformData payform(String merchantRefNo, String description, Double amount,
+            BillingDetailsData billing) {
+        String additionalData = Utils.encodeAdditionalData("{\"payment_code\":\"X\"}");
+        CashInData cashIn = new CashInData(MERCHANT_ID, merchantRefNo, additionalData, amount, description,
+            "https://devapi.traxionpay.com/callback/", "https://devapi.traxionpay.com/callback",
+            "https://devapi.traxionpay.com/callback", "https://devapi.traxionpay.com/callback",
+            "https://devapi.traxionpay.com/callback", "", "");
+        return new PayformData(cashIn, billing, SECURE_HASH, AUTH_HASH, "HS256");
+    }
+}
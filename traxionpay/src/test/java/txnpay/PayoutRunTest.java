@@ -0,0 +1,146 @@
+package txnpay;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * `cashOutBatch` against {@link StubTraxionPayServer}.
+ */
+class PayoutRunTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+    private static final Duration VALID = Duration.ofMinutes(5);
+    private static final int TIMEOUT_SECONDS = 30;
+    private static final int BANK_ACCOUNT = 433;
+
+    private StubTraxionPayServer server;
+    private TraxionPay traxionpay;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+        traxionpay = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(server.baseUrl()).build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        traxionpay.close();
+        server.close();
+    }
+
+    private static List<PayoutOrder> orders(int count) {
+        List<PayoutOrder> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            orders.add(new PayoutOrder("SETTLE-" + i, 100.0 + i, BANK_ACCOUNT));
+        }
+        return orders;
+    }
+
+    @Test
+    void testPaysEveryOrderWithItsOwnOtp() throws Exception {
+        server.latency(Duration.ofMillis(5), Duration.ofMillis(20));
+        List<PayoutOutcome> outcomes = new ArrayList<>();
+        PayoutRun run = traxionpay.cashOutBatch(orders(40), 4, VALID, outcomes::add);
+        PayoutReport report = run.completion().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(40, outcomes.size());
+        assertEquals(40, report.getSucceeded());
+        assertEquals(0, report.getFailed());
+        assertEquals(0, report.getPending());
+        assertEquals(40 * 100.0 + 39 * 40 / 2, report.getAmountPaid());
+        assertEquals(40, report.getOtpsFetched());
+        assertEquals(40, server.requestCount("/payout/bank-payout/get-otp/"));
+        assertEquals(40, server.requestCount("/payout/bank-payout/"));
+
+        PayoutOutcome outcome = run.getOutcome("SETTLE-7");
+        assertEquals(PayoutOutcome.State.SUCCEEDED, outcome.getState());
+        assertEquals(107.0, outcome.getResult().getAmount());
+    }
+
+    @Test
+    void testOtpRequestsOverlapPayouts() throws Exception {
+        server.latency(Duration.ofMillis(100), Duration.ofMillis(100));
+        // One at a time, fetching each OTP just before its payout would take 8 * 200 ms.
+        PayoutReport report = traxionpay.cashOutBatch(orders(8), 1, VALID, outcome -> { })
+            .completion().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(8, report.getSucceeded());
+        assertTrue(report.getElapsed().toMillis() < 1300, report.toString());
+    }
+
+    @Test
+    void testExpiredOtpsAreReplaced() throws Exception {
+        server.latency(Duration.ofMillis(100), Duration.ofMillis(100));
+        PayoutReport report = traxionpay.cashOutBatch(orders(4), 1, Duration.ofMillis(150), outcome -> { })
+            .completion().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(4, report.getSucceeded());
+        assertTrue(report.getOtpsExpired() > 0, report.toString());
+        assertEquals(report.getOtpsFetched(), server.requestCount("/payout/bank-payout/get-otp/"));
+    }
+
+    @Test
+    void testRejectedOtpIsRetriedOnce() throws Exception {
+        server.latency(Duration.ofMillis(100), Duration.ofMillis(100)).otpValidity(Duration.ofMillis(150));
+        // Prefetched OTPs are about 200 ms old when used, fresh ones about 100 ms.
+        PayoutReport report = traxionpay.cashOutBatch(orders(3), 1, VALID, outcome -> { })
+            .completion().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(3, report.getSucceeded(), report.toString());
+        assertTrue(report.getOtpsFetched() > 3, report.toString());
+    }
+
+    @Test
+    void testFailuresAreReportedWithoutStoppingTheRun() throws Exception {
+        List<PayoutOrder> orders = orders(10);
+        orders.set(3, new PayoutOrder("UNKNOWN-ACCOUNT", 50.0, 999));
+        PayoutRun run = traxionpay.cashOutBatch(orders, 3, VALID, outcome -> { });
+        PayoutReport report = run.completion().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(9, report.getSucceeded());
+        assertEquals(1, report.getFailed());
+        PayoutOutcome failed = report.getFailures().get(0);
+        assertEquals("UNKNOWN-ACCOUNT", failed.getReference());
+        assertEquals("HTTP 400: Unknown bank account.", failed.getError().getMessage());
+        assertEquals(PayoutOutcome.State.FAILED, run.getOutcome("UNKNOWN-ACCOUNT").getState());
+        assertEquals(10, report.getOtpsFetched());
+    }
+
+    @Test
+    void testOrdersFailingAtOnceDoNotRecurse() throws Exception {
+        // Like an open circuit breaker or a closed transport: every future has already failed.
+        CompletableFuture<OtpResponse> noOtp = new CompletableFuture<>();
+        noOtp.completeExceptionally(new CircuitOpenException("/payout/bank-payout/get-otp/", VALID));
+        CompletableFuture<PayoutResult> noPayout = new CompletableFuture<>();
+        noPayout.completeExceptionally(new CircuitOpenException("/payout/bank-payout/", VALID));
+        int count = 20_000;
+        List<PayoutOutcome> outcomes = new ArrayList<>();
+        PayoutRun run = new PayoutRun(orders(count), new OtpPrefetcher(() -> noOtp, VALID, 4, count),
+            (params, reference) -> noPayout, ForkJoinPool.commonPool(), outcomes::add).start(4);
+        PayoutReport report = run.completion().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(count, outcomes.size());
+        assertEquals(count, report.getFailed());
+        assertEquals(0, report.getPending());
+    }
+
+    @Test
+    void testRejectsDuplicateReferences() {
+        List<PayoutOrder> orders = orders(2);
+        orders.add(new PayoutOrder("SETTLE-0", 1.0, BANK_ACCOUNT));
+
+        assertThrows(IllegalArgumentException.class, () -> traxionpay.cashOutBatch(orders, 2, VALID, outcome -> { }));
+        assertEquals(0, server.requestCount("/payout/bank-payout/get-otp/"));
+    }
+}
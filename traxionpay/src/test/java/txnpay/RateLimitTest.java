@@ -0,0 +1,121 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Client-side rate limits and scheduling against {@link StubTraxionPayServer}.
+ */
+class RateLimitTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+
+    private StubTraxionPayServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private TraxionPay.Builder builder() {
+        return TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(server.baseUrl());
+    }
+
+    @Test
+    void testFailFast() throws Exception {
+        try (TraxionPay traxionpay = builder().rateLimit("/banks/", 2, Duration.ofMinutes(1), 2)
+                .rateLimitMode(RateLimitMode.FAIL_FAST, Duration.ZERO).build()) {
+            traxionpay.listBanks();
+            traxionpay.listBanks();
+            RateLimitedException error = assertThrows(RateLimitedException.class, traxionpay::listBanks);
+            assertEquals("/banks/", error.getEndpoint());
+            assertTrue(error.getRetryAfter().getSeconds() > 20, error.getRetryAfter().toString());
+
+            ExecutionException async = assertThrows(ExecutionException.class, () -> traxionpay.fetchBanksAsync().get());
+            assertTrue(async.getCause() instanceof RateLimitedException);
+            assertTrue(traxionpay.fetchBanks().isEmpty());
+            assertEquals(2, server.requestCount("/banks/"));
+
+            // Other endpoints are not limited.
+            traxionpay.requestOTP();
+            traxionpay.requestOTP();
+            traxionpay.requestOTP();
+        }
+    }
+
+    @Test
+    void testBlocksUntilPermitIsFree() throws Exception {
+        try (TraxionPay traxionpay = builder().rateLimit("/payout/", 10, Duration.ofSeconds(1), 1).build()) {
+            long start = System.nanoTime();
+            traxionpay.requestOTP();
+            traxionpay.listBankAccounts();
+            traxionpay.requestOTPAsync().get();
+            traxionpay.requestOTP();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue(elapsed >= 250, elapsed + " ms");
+            assertEquals(3, server.requestCount("/payout/bank-payout/get-otp/"));
+        }
+    }
+
+    @Test
+    void testQueuesUntilDeadline() throws Exception {
+        try (TraxionPay traxionpay = builder().rateLimit("/payout/", 1, Duration.ofSeconds(1), 1)
+                .rateLimitMode(RateLimitMode.QUEUE, Duration.ofMillis(100)).build()) {
+            traxionpay.requestOTP();
+            long start = System.nanoTime();
+            assertThrows(RateLimitedException.class, traxionpay::requestOTP);
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+
+            ExecutionException async = assertThrows(ExecutionException.class,
+                () -> traxionpay.requestOTPAsync().get());
+            assertTrue(async.getCause() instanceof RateLimitedException);
+
+            // Timed out calls give way: the next permit is still free a second after the first one.
+            Thread.sleep(850);
+            traxionpay.requestOTP();
+            assertEquals(2, server.requestCount("/payout/bank-payout/get-otp/"));
+        }
+    }
+
+    @Test
+    void testInteractiveCallsJumpAheadOfBatches() throws Exception {
+        try (TraxionPay traxionpay = builder().rateLimit("/payform-link", 20, Duration.ofSeconds(1), 1).build()) {
+            List<CashInData> cashIns = new ArrayList<>();
+            for (int i = 0; i < 20; i++) cashIns.add(ContractTest.cashIn("BULK-" + i));
+            AtomicInteger reported = new AtomicInteger();
+            CompletableFuture<Void> batch = traxionpay.cashInBatch(cashIns, null, 20, result -> {
+                assertTrue(result.isSuccess(), result.toString());
+                reported.incrementAndGet();
+            });
+
+            Thread.sleep(100);
+            JSONObject checkout = traxionpay.cashIn(ContractTest.cashIn("CHECKOUT-1"), null);
+            assertTrue(checkout.containsKey("url"));
+            assertTrue(reported.get() < 10, reported + " batch items went first");
+
+            batch.get(10, TimeUnit.SECONDS);
+            assertEquals(20, reported.get());
+            assertEquals(21, server.requestCount("/payform-link"));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package txnpay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Matching, expiry and memory of a {@link Reconciler}, and its {@link OpenItemTable}.
+ */
+class ReconcilerTest {
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Duration HOUR = Duration.ofHours(1);
+    private static final long MINUTES_PER_HOUR = HOUR.toMinutes();
+    private static final long DUPLICATE_MINUTES = 30;
+    private static final long SETTLED_MINUTE = 10;
+    private static final double AMOUNT = 1500.0;
+    private static final double SHORT_AMOUNT = 1499.99;
+    private static final double DECIMAL_AMOUNT = 10.10;
+    private static final double PAYOUT_AMOUNT = 150.0;
+    private static final int BANK_ACCOUNT = 433;
+    private static final double SMALL_AMOUNT = 20.0;
+    private static final double OTHER_AMOUNT = 30.0;
+    private static final double LATE_AMOUNT = 40.0;
+    /** Entries in the memory test, one a second, each settled this many entries later. */
+    private static final int ENTRIES = 1_000_000;
+    private static final int SETTLEMENT_LAG = 1000;
+    private static final int MEMORY_CHECK_EVERY = 100_000;
+    private static final long MEMORY_LIMIT = 1_000_000;
+    private static final int BURST = 100_000;
+    private static final int SHRINK_FACTOR = 10;
+    /** Operations and distinct keys of the comparison with `HashMap`, one key in 4 not Latin-1. */
+    private static final long SEED = 42;
+    private static final int OPERATIONS = 200_000;
+    private static final int DISTINCT_KEYS = 5000;
+    private static final int NON_LATIN1_ONE_IN = 4;
+    private static final long FEW_HASHES = 0x3FF;
+
+    private final List<Reconciliation> results = new ArrayList<>();
+    private long minute;
+
+    private static Instant at(long minutes) {
+        return T0.plus(Duration.ofMinutes(minutes));
+    }
+
+    /**
+     * @return the next minute after T0, for tests where only the order of entries matters
+     */
+    private Instant tick() {
+        return at(this.minute++);
+    }
+
+    private static WebhookEvent event(String merchantRefNo, String status, Double amount) {
+        WebhookEvent event = new WebhookEvent();
+        event.set("merchant_ref_no", merchantRefNo);
+        event.set("status", status);
+        event.set("amount", amount);
+        return event;
+    }
+
+    private Reconciliation only(Reconciliation.Type type, String key) {
+        assertEquals(1, this.results.size(), this.results.toString());
+        Reconciliation result = this.results.remove(0);
+        assertEquals(type, result.getType());
+        assertEquals(key, result.getKey());
+        return result;
+    }
+
+    @Test
+    void testMatchesInEitherOrder() {
+        Reconciler reconciler = new Reconciler(HOUR, HOUR, this.results::add);
+        Instant issuedAt = tick();
+        reconciler.issued(ContractTest.cashIn("ORDER-1"), issuedAt);
+        assertEquals(1, reconciler.openCount());
+        reconciler.settled(event("ORDER-1", "pending", AMOUNT), tick());
+        assertTrue(this.results.isEmpty());
+        Instant settledAt = tick();
+        reconciler.settled(event("ORDER-1", "paid", AMOUNT), settledAt);
+        Reconciliation matched = only(Reconciliation.Type.MATCHED, "ORDER-1");
+        assertEquals(AMOUNT, matched.getIssuedAmount());
+        assertEquals("PHP", matched.getSettledCurrency());
+        assertEquals(issuedAt, matched.getIssuedAt());
+        assertEquals(settledAt, matched.getSettledAt());
+
+        reconciler.settled("ORDER-2", DECIMAL_AMOUNT, "PHP", tick());
+        reconciler.issued("ORDER-2", DECIMAL_AMOUNT, null, tick());
+        only(Reconciliation.Type.MATCHED, "ORDER-2");
+
+        reconciler.issued(new PayoutOrder("PAYOUT-1", PAYOUT_AMOUNT, BANK_ACCOUNT), tick());
+        reconciler.settled("PAYOUT-1", PAYOUT_AMOUNT, "PHP", tick());
+        only(Reconciliation.Type.MATCHED, "PAYOUT-1");
+        assertEquals(0, reconciler.openCount());
+    }
+
+    @Test
+    void testReportsAmountAndCurrencyMismatches() {
+        Reconciler reconciler = new Reconciler(HOUR, HOUR, this.results::add);
+        reconciler.issued("ORDER-1", AMOUNT, "PHP", tick());
+        reconciler.settled("ORDER-1", SHORT_AMOUNT, "PHP", tick());
+        Reconciliation mismatch = only(Reconciliation.Type.AMOUNT_MISMATCH, "ORDER-1");
+        assertEquals(AMOUNT, mismatch.getIssuedAmount());
+        assertEquals(SHORT_AMOUNT, mismatch.getSettledAmount());
+
+        reconciler.settled("ORDER-2", AMOUNT, "USD", tick());
+        reconciler.issued("ORDER-2", AMOUNT, "PHP", tick());
+        assertEquals("USD", only(Reconciliation.Type.AMOUNT_MISMATCH, "ORDER-2").getSettledCurrency());
+
+        reconciler.issued("ORDER-3", null, "PHP", tick());
+        reconciler.settled("ORDER-3", null, "PHP", tick());
+        assertNull(only(Reconciliation.Type.AMOUNT_MISMATCH, "ORDER-3").getIssuedAmount());
+    }
+
+    @Test
+    void testReportsDuplicatesWithinTheWindow() {
+        Reconciler reconciler = new Reconciler(HOUR, Duration.ofMinutes(DUPLICATE_MINUTES), this.results::add);
+        reconciler.issued("ORDER-1", AMOUNT, null, at(0));
+        reconciler.issued("ORDER-1", AMOUNT, null, at(1));
+        Reconciliation duplicate = only(Reconciliation.Type.DUPLICATE, "ORDER-1");
+        assertEquals(at(1), duplicate.getIssuedAt());
+        assertNull(duplicate.getSettledAt());
+
+        reconciler.settled("ORDER-1", AMOUNT, null, at(2));
+        only(Reconciliation.Type.MATCHED, "ORDER-1");
+        reconciler.settled("ORDER-1", AMOUNT, null, at(DUPLICATE_MINUTES + 1));
+        assertEquals(at(DUPLICATE_MINUTES + 1), only(Reconciliation.Type.DUPLICATE, "ORDER-1").getSettledAt());
+
+        // Forgotten once the duplicate window has passed since the match.
+        reconciler.settled("ORDER-1", AMOUNT, null, at(DUPLICATE_MINUTES + 2));
+        assertTrue(this.results.isEmpty());
+        assertEquals(1, reconciler.openCount());
+    }
+
+    @Test
+    void testReportsMissingSidesAsTimeMoves() {
+        Reconciler reconciler = new Reconciler(HOUR, HOUR, this.results::add);
+        reconciler.issued("ORDER-1", AMOUNT, null, at(0));
+        reconciler.settled("ORDER-2", SMALL_AMOUNT, null, at(SETTLED_MINUTE));
+        reconciler.issued("ORDER-3", OTHER_AMOUNT, null, at(2 * SETTLED_MINUTE));
+        reconciler.settled("ORDER-3", OTHER_AMOUNT, null, at(MINUTES_PER_HOUR - 1));
+        only(Reconciliation.Type.MATCHED, "ORDER-3");
+
+        reconciler.issued("ORDER-4", LATE_AMOUNT, null, at(MINUTES_PER_HOUR));
+        Reconciliation missing = only(Reconciliation.Type.MISSING_SETTLEMENT, "ORDER-1");
+        assertEquals(AMOUNT, missing.getIssuedAmount());
+        assertNull(missing.getSettledAmount());
+
+        reconciler.advanceTo(at(MINUTES_PER_HOUR + SETTLED_MINUTE));
+        Reconciliation unmatched = only(Reconciliation.Type.UNMATCHED_SETTLEMENT, "ORDER-2");
+        assertEquals(SMALL_AMOUNT, unmatched.getSettledAmount());
+        assertEquals(at(SETTLED_MINUTE), unmatched.getSettledAt());
+        // Late entries do not move time back.
+        reconciler.settled("ORDER-4", LATE_AMOUNT, null, at(MINUTES_PER_HOUR + SETTLED_MINUTE / 2));
+        only(Reconciliation.Type.MATCHED, "ORDER-4");
+        assertEquals(0, reconciler.openCount());
+    }
+
+    @Test
+    void testFinishReportsEveryOpenEntry() {
+        Reconciler reconciler = new Reconciler(HOUR, HOUR, this.results::add);
+        reconciler.issued("ORDER-1", AMOUNT, null, tick());
+        reconciler.settled("ORDER-2", SMALL_AMOUNT, null, tick());
+        reconciler.issued("ORDER-3", OTHER_AMOUNT, null, tick());
+        reconciler.settled("ORDER-3", OTHER_AMOUNT, null, tick());
+        this.results.clear();
+
+        reconciler.finish();
+        Map<String, Reconciliation.Type> types = new HashMap<>();
+        this.results.forEach(result -> types.put(result.getKey(), result.getType()));
+        assertEquals(2, this.results.size());
+        assertEquals(Reconciliation.Type.MISSING_SETTLEMENT, types.get("ORDER-1"));
+        assertEquals(Reconciliation.Type.UNMATCHED_SETTLEMENT, types.get("ORDER-2"));
+        assertEquals(0, reconciler.openCount());
+
+        this.results.clear();
+        reconciler.settled("ORDER-3", OTHER_AMOUNT, null, tick());
+        assertTrue(this.results.isEmpty());
+    }
+
+    @Test
+    void testMemoryFollowsOpenEntries() {
+        Map<Reconciliation.Type, Integer> counts = new EnumMap<>(Reconciliation.Type.class);
+        Reconciler reconciler = new Reconciler(HOUR, Duration.ofMinutes(1),
+            result -> counts.merge(result.getType(), 1, Integer::sum));
+        long idle = reconciler.retainedBytes();
+        // A settlement a thousand orders behind, one entry a second.
+        for (int i = 0; i < ENTRIES; i++) {
+            reconciler.issued("ORDER-" + i, AMOUNT, null, T0.plusSeconds(i));
+            if (i >= SETTLEMENT_LAG) {
+                reconciler.settled("ORDER-" + (i - SETTLEMENT_LAG), AMOUNT, null, T0.plusSeconds(i));
+            }
+            if (i % MEMORY_CHECK_EVERY == 0) {
+                assertTrue(reconciler.retainedBytes() < MEMORY_LIMIT, "" + reconciler.retainedBytes());
+            }
+        }
+        assertEquals(SETTLEMENT_LAG, reconciler.openCount());
+        assertEquals(ENTRIES - SETTLEMENT_LAG, counts.get(Reconciliation.Type.MATCHED).intValue());
+
+        // After a burst of unsettled orders has expired, memory goes back down.
+        for (int i = 0; i < BURST; i++) {
+            reconciler.issued("BURST-" + i, 1.0, null, T0.plusSeconds(ENTRIES));
+        }
+        long burst = reconciler.retainedBytes();
+        reconciler.advanceTo(T0.plusSeconds(ENTRIES).plus(Duration.ofDays(1)));
+        assertEquals(BURST + SETTLEMENT_LAG, counts.get(Reconciliation.Type.MISSING_SETTLEMENT).intValue());
+        assertEquals(0, reconciler.openCount());
+        assertTrue(reconciler.retainedBytes() < burst / SHRINK_FACTOR, reconciler.retainedBytes() + " of " + burst);
+        assertTrue(reconciler.retainedBytes() <= 2 * idle, reconciler.retainedBytes() + " of " + idle);
+    }
+
+    @Test
+    void testOpenItemTableAgreesWithHashMap() {
+        OpenItemTable table = new OpenItemTable();
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(SEED);
+        for (int i = 0; i < OPERATIONS; i++) {
+            String prefix = random.nextInt(NON_LATIN1_ONE_IN) == 0 ? "Ödeme-₱" : "ORDER-";
+            String key = prefix + random.nextInt(DISTINCT_KEYS);
+            // Few distinct hashes, so that keys collide and probe runs are long.
+            long hash = OpenItemTable.hash(key) & FEW_HASHES | 1;
+            int slot = table.find(key, hash);
+            assertEquals(expected.containsKey(key), slot != OpenItemTable.NONE, key);
+            if (slot == OpenItemTable.NONE) {
+                slot = table.insert(key, hash);
+                table.set(slot, Reconciler.ISSUED, i, (short) 0, i);
+                expected.put(key, (long) i);
+            } else {
+                assertEquals(key, table.key(slot));
+                assertEquals(expected.get(key).longValue(), table.amount(slot));
+                table.remove(slot);
+                expected.remove(key);
+            }
+            assertEquals(expected.size(), table.size());
+        }
+        for (Map.Entry<String, Long> entry : expected.entrySet()) {
+            long hash = OpenItemTable.hash(entry.getKey()) & FEW_HASHES | 1;
+            int slot = table.find(hash, entry.getValue(), Reconciler.ISSUED);
+            assertEquals(entry.getKey(), table.key(slot));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Retries, backoff and circuit breaking against {@link StubTraxionPayServer}.
+ */
+class ResilienceTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+
+    private StubTraxionPayServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private TraxionPay.Builder builder() {
+        return TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(server.baseUrl())
+            .backoff(Duration.ofMillis(10), Duration.ofSeconds(2));
+    }
+
+    @Test
+    void testRetriesIdempotentCalls() throws Exception {
+        try (TraxionPay traxionpay = builder().retries(2).build()) {
+            server.failNext(2);
+            assertTrue(traxionpay.listBanks().size() > 0);
+            assertEquals(3, server.requestCount("/banks/"));
+
+            server.failNext(3);
+            ApiException error = assertThrows(ApiException.class, traxionpay::listBankAccounts);
+            assertEquals(500, error.getStatus());
+            assertEquals("Internal server error.", error.getDetail());
+            assertEquals(3, server.requestCount("/payout/bank-account/"));
+        }
+    }
+
+    @Test
+    void testUntypedCallsReturnTheLastResponse() throws Exception {
+        try (TraxionPay traxionpay = builder().retries(1).build()) {
+            server.failNext(1);
+            assertTrue(traxionpay.fetchBanks().containsKey("data"));
+
+            server.errorRate(1.0);
+            assertEquals("Internal server error.", traxionpay.fetchBanks().get("detail"));
+            assertEquals(4, server.requestCount("/banks/"));
+        }
+    }
+
+    @Test
+    void testRetriesAsyncCalls() throws Exception {
+        try (TraxionPay traxionpay = builder().retries(2).build()) {
+            server.failNext(2);
+            assertTrue(traxionpay.listBanksAsync().get().size() > 0);
+
+            server.errorRate(1.0);
+            ExecutionException error = assertThrows(ExecutionException.class,
+                () -> traxionpay.listBanksAsync().get());
+            assertEquals(500, ((ApiException) error.getCause()).getStatus());
+            assertEquals(6, server.requestCount("/banks/"));
+        }
+    }
+
+    @Test
+    void testNeverRetriesCallsWithSideEffects() throws Exception {
+        try (TraxionPay traxionpay = builder().retries(3).build()) {
+            server.errorRate(1.0);
+
+            assertThrows(ApiException.class, traxionpay::requestOTP);
+            assertThrows(ApiException.class, () -> traxionpay.requestPayout(new CashOutData("123456", 150.0, 433)));
+            assertEquals(1, server.requestCount("/payout/bank-payout/get-otp/"));
+            assertEquals(1, server.requestCount("/payout/bank-payout/"));
+        }
+    }
+
+    @Test
+    void testHonorsRetryAfter() throws Exception {
+        try (TraxionPay traxionpay = builder().retries(1).build()) {
+            server.throttleRate(1.0, Duration.ofSeconds(1));
+            long start = System.nanoTime();
+            ApiException error = assertThrows(ApiException.class, traxionpay::listBanks);
+
+            assertTrue(System.nanoTime() - start >= Duration.ofSeconds(1).toNanos());
+            assertEquals(429, error.getStatus());
+            assertEquals(2, server.requestCount("/banks/"));
+
+            // Longer than the maximum backoff: handed back to the caller at once.
+            server.throttleRate(1.0, Duration.ofSeconds(30));
+            error = assertThrows(ApiException.class, traxionpay::listBanks);
+            assertEquals(Duration.ofSeconds(30), error.getRetryAfter());
+            assertEquals(3, server.requestCount("/banks/"));
+        }
+    }
+
+    @Test
+    void testCircuitBreakerFailsFastPerEndpoint() throws Exception {
+        try (TraxionPay traxionpay = builder().circuitBreaker(2, Duration.ofMillis(300)).build()) {
+            server.failNext(2);
+            assertThrows(ApiException.class, traxionpay::listBanks);
+            assertThrows(ApiException.class, traxionpay::listBanks);
+
+            CircuitOpenException open = assertThrows(CircuitOpenException.class, traxionpay::listBanks);
+            assertEquals("/banks/", open.getEndpoint());
+            assertTrue(traxionpay.fetchBanks().isEmpty());
+            assertEquals(2, server.requestCount("/banks/"));
+            assertEquals(1, traxionpay.listBankAccounts().size());
+
+            Thread.sleep(350);
+            assertTrue(traxionpay.listBanks().size() > 0);
+            assertTrue(traxionpay.listBanks().size() > 0);
+            assertEquals(4, server.requestCount("/banks/"));
+        }
+    }
+
+    @Test
+    void testWrapsConnectionFailures() throws Exception {
+        String baseUrl = server.baseUrl();
+        server.close();
+        try (TraxionPay traxionpay = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(baseUrl)
+                .retries(2).backoff(Duration.ofMillis(10), Duration.ofMillis(50)).build()) {
+            TraxionPayException error = assertThrows(TraxionPayException.class, traxionpay::listBanks);
+
+            assertTrue(error.getCause() instanceof IOException, String.valueOf(error.getCause()));
+        }
+    }
+}
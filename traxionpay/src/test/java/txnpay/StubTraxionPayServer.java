@@ -0,0 +1,496 @@
+package txnpay;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+/**
+ * Local stand-in for the TraxionPay API, for integration, regression and load tests
+ * that must not depend on `devapi.traxionpay.com`.
+ *
+ * Implements `/payform-link`, `/banks/`, `/payout/bank-account/`, `/payout/bank-payout/get-otp/`
+ * and `/payout/bank-payout/`. Payforms are checked against the same hashes the SDK computes,
+ * payout endpoints require the SDK's Basic token, and payouts only accept an OTP issued by this
+ * server. Latency, error rate and throttling (429 with `Retry-After`) can be changed while it runs.
+ *
+ * Shipped in the test-jar:
+ * <pre>
+ * try (StubTraxionPayServer server = StubTraxionPayServer.start(apiKey, secretKey)) {
+ *     TraxionPay traxionpay = TraxionPay.builder()
+ *         .apiKey(apiKey).secretKey(secretKey).baseUrl(server.baseUrl()).build();
+ *     ...
+ * }
+ * </pre>
+ */
+@SuppressWarnings("checkstyle:hiddenfield")
+public final class StubTraxionPayServer implements AutoCloseable {
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int BACKLOG = 1024;
+    private static final int BANK_ACCOUNT_ID = 433;
+    private static final int BANK_ID = 161414;
+    /** OTPs are six digits. */
+    private static final int MIN_OTP = 100_000;
+    private static final int MAX_OTP = 1_000_000;
+    private static final String FORM_DATA = "form_data=";
+    /** HTTP dates drop the milliseconds. */
+    private static final long HTTP_DATE_SLACK_MILLIS = 999;
+
+    static {
+        // Without TCP_NODELAY, split header/body writes stall on delayed ACKs (~40 ms per exchange).
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final String apiKey;
+    private final String secretKey;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, Headers> lastHeaders = new ConcurrentHashMap<>();
+    private final List<JSONObject> bankAccounts = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> issuedOtps = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger(400);
+    private final Map<String, LongAdder> notModifiedCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> bytesSent = new ConcurrentHashMap<>();
+    private final long banksModified = System.currentTimeMillis();
+    private volatile long bankAccountsModified = System.currentTimeMillis();
+
+    private volatile Duration minLatency = Duration.ZERO;
+    private volatile Duration maxLatency = Duration.ZERO;
+    private volatile double errorRate;
+    private volatile double throttleRate;
+    private volatile Duration retryAfter = Duration.ofSeconds(1);
+    private volatile Duration otpValidity;
+    private volatile boolean etags = true;
+    private volatile boolean lastModified = true;
+    private volatile String contentEncoding = "gzip";
+    private final AtomicInteger failNext = new AtomicInteger();
+
+    private StubTraxionPayServer(String apiKey, String secretKey) throws IOException {
+        this.apiKey = apiKey;
+        this.secretKey = secretKey;
+
+        JSONObject account = new JSONObject();
+        account.put("id", BANK_ACCOUNT_ID);
+        account.put("bank", BANK_ID);
+        account.put("bank_name", "BDO Unibank");
+        account.put("account_type", "savings");
+        account.put("account_name", "John Doe");
+        account.put("account_number", "123412341234");
+        this.bankAccounts.add(account);
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), BACKLOG);
+        this.server.createContext("/payform-link", exchange -> handle(exchange, this::payformLink));
+        this.server.createContext("/banks/", exchange -> handle(exchange, this::banks));
+        this.server.createContext("/payout/bank-account/", exchange -> handle(exchange, this::bankAccount));
+        this.server.createContext("/payout/bank-payout/get-otp/", exchange -> handle(exchange, this::otp));
+        this.server.createContext("/payout/bank-payout/", exchange -> handle(exchange, this::payout));
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-traxionpay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+        this.server.start();
+    }
+
+    /**
+     * Starts a server on an ephemeral loopback port.
+     *
+     * @param apiKey    key the payform `auth_hash` must be signed for
+     * @param secretKey secret used to verify hashes and the Basic token
+     * @return StubTraxionPayServer
+     * @throws IOException
+     */
+    public static StubTraxionPayServer start(String apiKey, String secretKey) throws IOException {
+        return new StubTraxionPayServer(apiKey, secretKey);
+    }
+
+    /**
+     * @return URL to pass to `TraxionPay.Builder.baseUrl`
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + this.server.getAddress().getPort();
+    }
+
+    /**
+     * Delays every response by a random duration in [min, max].
+     *
+     * @param min
+     * @param max
+     * @return this server
+     */
+    public StubTraxionPayServer latency(Duration min, Duration max) {
+        this.minLatency = min;
+        this.maxLatency = max;
+        return this;
+    }
+
+    /**
+     * @param errorRate fraction of requests answered with 500
+     * @return this server
+     */
+    public StubTraxionPayServer errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * @param requests  number of upcoming requests, on any endpoint, answered with 500
+     * @return this server
+     */
+    public StubTraxionPayServer failNext(int requests) {
+        this.failNext.set(requests);
+        return this;
+    }
+
+    /**
+     * @param throttleRate  fraction of requests answered with 429
+     * @param retryAfter    value of the `Retry-After` header sent with them
+     * @return this server
+     */
+    public StubTraxionPayServer throttleRate(double throttleRate, Duration retryAfter) {
+        this.throttleRate = throttleRate;
+        this.retryAfter = retryAfter;
+        return this;
+    }
+
+    /**
+     * @param otpValidity   how long after issuing an OTP a payout accepts it; no limit by default
+     * @return this server
+     */
+    public StubTraxionPayServer otpValidity(Duration otpValidity) {
+        this.otpValidity = otpValidity;
+        return this;
+    }
+
+    /**
+     * Which validators the bank and bank account lists carry; both by default.
+     *
+     * @param etag          whether to send `ETag` and honour `If-None-Match`
+     * @param lastModified  whether to send `Last-Modified` and honour `If-Modified-Since`
+     * @return this server
+     */
+    public StubTraxionPayServer validators(boolean etag, boolean lastModified) {
+        this.etags = etag;
+        this.lastModified = lastModified;
+        return this;
+    }
+
+    /**
+     * @param contentEncoding   "gzip" (the default), "deflate" or null, used for the bank and
+     *                          bank account lists when the client accepts it
+     * @return this server
+     */
+    public StubTraxionPayServer contentEncoding(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+        return this;
+    }
+
+    /**
+     * @param path  endpoint, e.g. "/banks/"
+     * @return number of requests answered with 304 Not Modified
+     */
+    public long notModifiedCount(String path) {
+        LongAdder count = this.notModifiedCounts.get(path);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @param path  endpoint, e.g. "/banks/"
+     * @return body bytes sent for the bank and bank account lists, after compression
+     */
+    public long bytesSent(String path) {
+        LongAdder count = this.bytesSent.get(path);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @param path  endpoint, e.g. "/banks/"
+     * @return number of requests received on that endpoint, including failed ones
+     */
+    public long requestCount(String path) {
+        LongAdder count = this.requestCounts.get(path);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @param path  endpoint, e.g. "/payout/bank-payout/"
+     * @param name  request header
+     * @return its value on the latest request to that endpoint, or null
+     */
+    public String lastRequestHeader(String path, String name) {
+        Headers headers = this.lastHeaders.get(path);
+        return headers == null ? null : headers.getFirst(name);
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    @SuppressWarnings("checkstyle:illegalcatch")
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        try {
+            String path = exchange.getHttpContext().getPath();
+            this.requestCounts.computeIfAbsent(path, key -> new LongAdder()).increment();
+            this.lastHeaders.put(path, exchange.getRequestHeaders());
+            byte[] body = readBody(exchange);
+
+            sleep();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < this.throttleRate) {
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(this.retryAfter.getSeconds()));
+                send(exchange, TOO_MANY_REQUESTS, detail("Request was throttled."));
+            } else if (this.failNext.getAndUpdate(n -> Math.max(0, n - 1)) > 0
+                    || random.nextDouble() < this.errorRate) {
+                send(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, detail("Internal server error."));
+            } else {
+                endpoint.handle(exchange, new String(body, StandardCharsets.UTF_8));
+            }
+        } catch (Exception e) {
+            send(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, detail(e.toString()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void payformLink(HttpExchange exchange, String body) throws Exception {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            send(exchange, HttpURLConnection.HTTP_BAD_METHOD, detail("Method not allowed."));
+            return;
+        }
+        String formData = null;
+        for (String field : body.split("&")) {
+            if (field.startsWith(FORM_DATA)) {
+                formData = URLDecoder.decode(field.substring(FORM_DATA.length()), "UTF-8");
+            }
+        }
+        if (formData == null) {
+            send(exchange, HttpURLConnection.HTTP_BAD_REQUEST, detail("form_data is required."));
+            return;
+        }
+
+        JSONObject payform = (JSONObject) new JSONParser().parse(
+            new String(Base64.getDecoder().decode(formData), StandardCharsets.UTF_8));
+        String dataToHash = "" + payform.get("merchant_ref_no") + payform.get("amount") + payform.get("currency")
+            + payform.get("description");
+        boolean validAuth = Utils.hmacSha256Digest(this.apiKey, this.secretKey).equals(payform.get("auth_hash"));
+        boolean validHash = Utils.hmacSha256Digest(dataToHash, this.secretKey).equals(payform.get("secure_hash"));
+        if (!validAuth || !validHash) {
+            send(exchange, HttpURLConnection.HTTP_BAD_REQUEST, detail("Invalid hash."));
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Location", "https://dev.traxionpay.com/payme/?data=" + formData);
+        send(exchange, HttpURLConnection.HTTP_MOVED_TEMP, null);
+    }
+
+    private void banks(HttpExchange exchange, String body) throws IOException {
+        JSONArray banks = new JSONArray();
+        String[][] names = {{"161414", "BDO Unibank"}, {"161415", "Bank of the Philippine Islands"},
+            {"161416", "Metrobank"}, {"161417", "Landbank of the Philippines"}};
+        for (String[] name : names) {
+            JSONObject bank = new JSONObject();
+            bank.put("id", Integer.valueOf(name[0]));
+            bank.put("bank", name[1]);
+            banks.add(bank);
+        }
+        sendList(exchange, banks.toJSONString(), this.banksModified);
+    }
+
+    private void bankAccount(HttpExchange exchange, String body) throws Exception {
+        if (!authorized(exchange)) {
+            return;
+        }
+
+        if ("GET".equals(exchange.getRequestMethod())) {
+            JSONArray accounts = new JSONArray();
+            accounts.addAll(this.bankAccounts);
+            sendList(exchange, accounts.toJSONString(), this.bankAccountsModified);
+            return;
+        }
+
+        JSONObject params = (JSONObject) new JSONParser().parse(body);
+        JSONObject account = new JSONObject();
+        account.put("id", this.ids.incrementAndGet());
+        account.put("bank", params.get("bank"));
+        account.put("bank_name", "Bank " + params.get("bank"));
+        account.put("account_type", params.get("account_type"));
+        account.put("account_name", params.get("account_name"));
+        account.put("account_number", params.get("account_number"));
+        this.bankAccounts.add(account);
+        this.bankAccountsModified = System.currentTimeMillis();
+        send(exchange, HttpURLConnection.HTTP_CREATED, account.toJSONString());
+    }
+
+    private void otp(HttpExchange exchange, String body) throws IOException {
+        if (!authorized(exchange)) {
+            return;
+        }
+
+        String code = String.valueOf(ThreadLocalRandom.current().nextInt(MIN_OTP, MAX_OTP));
+        this.issuedOtps.put(code, System.nanoTime());
+        JSONObject otp = new JSONObject();
+        otp.put("code", code);
+        send(exchange, HttpURLConnection.HTTP_OK, otp.toJSONString());
+    }
+
+    private void payout(HttpExchange exchange, String body) throws Exception {
+        if (!authorized(exchange)) {
+            return;
+        }
+
+        JSONObject params = (JSONObject) new JSONParser().parse(body);
+        Object otp = params.get("OTP");
+        Long issuedAt = otp != null ? this.issuedOtps.remove(otp.toString()) : null;
+        Duration validity = this.otpValidity;
+        if (issuedAt == null || (validity != null && System.nanoTime() - issuedAt > validity.toNanos())) {
+            send(exchange, HttpURLConnection.HTTP_BAD_REQUEST, detail("Invalid OTP."));
+            return;
+        }
+        Object bankAccount = params.get("bank_account");
+        boolean known = false;
+        for (JSONObject account : this.bankAccounts) {
+            known |= String.valueOf(account.get("id")).equals(String.valueOf(bankAccount));
+        }
+        if (!known) {
+            send(exchange, HttpURLConnection.HTTP_BAD_REQUEST, detail("Unknown bank account."));
+            return;
+        }
+
+        JSONObject payout = new JSONObject();
+        payout.put("id", this.ids.incrementAndGet());
+        payout.put("amount", params.get("amount"));
+        payout.put("bank_account", bankAccount);
+        payout.put("status", "pending");
+        send(exchange, HttpURLConnection.HTTP_OK, payout.toJSONString());
+    }
+
+    private boolean authorized(HttpExchange exchange) throws IOException {
+        String expected = "Basic "
+            + Base64.getEncoder().encodeToString(this.secretKey.getBytes(StandardCharsets.UTF_8));
+        if (expected.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            return true;
+        }
+
+        send(exchange, HttpURLConnection.HTTP_UNAUTHORIZED, detail("Authentication credentials were not provided."));
+        return false;
+    }
+
+    private void sleep() throws InterruptedException {
+        long min = this.minLatency.toMillis();
+        long max = this.maxLatency.toMillis();
+        long latency = max > min ? ThreadLocalRandom.current().nextLong(min, max + 1) : min;
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+    }
+
+    private static String detail(String message) {
+        JSONObject detail = new JSONObject();
+        detail.put("detail", message);
+        return detail.toJSONString();
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Sends a list with the configured validators, or 304 when the request's match, compressed
+     * when the client accepts the configured encoding.
+     */
+    private void sendList(HttpExchange exchange, String body, long modified) throws IOException {
+        String path = exchange.getHttpContext().getPath();
+        Headers request = exchange.getRequestHeaders();
+        Headers response = exchange.getResponseHeaders();
+        String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+        String modifiedAt = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+            ZonedDateTime.ofInstant(Instant.ofEpochMilli(modified), ZoneOffset.UTC));
+        if (this.etags) {
+            response.add("ETag", etag);
+        }
+        if (this.lastModified) {
+            response.add("Last-Modified", modifiedAt);
+        }
+
+        String ifNoneMatch = request.getFirst("If-None-Match");
+        String ifModifiedSince = request.getFirst("If-Modified-Since");
+        boolean notModified = this.etags && ifNoneMatch != null ? ifNoneMatch.equals(etag)
+            : this.lastModified && ifModifiedSince != null && !Instant.ofEpochMilli(modified)
+                .isAfter(ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+                    .plusMillis(HTTP_DATE_SLACK_MILLIS));
+        if (notModified) {
+            this.notModifiedCounts.computeIfAbsent(path, key -> new LongAdder()).increment();
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+            return;
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String encoding = this.contentEncoding;
+        String accepted = request.getFirst("Accept-Encoding");
+        if (encoding != null && accepted != null && accepted.contains(encoding)) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream out = "gzip".equals(encoding)
+                    ? new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed)) {
+                out.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            response.add("Content-Encoding", encoding);
+        }
+        this.bytesSent.computeIfAbsent(path, key -> new LongAdder()).add(bytes.length);
+        response.add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private interface Endpoint {
+        void handle(HttpExchange exchange, String body) throws Exception;
+    }
+}
@@ -0,0 +1,140 @@
+package txnpay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs `TraxionPay.builder().virtualThreads()`, with its journal, retries, rate limits and
+ * idempotency registries, under `-Djdk.tracePinnedThreads` (set by the surefire configuration)
+ * and checks that the JVM reports no pinned carrier threads.
+ */
+class VirtualThreadsTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+    private static final int CALLS = 500;
+    private static final int KINDS = 4;
+    private static final int TIMEOUT_SECONDS = 60;
+    private static final long PIN_MILLIS = 10;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @ExtendWith(PinningTraced.class)
+    void testNoPinningOnVirtualThreads() throws Exception {
+        List<JSONObject> results = new ArrayList<>();
+        try (StubTraxionPayServer server = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+                OutboxJournal journal = OutboxJournal.open(this.directory);
+                TraxionPay traxionpay = TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY)
+                    .baseUrl(server.baseUrl()).virtualThreads().journal(journal).retries(2)
+                    .rateLimit("/payform-link", CALLS, Duration.ofSeconds(1), CALLS / KINDS)
+                    .idempotencyWindow(Duration.ofMinutes(1), CALLS).build()) {
+            String trace = tracePinning(() -> {
+                ExecutorService callers = VirtualThreads.newPerTaskExecutor();
+                List<Future<JSONObject>> calls = new ArrayList<>();
+                for (int i = 0; i < CALLS; i++) {
+                    int call = i;
+                    calls.add(callers.submit(() -> call(traxionpay, call)));
+                }
+                for (Future<JSONObject> call : calls) {
+                    results.add(call.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                }
+                callers.shutdown();
+            });
+
+            assertEquals("", trace);
+            assertTrue(journal.unresolved().isEmpty(), journal.unresolved().toString());
+        }
+        assertEquals(CALLS, results.size());
+        for (JSONObject result : results) {
+            assertTrue(result.containsKey("url") || result.containsKey("data"), result.toString());
+        }
+    }
+
+    /**
+     * @return a journaled cash in, blocking or not, or a bank list
+     */
+    private static JSONObject call(TraxionPay traxionpay, int call) throws Exception {
+        switch (call % KINDS) {
+            case 0:
+                return traxionpay.cashIn(ContractTest.cashIn("ORDER-" + call), null);
+            case 1:
+                return traxionpay.cashInAsync(ContractTest.cashIn("ORDER-" + call), null)
+                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            case 2:
+                // Repeats the previous order, answered by the idempotency registry.
+                return traxionpay.cashIn(ContractTest.cashIn("ORDER-" + (call - 1)), null);
+            default:
+                return traxionpay.fetchBanks();
+        }
+    }
+
+    private static void pinCarrier() throws Exception {
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor();
+        Object lock = new Object();
+        executor.submit(() -> {
+            synchronized (lock) {
+                Thread.sleep(PIN_MILLIS);
+            }
+            return null;
+        }).get();
+        executor.shutdown();
+    }
+
+    private static String tracePinning(Work work) throws Exception {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true, "UTF-8"));
+        try {
+            work.run();
+        } finally {
+            System.setOut(stdout);
+        }
+        return captured.toString("UTF-8");
+    }
+
+    private interface Work {
+        void run() throws Exception;
+    }
+
+    /**
+     * Enables the test where the JVM traces pinned carriers: Java 21 to 23, started with
+     * `-Djdk.tracePinnedThreads`. Java 24 no longer pins on monitors and dropped the option.
+     */
+    static final class PinningTraced implements ExecutionCondition {
+        @Override
+        public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+            if (!VirtualThreads.isSupported()) {
+                return ConditionEvaluationResult.disabled("Virtual threads require Java 21 or newer");
+            }
+            if (System.getProperty("jdk.tracePinnedThreads") == null) {
+                return ConditionEvaluationResult.disabled("Run with -Djdk.tracePinnedThreads");
+            }
+            try {
+                if (tracePinning(VirtualThreadsTest::pinCarrier).isEmpty()) {
+                    return ConditionEvaluationResult.disabled("This JVM does not report pinned threads");
+                }
+            } catch (Exception e) {
+                return ConditionEvaluationResult.disabled("Probing for pinned threads failed: " + e);
+            }
+            return ConditionEvaluationResult.enabled("Pinned threads are traced");
+        }
+    }
+}
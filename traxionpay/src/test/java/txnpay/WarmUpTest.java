@@ -0,0 +1,119 @@
+package txnpay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.Test;
+
+/**
+ * `TraxionPay.warmUp` on both transports, counting the connections an {@link H2cStubServer} accepts.
+ */
+class WarmUpTest {
+    private static final String API_KEY = "7)5dmcfy^dp*9bdrcfcm$k-n=p7b!x(t)_f^i8mxl@v_+rno*x";
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+
+    private static TraxionPay.Builder client(String baseUrl) {
+        return TraxionPay.builder().apiKey(API_KEY).secretKey(SECRET_KEY).baseUrl(baseUrl);
+    }
+
+    /**
+     * @return connections accepted once `expected` are, or after a second; Jetty registers them asynchronously
+     */
+    private static int connections(H2cStubServer server, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (server.connectionCount() < expected && System.nanoTime() < deadline) Thread.sleep(10);
+        return server.connectionCount();
+    }
+
+    @Test
+    void testOpensPooledConnectionsWithoutRequests() throws Exception {
+        StubTraxionPayServer backend = StubTraxionPayServer.start(API_KEY, SECRET_KEY)
+            .latency(Duration.ofMillis(50), Duration.ofMillis(50));
+        try (H2cStubServer server = H2cStubServer.start(backend);
+                TraxionPay traxionpay = client(server.baseUrl()).build()) {
+            assertEquals(4, traxionpay.warmUp(4));
+            assertEquals(4, connections(server, 4));
+            assertEquals(0, backend.requestCount("/banks/") + backend.requestCount("/payform-link"));
+
+            ExecutorService callers = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<JSONObject>> calls = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    String ref = "ORDER-" + i;
+                    calls.add(callers.submit(() -> traxionpay.cashIn(ContractTest.cashIn(ref), null)));
+                }
+                for (Future<JSONObject> call : calls) {
+                    assertTrue(call.get(10, TimeUnit.SECONDS).containsKey("url"));
+                }
+            } finally {
+                callers.shutdown();
+            }
+            assertEquals(4, connections(server, 4));
+        }
+    }
+
+    @Test
+    void testOpensOneConnectionOverHttp2() throws Exception {
+        StubTraxionPayServer backend = StubTraxionPayServer.start(API_KEY, SECRET_KEY);
+        try (H2cStubServer server = H2cStubServer.start(backend);
+                TraxionPay traxionpay = client(server.baseUrl()).http2().build()) {
+            assertEquals(1, traxionpay.warmUpAsync(8).get(10, TimeUnit.SECONDS));
+            assertEquals(1, backend.requestCount("/banks/"));
+
+            List<CompletableFuture<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                calls.add(traxionpay.createPayformLinkAsync(ContractTest.cashIn("ORDER-" + i), null));
+            }
+            CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+            assertEquals(1, connections(server, 1));
+            // The warm-up request upgraded the connection, so every call went out as a stream.
+            assertEquals(10, server.http2RequestCount());
+        }
+    }
+
+    @Test
+    void testCapsConnectionsAtPoolSize() throws Exception {
+        try (H2cStubServer server = H2cStubServer.start(StubTraxionPayServer.start(API_KEY, SECRET_KEY));
+                TraxionPay traxionpay = client(server.baseUrl()).maxConnectionsPerRoute(2).build()) {
+            assertEquals(2, traxionpay.warmUpAsync(10).get(10, TimeUnit.SECONDS));
+            assertEquals(2, connections(server, 2));
+            assertEquals(2, traxionpay.warmUp(2));
+            assertEquals(2, connections(server, 2));
+        }
+    }
+
+    @Test
+    void testUnreachableServerOpensNothing() throws Exception {
+        String baseUrl;
+        try (StubTraxionPayServer server = StubTraxionPayServer.start(API_KEY, SECRET_KEY)) {
+            baseUrl = server.baseUrl();
+        }
+        try (TraxionPay traxionpay = client(baseUrl).build()) {
+            assertEquals(0, traxionpay.warmUp(2));
+            assertThrows(IllegalArgumentException.class, () -> traxionpay.warmUp(-1));
+        }
+    }
+
+    @Test
+    void testUnknownHostFails() throws Exception {
+        try (TraxionPay traxionpay = client("https://api.traxionpay.invalid").build()) {
+            assertThrows(TraxionPayException.class, () -> traxionpay.warmUp(1));
+            ExecutionException e = assertThrows(ExecutionException.class,
+                () -> traxionpay.warmUpAsync(1).get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TraxionPayException, e.getCause().toString());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package txnpay;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Status notifications posted to a {@link WebhookReceiver} over HTTP.
+ */
+class WebhookReceiverTest {
+    private static final String SECRET_KEY = "cxl+hwc%97h6+4#lx1au*ut=ml+=!fx85w94iuf*06=rf383xs";
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    static String notification(String merchantRefNo, String status, String secretKey) {
+        return notification(merchantRefNo, status, "1500.00", secretKey);
+    }
+
+    /**
+     * @param amount    JSON text of the amount, signed as written without its quotes
+     */
+    static String notification(String merchantRefNo, String status, String amount, String secretKey) {
+        String hash = Utils.hmacSha256Digest(merchantRefNo + amount.replace("\"", "") + "PHP" + status, secretKey);
+        return "{\"merchant_ref_no\": \"" + merchantRefNo + "\", \"status\": \"" + status + "\", "
+            + "\"amount\": " + amount + ", \"currency\": \"PHP\", \"reference_no\": \"TXN-" + merchantRefNo + "\", "
+            + "\"secure_hash\": \"" + hash + "\"}";
+    }
+
+    private CompletableFuture<Integer> post(WebhookReceiver receiver, String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + receiver.getPort() + "/notify"))
+            .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return this.http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    private static WebhookReceiver.Builder receiver() {
+        return WebhookReceiver.builder().secretKey(SECRET_KEY).port(0).path("/notify");
+    }
+
+    @Test
+    void testDispatchesVerifiedEventsByType() throws Exception {
+        Queue<WebhookEvent> paid = new ConcurrentLinkedQueue<>();
+        Queue<WebhookEvent> any = new ConcurrentLinkedQueue<>();
+        try (WebhookReceiver receiver = receiver().on(WebhookEvent.Type.PAID, paid::add).onAny(any::add)
+                .build().start()) {
+            assertEquals(200, (int) post(receiver, notification("ORDER-1", "paid", SECRET_KEY)).get());
+            assertEquals(200, (int) post(receiver, notification("ORDER-2", "expired", SECRET_KEY)).get());
+
+            assertEquals(1, paid.size());
+            WebhookEvent event = paid.peek();
+            assertEquals("ORDER-1", event.getMerchantRefNo());
+            assertEquals(1500.0, event.getAmount());
+            assertEquals("TXN-ORDER-1", event.getReferenceNo());
+            assertEquals(2, any.size());
+        }
+    }
+
+    @Test
+    void testRejectsUnsignedAndMalformedNotifications() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try (WebhookReceiver receiver = receiver().onAny(event -> calls.incrementAndGet()).build().start()) {
+            assertEquals(401, (int) post(receiver, notification("ORDER-1", "paid", "some other secret")).get());
+            String tampered = notification("ORDER-1", "failed", SECRET_KEY).replace("failed", "paid");
+            assertEquals(401, receiver.receive(tampered));
+            assertEquals(400, (int) post(receiver, "{\"merchant_ref_no\":").get());
+            assertEquals(400, receiver.receive("[]"));
+            assertEquals(0, calls.get());
+        }
+    }
+
+    @Test
+    void testVerifiesTheAmountAsWritten() throws Exception {
+        List<Double> amounts = new ArrayList<>();
+        try (WebhookReceiver receiver = receiver().onAny(event -> amounts.add(event.getAmount())).build()) {
+            assertEquals(200, receiver.receive(notification("ORDER-1", "paid", "1500.00", SECRET_KEY)));
+            assertEquals(200, receiver.receive(notification("ORDER-2", "paid", "1500", SECRET_KEY)));
+            assertEquals(200, receiver.receive(notification("ORDER-3", "paid", "\"1500.50\"", SECRET_KEY)));
+            assertEquals(200, receiver.receive(notification("ORDER-4", "paid", "\"1500.00\"", SECRET_KEY)));
+            assertEquals(Arrays.asList(1500.0, 1500.0, 1500.5, 1500.0), amounts);
+
+            String reformatted = notification("ORDER-5", "paid", "1500.00", SECRET_KEY).replace("1500.00", "1500.0");
+            assertEquals(401, receiver.receive(reformatted));
+        }
+    }
+
+    @Test
+    void testSignedDataCanBeReplaced() throws Exception {
+        String hash = Utils.hmacSha256Digest("ORDER-1|paid", SECRET_KEY);
+        String body = "{\"merchant_ref_no\": \"ORDER-1\", \"status\": \"paid\", "
+            + "\"secure_hash\": \"" + hash + "\"}";
+        try (WebhookReceiver receiver = receiver()
+                .signedData(event -> event.getMerchantRefNo() + "|" + event.getStatus()).build()) {
+            assertEquals(200, receiver.receive(body));
+            assertEquals(401, receiver.receive(notification("ORDER-2", "paid", SECRET_KEY)));
+        }
+    }
+
+    @Test
+    void testRedeliveriesAreHandledOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try (WebhookReceiver receiver = receiver().onAny(event -> calls.incrementAndGet()).build()) {
+            assertEquals(200, receiver.receive(notification("ORDER-1", "pending", SECRET_KEY)));
+            assertEquals(200, receiver.receive(notification("ORDER-1", "pending", SECRET_KEY)));
+            assertEquals(1, calls.get());
+
+            // A new status of the same payment is a new notification.
+            assertEquals(200, receiver.receive(notification("ORDER-1", "paid", SECRET_KEY)));
+            assertEquals(2, calls.get());
+        }
+    }
+
+    @Test
+    void testFailedHandlerGetsTheRedelivery() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        WebhookHandler flaky = event -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("database unavailable");
+            }
+        };
+        try (WebhookReceiver receiver = receiver().on(WebhookEvent.Type.PAID, flaky).build().start()) {
+            assertEquals(500, (int) post(receiver, notification("ORDER-1", "paid", SECRET_KEY)).get());
+            assertEquals(200, (int) post(receiver, notification("ORDER-1", "paid", SECRET_KEY)).get());
+            assertEquals(200, (int) post(receiver, notification("ORDER-1", "paid", SECRET_KEY)).get());
+            assertEquals(2, calls.get());
+        }
+    }
+
+    @Test
+    void testBurstsWaitInsteadOfBeingDropped() throws Exception {
+        Set<String> handled = ConcurrentHashMap.newKeySet();
+        WebhookHandler slow = event -> {
+            Thread.sleep(2);
+            handled.add(event.getMerchantRefNo());
+        };
+        try (WebhookReceiver receiver = receiver().workers(2, 4).onAny(slow).build().start()) {
+            List<CompletableFuture<Integer>> burst = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                burst.add(post(receiver, notification("ORDER-" + i, "paid", SECRET_KEY)));
+            }
+            // Redeliveries within the burst.
+            for (int i = 0; i < 50; i++) {
+                burst.add(post(receiver, notification("ORDER-" + i, "paid", SECRET_KEY)));
+            }
+
+            for (CompletableFuture<Integer> status : burst) {
+                assertEquals(200, (int) status.get());
+            }
+            assertEquals(300, handled.size());
+        }
+    }
+
+    @Test
+    void testCloseFinishesAcceptedNotifications() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        WebhookHandler slow = event -> {
+            started.countDown();
+            Thread.sleep(100);
+            calls.incrementAndGet();
+        };
+        WebhookReceiver receiver = receiver().shutdownTimeout(Duration.ofSeconds(5)).onAny(slow).build().start();
+        CompletableFuture<Integer> status = post(receiver, notification("ORDER-1", "paid", SECRET_KEY));
+        started.await();
+        receiver.close();
+
+        assertEquals(1, calls.get());
+        assertEquals(200, (int) status.get());
+    }
+}